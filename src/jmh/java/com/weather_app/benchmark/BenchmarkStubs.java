@@ -0,0 +1,131 @@
+package com.weather_app.benchmark;
+
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.service.WeatherProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/** In-process stand-ins so benchmarks measure our code, not H2 or the network. */
+final class BenchmarkStubs {
+
+    private BenchmarkStubs() {
+    }
+
+    /** Repository backed by a map; with {@code persistent=false} saves are dropped. */
+    static WeatherRecordRepository repository(boolean persistent) {
+        Map<String, WeatherRecord> store = new ConcurrentHashMap<>();
+        return (WeatherRecordRepository) Proxy.newProxyInstance(
+                WeatherRecordRepository.class.getClassLoader(),
+                new Class<?>[]{WeatherRecordRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByLocationKey" -> Optional.ofNullable(store.get((String) args[0]));
+                    case "findAllByLocationKeyIn" -> ((Collection<?>) args[0]).stream()
+                            .map(store::get).filter(r -> r != null).toList();
+                    case "save" -> {
+                        WeatherRecord rec = (WeatherRecord) args[0];
+                        if (persistent) store.put(rec.getLocationKey(), rec);
+                        yield rec;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryWeatherRecordRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** Transactions that cost nothing, the map-backed repository needs none. */
+    static PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    /** Upstream that answers immediately with a fixed observation. */
+    static WeatherProvider provider() {
+        return new WeatherProvider() {
+            @Override
+            public WeatherApiResponse fetchByCity(String city) {
+                return response(city);
+            }
+
+            @Override
+            public WeatherApiResponse fetchByZip(String zip) {
+                return response(zip);
+            }
+
+            @Override
+            public WeatherApiResponse fetchByCoordinates(double latitude, double longitude) {
+                WeatherApiResponse dto = response(latitude + "," + longitude);
+                dto.setLatitude(latitude);
+                dto.setLongitude(longitude);
+                return dto;
+            }
+
+            private WeatherApiResponse response(String name) {
+                WeatherApiResponse dto = new WeatherApiResponse();
+                dto.setCity(name);
+                dto.setTemperature(21.5);
+                dto.setHumidity(40);
+                dto.setDescription("clear sky");
+                dto.setWindSpeed(3.1);
+                return dto;
+            }
+        };
+    }
+
+    static List<String> cities(int n) {
+        return IntStream.range(0, n).mapToObj(i -> "City-" + i).toList();
+    }
+
+    /** Clock a benchmark can push forward to age every record past the TTL. */
+    static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2025-01-01T12:00:00Z");
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
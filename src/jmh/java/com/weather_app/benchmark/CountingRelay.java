@@ -0,0 +1,101 @@
+package com.weather_app.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loopback TCP relay in front of a local server that counts the bytes the server sends back:
+ * status lines or HEADERS frames, headers, chunk or frame overhead and the body as encoded.
+ */
+final class CountingRelay implements AutoCloseable {
+    private final ServerSocket server;
+    private final int targetPort;
+    private final LongAdder received = new LongAdder();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final ExecutorService pumps = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "counting-relay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    CountingRelay(int targetPort) throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.targetPort = targetPort;
+        pumps.execute(this::accept);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    /** Bytes sent by the server since the last {@link #reset}. */
+    long received() {
+        return received.sum();
+    }
+
+    void reset() {
+        received.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        pumps.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket target = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                sockets.add(client);
+                sockets.add(target);
+                pumps.execute(() -> pump(client, target, null));
+                pumps.execute(() -> pump(target, client, received));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void pump(Socket from, Socket to, LongAdder counter) {
+        byte[] buffer = new byte[8192];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                // counted before the peer can see them, so a completed response is fully counted
+                if (counter != null) counter.add(n);
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // either side went away
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private void closeQuietly(Socket socket) {
+        sockets.remove(socket);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.weather_app.benchmark;
+
+import com.weather_app.service.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** City normalization and {@code locationKey} construction done on every request. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocationKeyBenchmark {
+    private final String[] inputs = {"Kyiv", "  New York ", "SAN FRANCISCO", "london", "Rio de Janeiro "};
+    private int next;
+
+    @Benchmark
+    public Location cityKey() {
+        return Location.ofCity(inputs[next++ % inputs.length]);
+    }
+
+    @Benchmark
+    public Location zipKey() {
+        return Location.ofZip(" 90210 ");
+    }
+}
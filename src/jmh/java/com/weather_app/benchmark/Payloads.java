@@ -0,0 +1,17 @@
+package com.weather_app.benchmark;
+
+final class Payloads {
+    // a complete /data/2.5/weather response as returned by OpenWeatherMap
+    static final String CURRENT_WEATHER = """
+            {"coord":{"lon":30.5167,"lat":50.4333},\
+            "weather":[{"id":803,"main":"Clouds","description":"broken clouds","icon":"04d"}],\
+            "base":"stations",\
+            "main":{"temp":22.5,"feels_like":21.9,"temp_min":21.0,"temp_max":23.1,"pressure":1015,\
+            "humidity":55,"sea_level":1015,"grnd_level":998},\
+            "visibility":10000,"wind":{"speed":3.6,"deg":200,"gust":5.1},"clouds":{"all":75},\
+            "dt":1735732800,"sys":{"type":2,"id":2003742,"country":"UA","sunrise":1735710000,\
+            "sunset":1735740000},"timezone":7200,"id":703448,"name":"Kyiv","cod":200}""";
+
+    private Payloads() {
+    }
+}
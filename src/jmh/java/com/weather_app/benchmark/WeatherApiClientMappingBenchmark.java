@@ -0,0 +1,53 @@
+package com.weather_app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.config.WeatherApiProperties;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.service.WeatherApiClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything {@code WeatherApiClient.fetchByCity} does around the wire: URI building,
+ * RestTemplate dispatch and {@code callAndMap}'s JSON extraction, with the HTTP exchange
+ * replaced by a canned in-memory response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeatherApiClientMappingBenchmark {
+    private WeatherApiClient client;
+
+    @Setup
+    public void setUp() {
+        byte[] payload = Payloads.CURRENT_WEATHER.getBytes(StandardCharsets.UTF_8);
+        RestTemplate restTemplate = new RestTemplate((uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(new MockClientHttpResponse(payload, HttpStatus.OK));
+            return request;
+        });
+
+        WeatherApiProperties props = new WeatherApiProperties();
+        props.setKey("benchmark");
+        props.setUrl("http://localhost/data/2.5/weather");
+        client = new WeatherApiClient(restTemplate, new ObjectMapper(), props, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public WeatherApiResponse fetchByCity() {
+        return client.fetchByCity("kyiv");
+    }
+}
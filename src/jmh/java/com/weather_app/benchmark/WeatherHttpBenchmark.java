@@ -0,0 +1,166 @@
+package com.weather_app.benchmark;
+
+import com.weather_app.WeatherAppApplication;
+import com.weather_app.support.StubWeatherApi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * {@code GET /weather} and a 50-city {@code POST /weather/batch} through the real connector from a
+ * local client, by protocol (HTTP/1.1, h2c) and {@code Accept-Encoding}. JMH reports the latency
+ * distribution. At the end of each trial it prints the body bytes per response as received
+ * (compressed when gzip was negotiated) and the bytes on the wire, which add the status line or
+ * HEADERS frame, headers and framing. Every city is fetched before measuring, so the numbers
+ * cover our serving path (cache hit, encoding, compression, framing) and not the provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeatherHttpBenchmark {
+    private static final int BATCH_CITIES = 50;
+    private static final int WIRE_SAMPLES = 100;
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public String protocol;
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private StubWeatherApi upstream;
+    private ConfigurableApplicationContext ctx;
+    private int port;
+    private HttpClient client;
+    private HttpRequest single;
+    private HttpRequest batch;
+    private final LongAdder singleBytes = new LongAdder();
+    private final LongAdder singleResponses = new LongAdder();
+    private final LongAdder batchBytes = new LongAdder();
+    private final LongAdder batchResponses = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException, InterruptedException {
+        upstream = new StubWeatherApi(Duration.ZERO);
+        ctx = new SpringApplicationBuilder(WeatherAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:http-benchmark",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--weather.cache.warm-on-startup=false",
+                "--weather.resilience.rate-limit.calls-per-minute=1000000",
+                "--weather.resilience.rate-limit.burst=10000",
+                "--weather.api.url=" + upstream.weatherUrl());
+        port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        String base = "http://localhost:" + port;
+        client = newClient();
+        single = singleRequest(base);
+        batch = batchRequest(base);
+        // fills the caches, and on HTTP/2 upgrades the connection before the POSTs
+        send(client, single);
+        send(client, batch);
+        singleBytes.reset();
+        singleResponses.reset();
+        batchBytes.reset();
+        batchResponses.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException, InterruptedException {
+        // JMH runs each benchmark method in its own trial, only one of the two has counted anything
+        if (singleResponses.sum() > 0) {
+            System.out.printf("%n%s %s: GET /weather, %d body bytes, %d wire bytes per response%n",
+                    protocol, encoding, singleBytes.sum() / singleResponses.sum(), wireBytesPerResponse(false));
+        }
+        if (batchResponses.sum() > 0) {
+            System.out.printf("%n%s %s: POST /weather/batch (%d cities), %d body bytes, %d wire bytes per response%n",
+                    protocol, encoding, BATCH_CITIES, batchBytes.sum() / batchResponses.sum(),
+                    wireBytesPerResponse(true));
+        }
+        ctx.close();
+        upstream.close();
+    }
+
+    @Benchmark
+    public byte[] single() throws IOException, InterruptedException {
+        byte[] body = send(client, single);
+        singleBytes.add(body.length);
+        singleResponses.increment();
+        return body;
+    }
+
+    @Benchmark
+    public byte[] batch() throws IOException, InterruptedException {
+        byte[] body = send(client, batch);
+        batchBytes.add(body.length);
+        batchResponses.increment();
+        return body;
+    }
+
+    /**
+     * What the app writes to the socket per response, averaged over {@link #WIRE_SAMPLES} requests
+     * on a new connection through a {@link CountingRelay}. Measured after the trial so the relay's
+     * extra hop stays out of the latency.
+     */
+    private long wireBytesPerResponse(boolean batched) throws IOException, InterruptedException {
+        try (CountingRelay relay = new CountingRelay(port)) {
+            String base = "http://127.0.0.1:" + relay.port();
+            HttpClient relayed = newClient();
+            HttpRequest request = batched ? batchRequest(base) : singleRequest(base);
+            // on HTTP/2 the upgrade happens on a GET, a POST cannot carry it
+            send(relayed, singleRequest(base));
+            relay.reset();
+            for (int i = 0; i < WIRE_SAMPLES; i++) {
+                send(relayed, request);
+            }
+            return relay.received() / WIRE_SAMPLES;
+        }
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder().version(HttpClient.Version.valueOf(protocol)).build();
+    }
+
+    private HttpRequest singleRequest(String base) {
+        return HttpRequest.newBuilder(URI.create(base + "/weather?city=City-0"))
+                .header("Accept-Encoding", encoding)
+                .build();
+    }
+
+    private HttpRequest batchRequest(String base) {
+        String cities = BenchmarkStubs.cities(BATCH_CITIES).stream()
+                .map(city -> "\"" + city + "\"")
+                .collect(Collectors.joining(","));
+        return HttpRequest.newBuilder(URI.create(base + "/weather/batch"))
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", encoding)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"cities\":[" + cities + "]}"))
+                .build();
+    }
+
+    private static byte[] send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+}
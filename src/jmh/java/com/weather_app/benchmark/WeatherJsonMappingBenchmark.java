@@ -0,0 +1,70 @@
+package com.weather_app.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.service.WeatherJsonExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming {@link WeatherJsonExtractor} vs. the previous String + {@code readTree} + JSON-pointer
+ * mapping, on a full-size provider payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WeatherJsonMappingBenchmark {
+    private ObjectMapper objectMapper;
+    private WeatherJsonExtractor extractor;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        extractor = new WeatherJsonExtractor(objectMapper.getFactory());
+        payload = Payloads.CURRENT_WEATHER.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public WeatherApiResponse treeMapping() throws IOException {
+        // what callAndMap used to do: buffer the body as a String, build a tree, walk pointers
+        String body = new String(new ByteArrayInputStream(payload).readAllBytes(), StandardCharsets.UTF_8);
+        JsonNode root = objectMapper.readTree(body);
+
+        WeatherApiResponse dto = new WeatherApiResponse();
+        dto.setTemperature(optDouble(root.at("/main/temp")));
+        dto.setHumidity(optInt(root.at("/main/humidity")));
+        dto.setDescription(optText(root.at("/weather/0/description")));
+        dto.setWindSpeed(optDouble(root.at("/wind/speed")));
+        dto.setCity(optText(root.at("/name")));
+        return dto;
+    }
+
+    @Benchmark
+    public WeatherApiResponse streamingExtractor() throws IOException {
+        return extractor.extract(new ByteArrayInputStream(payload));
+    }
+
+    private static String optText(JsonNode node) {
+        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asText();
+    }
+
+    private static Double optDouble(JsonNode node) {
+        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asDouble();
+    }
+
+    private static Integer optInt(JsonNode node) {
+        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asInt();
+    }
+}
@@ -0,0 +1,64 @@
+package com.weather_app.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.WeatherView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code GET /weather} response body: Jackson mapping of the entity, configured like Spring MVC's
+ * converter, against building a {@link WeatherView} (once per refresh) and reusing it (every cache hit).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeatherRecordSerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private WeatherRecord record;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        record = new WeatherRecord();
+        record.setId(1L);
+        record.setLocationKey("city:kyiv");
+        record.setCity("Kyiv");
+        record.setTemperature(22.5);
+        record.setDescription("broken clouds");
+        record.setHumidity(55);
+        record.setWindSpeed(3.6);
+        record.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:00:00"));
+    }
+
+    @Benchmark
+    public byte[] entityMapping() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(record);
+    }
+
+    @Benchmark
+    public byte[] viewBuild() {
+        return WeatherView.of(record).json();
+    }
+
+    @Benchmark
+    public byte[] cachedView() {
+        return record.view().json();
+    }
+
+    @Benchmark
+    public byte[] cachedViewCbor() {
+        return record.view().cbor();
+    }
+}
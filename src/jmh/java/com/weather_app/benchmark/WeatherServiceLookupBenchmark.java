@@ -0,0 +1,99 @@
+package com.weather_app.benchmark;
+
+import com.weather_app.cache.HotKeyTracker;
+import com.weather_app.cache.NegativeLookupCache;
+import com.weather_app.cache.NoSharedWeatherCache;
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.StripedLocks;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherHistoryProperties;
+import com.weather_app.config.WeatherPersistenceProperties;
+import com.weather_app.config.WeatherSharedCacheProperties;
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.history.ObservationHistory;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.repository.WeatherRecordWriteBehind;
+import com.weather_app.service.WeatherService;
+import com.weather_app.stream.WeatherUpdateHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WeatherService#getByCity} on its three paths, with an in-memory repository and an
+ * instant stub upstream so only our own lookup, cache and refresh code is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeatherServiceLookupBenchmark {
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    private BenchmarkStubs.MutableClock clock;
+    private WeatherService freshService;
+    private WeatherService staleService;
+    private WeatherService missService;
+    private List<String> cities;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        clock = new BenchmarkStubs.MutableClock();
+        cities = BenchmarkStubs.cities(1024);
+        var props = new WeatherCacheProperties();
+
+        freshService = service(BenchmarkStubs.repository(true), 10_000, props);
+        for (String city : cities) {
+            freshService.getByCity(city); // warm the near cache
+        }
+
+        staleService = service(BenchmarkStubs.repository(true), 10_000, props);
+        staleService.getByCity("Kyiv");
+
+        // nothing is kept anywhere, so every lookup goes upstream
+        missService = service(BenchmarkStubs.repository(false), 1, props);
+    }
+
+    private WeatherService service(WeatherRecordRepository repo, int cacheSize,
+                                   WeatherCacheProperties props) {
+        return new WeatherService(repo, BenchmarkStubs.provider(),
+                new WeatherRecordCache(cacheSize, TTL, clock), new NoSharedWeatherCache(), new RefreshCoalescer(),
+                new StripedLocks(64),
+                // tracking on, as with weather.prewarm.enabled
+                new HotKeyTracker(800, Duration.ofMinutes(10), clock),
+                new NegativeLookupCache(true, Duration.ofMinutes(10), 4, 10_000, 0.0001, new SimpleMeterRegistry(), clock),
+                new WeatherRecordWriteBehind(null, null, new WeatherPersistenceProperties(), new SimpleMeterRegistry()),
+                new ObservationHistory(new WeatherHistoryProperties(), new SimpleMeterRegistry()),
+                new WeatherUpdateHub(new WeatherStreamProperties(), Runnable::run, new SimpleMeterRegistry()),
+                Runnable::run, Runnable::run, BenchmarkStubs.transactionManager(), props,
+                new WeatherSharedCacheProperties(), new SimpleMeterRegistry(), clock);
+    }
+
+    @Benchmark
+    public WeatherRecord freshHit() {
+        return freshService.getByCity(cities.get(next++ & 1023));
+    }
+
+    @Benchmark
+    public WeatherRecord staleRefresh() {
+        // age the single record past the TTL so every call takes the blocking refresh path
+        clock.advance(TTL.plusMinutes(1));
+        return staleService.getByCity("Kyiv");
+    }
+
+    @Benchmark
+    public WeatherRecord miss() {
+        return missService.getByCity(cities.get(next++ & 1023));
+    }
+}
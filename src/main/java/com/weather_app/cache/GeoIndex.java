@@ -0,0 +1,100 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Fixed grid over latitude/longitude for {@link WeatherRecordCache}: each record with coordinates
+ * sits in one cell of {@value #CELL_DEGREES}° (about 11 km north-south), and a radius query only
+ * looks at the cells overlapping the radius' bounding box. Not thread-safe; the cache guards it
+ * with its own lock.
+ */
+final class GeoIndex {
+    static final double CELL_DEGREES = 0.1;
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_DEGREES);
+
+    private final Map<Long, Map<String, WeatherRecord>> cells = new HashMap<>();
+
+    void add(WeatherRecord rec) {
+        if (!hasCoordinates(rec)) return;
+        cells.computeIfAbsent(cellOf(rec.getLatitude(), rec.getLongitude()), c -> new HashMap<>())
+                .put(rec.getLocationKey(), rec);
+    }
+
+    void remove(WeatherRecord rec) {
+        if (!hasCoordinates(rec)) return;
+        long cell = cellOf(rec.getLatitude(), rec.getLongitude());
+        Map<String, WeatherRecord> records = cells.get(cell);
+        if (records != null && records.remove(rec.getLocationKey(), rec) && records.isEmpty()) {
+            cells.remove(cell);
+        }
+    }
+
+    /** The closest record within {@code radiusKm} that {@code usable} accepts. */
+    Optional<WeatherRecord> nearest(double latitude, double longitude, double radiusKm,
+                                    Predicate<WeatherRecord> usable) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        int latFrom = latIndex(Math.max(-90, latitude - latSpan));
+        int latTo = latIndex(Math.min(90, latitude + latSpan));
+        // a degree of longitude shrinks towards the poles, widest span at the box edge nearest one
+        double cos = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + latSpan)));
+        double lonSpan = cos < 1e-9 ? 180 : radiusKm / (KM_PER_DEGREE * cos);
+        int lonFrom = (int) Math.floor((longitude - lonSpan + 180) / CELL_DEGREES);
+        int lonTo = (int) Math.floor((longitude + lonSpan + 180) / CELL_DEGREES);
+        if (lonTo - lonFrom + 1 >= LON_CELLS) {
+            lonFrom = 0;
+            lonTo = LON_CELLS - 1;
+        }
+
+        WeatherRecord best = null;
+        double bestKm = radiusKm;
+        for (int lat = latFrom; lat <= latTo; lat++) {
+            for (int lon = lonFrom; lon <= lonTo; lon++) {
+                // floorMod wraps cells across the antimeridian
+                Map<String, WeatherRecord> records = cells.get((long) lat * LON_CELLS + Math.floorMod(lon, LON_CELLS));
+                if (records == null) continue;
+                for (WeatherRecord rec : records.values()) {
+                    double km = distanceKm(latitude, longitude, rec.getLatitude(), rec.getLongitude());
+                    if (km <= bestKm && usable.test(rec)) {
+                        best = rec;
+                        bestKm = km;
+                    }
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    int cellCount() {
+        return cells.size();
+    }
+
+    /** Great-circle distance (haversine). */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static boolean hasCoordinates(WeatherRecord rec) {
+        return rec.getLatitude() != null && rec.getLongitude() != null;
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        int lon = Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LON_CELLS);
+        return (long) latIndex(latitude) * LON_CELLS + lon;
+    }
+
+    private static int latIndex(double latitude) {
+        return Math.min(LAT_CELLS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+    }
+}
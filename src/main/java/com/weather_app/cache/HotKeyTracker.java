@@ -0,0 +1,145 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherPrewarmProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate request counts per location key in fixed memory: a count-min sketch holds the
+ * counts, a bounded candidate set remembers which keys are worth ranking. Counts are halved
+ * every half-life so the ranking follows current traffic rather than all-time totals.
+ */
+@Component
+public class HotKeyTracker {
+    private static final int DEPTH = 4;
+
+    private final int capacity;
+    private final Duration halfLife;
+    private final Clock clock;
+    private final int mask;
+    private final AtomicIntegerArray counts;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private volatile int admissionThreshold;
+    private Instant lastDecay;
+
+    /** A {@code capacity} of 0 turns tracking off. */
+    public HotKeyTracker(int capacity, Duration halfLife, Clock clock) {
+        this.capacity = capacity;
+        this.halfLife = halfLife;
+        this.clock = clock;
+        // about eight counters per tracked key keeps overestimates for the top keys small
+        int width = Integer.highestOneBit(Math.max(64, capacity * 8 - 1)) << 1;
+        this.mask = width - 1;
+        this.counts = new AtomicIntegerArray(capacity == 0 ? 0 : DEPTH * width);
+        this.lastDecay = clock.instant();
+    }
+
+    @Autowired
+    public HotKeyTracker(WeatherPrewarmProperties props) {
+        // keep a few times more candidates than we refresh so newcomers can climb the ranking
+        this(props.isEnabled() ? props.getTopN() * 4 : 0, props.getHalfLife(), Clock.systemUTC());
+    }
+
+    public void record(String locationKey) {
+        if (capacity == 0) return;
+        int estimate = increment(locationKey);
+        if (candidates.contains(locationKey)) return;
+        if (candidates.size() < capacity || estimate > admissionThreshold) {
+            candidates.add(locationKey);
+            if (candidates.size() > 2 * capacity && trimLock.tryLock()) {
+                try {
+                    trim();
+                } finally {
+                    trimLock.unlock();
+                }
+            }
+        }
+    }
+
+    public int estimate(String locationKey) {
+        if (capacity == 0) return 0;
+        int h = spread(locationKey.hashCode());
+        int step = (h >>> 16) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counts.get(row * (mask + 1) + ((h + row * step) & mask)));
+        }
+        return min;
+    }
+
+    /** The {@code n} most requested keys, most requested first. Applies the decay when it is due. */
+    public List<String> topKeys(int n) {
+        if (capacity == 0) return List.of();
+        trimLock.lock();
+        try {
+            decayIfDue();
+            List<String> ranked = trim();
+            return List.copyOf(ranked.subList(0, Math.min(n, ranked.size())));
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    public int trackedKeys() {
+        return candidates.size();
+    }
+
+    private int increment(String locationKey) {
+        int h = spread(locationKey.hashCode());
+        int step = (h >>> 16) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * (mask + 1) + ((h + row * step) & mask);
+            // saturate instead of overflowing on a key that stays hot for a very long time
+            min = Math.min(min, counts.updateAndGet(index, c -> c == Integer.MAX_VALUE ? c : c + 1));
+        }
+        return min;
+    }
+
+    private void decayIfDue() {
+        Instant now = clock.instant();
+        if (now.isBefore(lastDecay.plus(halfLife))) return;
+        for (int i = 0; i < counts.length(); i++) {
+            counts.updateAndGet(i, c -> c >>> 1);
+        }
+        lastDecay = now;
+    }
+
+    private List<String> trim() {
+        // snapshot the counts, they keep moving while we sort
+        Map<String, Integer> estimates = new HashMap<>();
+        for (String key : candidates) {
+            estimates.put(key, estimate(key));
+        }
+        List<String> ranked = new ArrayList<>(estimates.keySet());
+        ranked.sort(Comparator.comparing(estimates::get, Comparator.reverseOrder()));
+        if (ranked.size() > capacity) {
+            candidates.removeAll(ranked.subList(capacity, ranked.size()));
+            ranked = ranked.subList(0, capacity);
+            admissionThreshold = estimates.get(ranked.get(capacity - 1));
+        } else {
+            admissionThreshold = 0;
+        }
+        return ranked;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
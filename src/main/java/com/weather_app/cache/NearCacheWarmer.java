@@ -0,0 +1,81 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.repository.WeatherRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the records that are still servable into the near cache once the context is up and
+ * before the web server takes traffic, so a restart against a durable database does not turn
+ * into a burst of upstream calls.
+ */
+@Component
+@ConditionalOnProperty(prefix = "weather.cache", name = "warm-on-startup", havingValue = "true", matchIfMissing = true)
+public class NearCacheWarmer implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(NearCacheWarmer.class);
+
+    private final WeatherRecordRepository repository;
+    private final WeatherRecordCache cache;
+    private final MeterRegistry meterRegistry;
+    private final int maxSize;
+    private final Duration retention;
+    private final Clock clock;
+
+    private volatile int restored;
+    private volatile long elapsedMillis;
+
+    public NearCacheWarmer(WeatherRecordRepository repository, WeatherRecordCache cache, MeterRegistry meterRegistry,
+                           WeatherCacheProperties props, Clock clock) {
+        this.repository = repository;
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+        this.maxSize = props.getMaxSize();
+        this.retention = WeatherRecordCache.retentionOf(props);
+        this.clock = clock;
+    }
+
+    @Autowired
+    public NearCacheWarmer(WeatherRecordRepository repository, WeatherRecordCache cache, MeterRegistry meterRegistry,
+                           WeatherCacheProperties props) {
+        this(repository, cache, meterRegistry, props, Clock.systemUTC());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention);
+        List<WeatherRecord> servable = repository.findByUpdatedAtAfterOrderByUpdatedAtDesc(cutoff, Limit.of(maxSize));
+        // oldest first, so the newest records end up most recently used
+        for (int i = servable.size() - 1; i >= 0; i--) {
+            cache.put(servable.get(i));
+        }
+        restored = servable.size();
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Near cache warmed with {} records in {} ms", restored, elapsedMillis);
+
+        Gauge.builder("weather.cache.warmup.records", this, w -> w.restored)
+                .register(meterRegistry);
+        TimeGauge.builder("weather.cache.warmup.duration", this, TimeUnit.MILLISECONDS, w -> w.elapsedMillis)
+                .register(meterRegistry);
+    }
+
+    public int restoredRecords() {
+        return restored;
+    }
+}
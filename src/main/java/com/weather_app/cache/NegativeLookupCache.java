@@ -0,0 +1,161 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherNegativeCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Location keys the provider recently answered with 404, so typos and bot traffic do not cost an
+ * upstream call each. Membership is a Bloom filter split into time buckets: a key goes into the
+ * current bucket, and a bucket is cleared once it is a full TTL old, so entries live between
+ * {@code ttl - ttl / buckets} and {@code ttl} in fixed memory.
+ * <p>
+ * A false positive answers an unseen location with 404, so callers only ask for keys that have
+ * no record anywhere; a location that ever existed is never short-circuited.
+ */
+@Component
+public class NegativeLookupCache {
+    private static final double LN2 = Math.log(2);
+
+    private final boolean enabled;
+    private final long bucketMillis;
+    private final int bits;
+    private final int hashes;
+    private final Bucket[] buckets;
+    private final Clock clock;
+    private final Counter added;
+    private final Counter avoided;
+
+    public NegativeLookupCache(boolean enabled, Duration ttl, int buckets, int expectedEntries,
+                               double falsePositiveRate, MeterRegistry meterRegistry, Clock clock) {
+        if (enabled && (buckets < 1 || ttl.toMillis() < buckets || expectedEntries < 1
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1)) {
+            throw new IllegalArgumentException("weather.negative-cache needs ttl >= buckets >= 1, expected-entries >= 1 "
+                    + "and false-positive-rate in (0, 1)");
+        }
+        this.enabled = enabled;
+        this.bucketMillis = enabled ? ttl.toMillis() / buckets : 1;
+        // every bucket is sized for all entries of a TTL, as traffic may arrive in one burst
+        long optimalBits = enabled
+                ? (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (LN2 * LN2))
+                : 0;
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashes = enabled ? Math.max(1, (int) Math.round((double) bits / expectedEntries * LN2)) : 0;
+        this.buckets = new Bucket[enabled ? buckets : 0];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket(new AtomicLongArray((bits + 63) >>> 6));
+        }
+        this.clock = clock;
+        this.added = Counter.builder("weather.negative.added")
+                .description("Locations the provider did not find, remembered for the negative TTL")
+                .register(meterRegistry);
+        this.avoided = Counter.builder("weather.negative.avoided")
+                .description("Upstream calls avoided because the location was recently not found")
+                .register(meterRegistry);
+    }
+
+    @Autowired
+    public NegativeLookupCache(WeatherNegativeCacheProperties props, MeterRegistry meterRegistry) {
+        this(props.isEnabled(), props.getTtl(), props.getBuckets(), props.getExpectedEntries(),
+                props.getFalsePositiveRate(), meterRegistry, Clock.systemUTC());
+    }
+
+    /** Remembers that the provider does not know {@code locationKey}. */
+    public void add(String locationKey) {
+        if (!enabled) return;
+        long generation = generation();
+        Bucket bucket = buckets[(int) (generation % buckets.length)];
+        bucket.lock.lock();
+        try {
+            if (bucket.generation != generation) {
+                // the slot still holds a generation a full TTL old
+                for (int i = 0; i < bucket.words.length(); i++) bucket.words.set(i, 0);
+                bucket.generation = generation;
+            }
+            long hash = hash(locationKey);
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(hash, i);
+                bucket.words.getAndUpdate(bit >>> 6, word -> word | (1L << bit));
+            }
+        } finally {
+            bucket.lock.unlock();
+        }
+        added.increment();
+    }
+
+    /**
+     * Whether {@code locationKey} was not found within the TTL; a {@code true} counts as an
+     * avoided upstream call, so ask right before making one.
+     */
+    public boolean recentlyNotFound(String locationKey) {
+        if (!enabled) return false;
+        long generation = generation();
+        long hash = hash(locationKey);
+        for (Bucket bucket : buckets) {
+            long age = generation - bucket.generation;
+            if (age >= 0 && age < buckets.length && containsAll(bucket, hash)) {
+                avoided.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int bitsPerBucket() {
+        return bits;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    private boolean containsAll(Bucket bucket, long hash) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = index(hash, i);
+            if ((bucket.words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private long generation() {
+        return clock.millis() / bucketMillis;
+    }
+
+    /** Bit {@code i} of the key, by double hashing the two halves of one 64-bit hash. */
+    private int index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, bits);
+    }
+
+    /** FNV-1a over the key's chars, finished with the MurmurHash3 mixer. */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static final class Bucket {
+        final AtomicLongArray words;
+        // not synchronized, so a virtual thread adding a key does not pin its carrier
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long generation = Long.MIN_VALUE;
+
+        Bucket(AtomicLongArray words) {
+            this.words = words;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/** Single-instance deployments: nothing is shared and every refresh lock is granted. */
+public class NoSharedWeatherCache implements SharedWeatherCache {
+    private static final RefreshLock LOCAL = () -> { };
+
+    @Override
+    public Optional<WeatherRecord> get(String locationKey) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, WeatherRecord> getAll(Collection<String> locationKeys) {
+        return Map.of();
+    }
+
+    @Override
+    public void put(WeatherRecord rec) {
+    }
+
+    @Override
+    public Optional<RefreshLock> tryLock(String locationKey) {
+        return Optional.of(LOCAL);
+    }
+
+    @Override
+    public void onInvalidation(Consumer<String> listener) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight guard for refreshes: while a refresh for a location key is running,
+ * concurrent callers for the same key wait for it instead of starting their own, and
+ * all of them observe the same record or the same exception. Background refreshes
+ * registered through {@link #runAsync} take part in the same deduplication.
+ */
+@Component
+public class RefreshCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(RefreshCoalescer.class);
+
+    private final ConcurrentMap<String, CompletableFuture<WeatherRecord>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public WeatherRecord run(String locationKey, Supplier<WeatherRecord> refresh) {
+        CompletableFuture<WeatherRecord> mine = new CompletableFuture<>();
+        CompletableFuture<WeatherRecord> leader = inFlight.putIfAbsent(locationKey, mine);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+
+        executed.increment();
+        execute(locationKey, mine, refresh);
+        return await(mine);
+    }
+
+    /**
+     * Future-returning variant of {@link #run} for refreshes that are asynchronous themselves:
+     * starts {@code refresh} unless one is already in flight for the key and returns the shared future.
+     */
+    public CompletableFuture<WeatherRecord> submit(String locationKey, Supplier<CompletableFuture<WeatherRecord>> refresh) {
+        CompletableFuture<WeatherRecord> mine = new CompletableFuture<>();
+        CompletableFuture<WeatherRecord> leader = inFlight.putIfAbsent(locationKey, mine);
+        if (leader != null) {
+            coalesced.increment();
+            return leader;
+        }
+
+        executed.increment();
+        CompletableFuture<WeatherRecord> started;
+        try {
+            started = refresh.get();
+        } catch (RuntimeException | Error e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((rec, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                mine.complete(rec);
+            }
+            inFlight.remove(locationKey, mine);
+        });
+        return mine;
+    }
+
+    /**
+     * Schedules a refresh on {@code executor} unless one is already running for the key.
+     * Returns {@code false} if the refresh was coalesced or the executor rejected it.
+     */
+    public boolean runAsync(String locationKey, Executor executor, Supplier<WeatherRecord> refresh) {
+        CompletableFuture<WeatherRecord> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(locationKey, mine) != null) {
+            coalesced.increment();
+            return false;
+        }
+
+        try {
+            executor.execute(() -> execute(locationKey, mine, refresh));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(locationKey, mine);
+            mine.completeExceptionally(e);
+            rejected.increment();
+            return false;
+        }
+        executed.increment();
+        return true;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public CoalescerStats stats() {
+        return new CoalescerStats(executed.sum(), coalesced.sum(), rejected.sum());
+    }
+
+    private void execute(String locationKey, CompletableFuture<WeatherRecord> mine, Supplier<WeatherRecord> refresh) {
+        try {
+            mine.complete(refresh.get());
+        } catch (RuntimeException | Error e) {
+            log.debug("Refresh of {} failed", locationKey, e);
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(locationKey, mine);
+        }
+    }
+
+    private static WeatherRecord await(CompletableFuture<WeatherRecord> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            // rethrow the leader's own exception so every waiter sees the same failure
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    public record CoalescerStats(long executed, long coalesced, long rejected) {
+    }
+}
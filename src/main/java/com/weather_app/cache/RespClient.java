@@ -0,0 +1,240 @@
+package com.weather_app.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Just enough of the Redis protocol (RESP2) for {@link RespSharedWeatherCache}: commands go out
+ * as arrays of bulk strings, replies come back as {@code String} (simple strings), {@code Long},
+ * {@code byte[]} (bulk strings, {@code null} when absent) or {@code List} (arrays). Connections
+ * are pooled; one that fails mid-command is closed rather than returned to the pool. At most
+ * {@code poolSize} commands are in flight at once, so a burst waits for a free connection (up to
+ * the timeout) instead of opening a socket per caller.
+ */
+final class RespClient implements AutoCloseable {
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int timeoutMillis;
+    private final BlockingQueue<Connection> idle;
+    // one permit per connection in use, idle or not
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    RespClient(String host, int port, String password, int timeoutMillis, int poolSize) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.timeoutMillis = timeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        this.permits = new Semaphore(poolSize, true);
+    }
+
+    Object call(String... command) throws IOException {
+        return pipeline(List.<String[]>of(command)).get(0);
+    }
+
+    /** Sends all commands before reading any reply, one round trip instead of one per command. */
+    List<Object> pipeline(List<String[]> commands) throws IOException {
+        acquire();
+        List<Object> replies = new ArrayList<>(commands.size());
+        try {
+            Connection c = idle.poll();
+            if (c == null) {
+                c = open(timeoutMillis);
+            }
+            try {
+                for (String[] command : commands) {
+                    c.write(command);
+                }
+                c.flush();
+                for (int i = 0; i < commands.size(); i++) {
+                    replies.add(c.read());
+                }
+            } catch (IOException | RuntimeException e) {
+                c.close();
+                throw e;
+            }
+            if (closed || !idle.offer(c)) {
+                c.close();
+            }
+        } finally {
+            permits.release();
+        }
+        for (Object reply : replies) {
+            if (reply instanceof ErrorReply error) {
+                throw new IOException("Shared cache replied: " + error.message());
+            }
+        }
+        return replies;
+    }
+
+    /** A dedicated connection subscribed to {@code channel}; it blocks on reads until a message arrives. */
+    Connection subscribe(String channel) throws IOException {
+        Connection c = open(0);
+        try {
+            c.write("SUBSCRIBE", channel);
+            c.flush();
+            c.read(); // the subscribe confirmation
+            return c;
+        } catch (IOException | RuntimeException e) {
+            c.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection c;
+        while ((c = idle.poll()) != null) {
+            c.close();
+        }
+    }
+
+    private void acquire() throws IOException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("No shared cache connection free within " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a shared cache connection");
+        }
+    }
+
+    private Connection open(int readTimeoutMillis) throws IOException {
+        Connection c = new Connection(host, port, timeoutMillis, readTimeoutMillis);
+        if (password != null && !password.isEmpty()) {
+            c.write("AUTH", password);
+            c.flush();
+            if (c.read() instanceof ErrorReply error) {
+                c.close();
+                throw new IOException("Shared cache rejected AUTH: " + error.message());
+            }
+        }
+        return c;
+    }
+
+    static String text(Object reply) {
+        return reply instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : (String) reply;
+    }
+
+    record ErrorReply(String message) {
+    }
+
+    static final class Connection implements Closeable {
+        private static final byte[] CRLF = {'\r', '\n'};
+
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        Connection(String host, int port, int connectTimeoutMillis, int readTimeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+                socket.setSoTimeout(readTimeoutMillis);
+                this.in = new BufferedInputStream(socket.getInputStream());
+                this.out = new BufferedOutputStream(socket.getOutputStream());
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        void write(String... command) throws IOException {
+            writeHeader('*', command.length);
+            for (String arg : command) {
+                byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+                writeHeader('$', bytes.length);
+                out.write(bytes);
+                out.write(CRLF);
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        Object read() throws IOException {
+            int type = in.read();
+            if (type < 0) {
+                throw new EOFException("Shared cache closed the connection");
+            }
+            String line = readLine();
+            switch (type) {
+                case '+':
+                    return line;
+                case '-':
+                    return new ErrorReply(line);
+                case ':':
+                    return Long.parseLong(line);
+                case '$': {
+                    int length = Integer.parseInt(line);
+                    if (length < 0) return null;
+                    byte[] bytes = in.readNBytes(length);
+                    if (bytes.length < length || in.read() != '\r' || in.read() != '\n') {
+                        throw new EOFException("Truncated bulk reply");
+                    }
+                    return bytes;
+                }
+                case '*': {
+                    int size = Integer.parseInt(line);
+                    if (size < 0) return null;
+                    List<Object> items = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        items.add(read());
+                    }
+                    return items;
+                }
+                default:
+                    throw new IOException("Unexpected reply type '" + (char) type + "'");
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+
+        private void writeHeader(char type, int n) throws IOException {
+            out.write(type);
+            out.write(Integer.toString(n).getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\r') {
+                if (b < 0) throw new EOFException("Shared cache closed the connection");
+                line.append((char) b);
+            }
+            if (in.read() != '\n') {
+                throw new IOException("Malformed reply line");
+            }
+            return line.toString();
+        }
+    }
+}
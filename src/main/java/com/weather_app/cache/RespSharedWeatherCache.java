@@ -0,0 +1,246 @@
+package com.weather_app.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherSharedCacheProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link SharedWeatherCache} on a Redis-compatible server. Records are stored as JSON with the
+ * near cache's retention, refresh locks are {@code SET NX PX} keys released with a
+ * compare-and-delete script, and every stored record is announced on a pub/sub channel that a
+ * background thread listens to, so other instances drop their near-cache copy.
+ */
+public class RespSharedWeatherCache implements SharedWeatherCache {
+    private static final Logger log = LoggerFactory.getLogger(RespSharedWeatherCache.class);
+
+    // deletes the lock only if we still own it, an expired lease may have passed to another instance
+    static final String UNLOCK_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+    private static final RefreshLock UNSHARED = () -> { };
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private final RespClient client;
+    private final ObjectMapper mapper;
+    private final String recordPrefix;
+    private final String lockPrefix;
+    private final String channel;
+    private final String retentionMillis;
+    private final String leaseMillis;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong lockTokens = new AtomicLong();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread subscriber;
+    private volatile RespClient.Connection subscription;
+    private volatile boolean closed;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final Counter locksAcquired;
+    private final Counter locksBusy;
+    private final Counter invalidations;
+
+    public RespSharedWeatherCache(WeatherSharedCacheProperties props, WeatherCacheProperties cacheProps,
+                                  ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.client = new RespClient(props.getHost(), props.getPort(), props.getPassword(),
+                (int) props.getTimeout().toMillis(), props.getPoolSize());
+        this.mapper = mapper;
+        this.recordPrefix = props.getKeyPrefix() + "record:";
+        this.lockPrefix = props.getKeyPrefix() + "lock:";
+        this.channel = props.getKeyPrefix() + "invalidations";
+        this.retentionMillis = Long.toString(WeatherRecordCache.retentionOf(cacheProps).toMillis());
+        this.leaseMillis = Long.toString(props.getLockLease().toMillis());
+
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.errors = Counter.builder("weather.shared_cache.errors")
+                .description("Shared cache calls that failed and were treated as a miss")
+                .register(meterRegistry);
+        this.locksAcquired = lockCounter(meterRegistry, "acquired");
+        this.locksBusy = lockCounter(meterRegistry, "busy");
+        this.invalidations = Counter.builder("weather.shared_cache.invalidations")
+                .description("Near-cache entries dropped because another instance stored a newer record")
+                .register(meterRegistry);
+
+        this.subscriber = new Thread(this::listen, "weather-shared-cache-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @Override
+    public Optional<WeatherRecord> get(String locationKey) {
+        try {
+            return Optional.ofNullable(decode(client.call("GET", recordPrefix + locationKey)));
+        } catch (IOException e) {
+            failed("GET", e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Map<String, WeatherRecord> getAll(Collection<String> locationKeys) {
+        if (locationKeys.isEmpty()) return Map.of();
+        List<String> keys = new ArrayList<>(locationKeys);
+        String[] command = new String[keys.size() + 1];
+        command[0] = "MGET";
+        for (int i = 0; i < keys.size(); i++) {
+            command[i + 1] = recordPrefix + keys.get(i);
+        }
+        try {
+            List<?> replies = (List<?>) client.call(command);
+            Map<String, WeatherRecord> found = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                WeatherRecord rec = decode(replies.get(i));
+                if (rec != null) {
+                    found.put(keys.get(i), rec);
+                }
+            }
+            return found;
+        } catch (IOException e) {
+            failed("MGET", e);
+            return Map.of();
+        }
+    }
+
+    @Override
+    public void put(WeatherRecord rec) {
+        try {
+            String json = mapper.writeValueAsString(rec);
+            client.pipeline(List.of(
+                    new String[]{"SET", recordPrefix + rec.getLocationKey(), json, "PX", retentionMillis},
+                    new String[]{"PUBLISH", channel, instanceId + ' ' + rec.getLocationKey()}));
+        } catch (IOException e) {
+            failed("SET", e);
+        }
+    }
+
+    @Override
+    public Optional<RefreshLock> tryLock(String locationKey) {
+        String lockKey = lockPrefix + locationKey;
+        String token = instanceId + ':' + lockTokens.incrementAndGet();
+        try {
+            if (client.call("SET", lockKey, token, "NX", "PX", leaseMillis) == null) {
+                locksBusy.increment();
+                return Optional.empty();
+            }
+        } catch (IOException e) {
+            // without the shared tier every instance refreshes for itself
+            failed("SET NX", e);
+            return Optional.of(UNSHARED);
+        }
+        locksAcquired.increment();
+        return Optional.of(() -> {
+            try {
+                client.call("EVAL", UNLOCK_SCRIPT, "1", lockKey, token);
+            } catch (IOException e) {
+                // the lease runs out on its own
+                failed("EVAL", e);
+            }
+        });
+    }
+
+    @Override
+    public void onInvalidation(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        RespClient.Connection c = subscription;
+        if (c != null) {
+            c.close();
+        }
+        subscriber.interrupt();
+        client.close();
+    }
+
+    private WeatherRecord decode(Object reply) throws IOException {
+        if (!(reply instanceof byte[] json)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        WeatherRecord rec = mapper.readValue(json, WeatherRecord.class);
+        // the id belongs to the instance that stored it
+        rec.setId(null);
+        return rec;
+    }
+
+    private void listen() {
+        long backoff = 100;
+        while (!closed) {
+            try (RespClient.Connection c = client.subscribe(channel)) {
+                subscription = c;
+                backoff = 100;
+                while (!closed) {
+                    if (c.read() instanceof List<?> message && message.size() == 3
+                            && "message".equals(RespClient.text(message.get(0)))) {
+                        dispatch(RespClient.text(message.get(2)));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (closed) return;
+                failed("SUBSCRIBE", e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        int space = payload.indexOf(' ');
+        if (space < 0 || payload.substring(0, space).equals(instanceId)) {
+            return; // malformed, or our own write
+        }
+        String locationKey = payload.substring(space + 1);
+        invalidations.increment();
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(locationKey);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed for {}", locationKey, e);
+            }
+        }
+    }
+
+    private void failed(String command, Exception e) {
+        errors.increment();
+        log.debug("Shared cache {} failed: {}", command, e.toString());
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("weather.shared_cache.requests")
+                .description("Shared cache reads by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Counter lockCounter(MeterRegistry registry, String result) {
+        return Counter.builder("weather.shared_cache.locks")
+                .description("Cross-instance refresh lock attempts")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,42 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Records shared by all instances of the app, consulted after the near cache and before the
+ * database. Implementations fail open: when the shared tier is unreachable reads miss, locks
+ * are granted and writes are dropped, so an instance degrades to working on its own.
+ */
+public interface SharedWeatherCache extends AutoCloseable {
+
+    Optional<WeatherRecord> get(String locationKey);
+
+    /** The records found for {@code locationKeys}, keyed by location key; missing keys are left out. */
+    Map<String, WeatherRecord> getAll(Collection<String> locationKeys);
+
+    /** Stores a refreshed record and tells the other instances to drop their near-cache copy. */
+    void put(WeatherRecord rec);
+
+    /**
+     * Takes the cross-instance refresh lock for a location, empty while another instance holds it.
+     * The lock expires on its own after the configured lease if its holder goes away.
+     */
+    Optional<RefreshLock> tryLock(String locationKey);
+
+    /** Registers a listener called with the location key whenever another instance stores a record. */
+    void onInvalidation(Consumer<String> listener);
+
+    @Override
+    default void close() {
+    }
+
+    interface RefreshLock extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-location mutual exclusion in fixed memory: keys are hashed onto a power-of-two number of
+ * locks, so two saves of the same location never interleave while unrelated locations rarely
+ * share a lock. Several keys are locked in stripe order, so callers cannot deadlock each other.
+ */
+@Component
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Autowired
+    public StripedLocks(WeatherCacheProperties props) {
+        this(props.getLockStripes());
+    }
+
+    public <T> T withLock(String key, Supplier<T> action) {
+        ReentrantLock lock = stripes[indexOf(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withLocks(Collection<String> keys, Supplier<T> action) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(indexOf(key));
+        }
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int index : indexes) {
+                if (locked-- == 0) break;
+                stripes[index].unlock();
+            }
+        }
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    int indexOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
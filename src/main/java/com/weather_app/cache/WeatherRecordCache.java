@@ -0,0 +1,161 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.model.WeatherRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * On-heap near cache in front of the repository, keyed by the normalized location key.
+ * Entries are evicted least-recently-used once {@code maxSize} is reached and dropped
+ * on read when older than the retention, so a hit never needs a transaction or a DB round-trip.
+ * Retention is the TTL, plus the max staleness when stale-while-revalidate is on; deciding
+ * whether a retained record is still fresh is up to the caller. Records with coordinates are
+ * also kept in a {@link GeoIndex}, so a coordinate lookup can be answered by a nearby record.
+ */
+@Component
+public class WeatherRecordCache {
+    private final int maxSize;
+    private final Duration retention;
+    private final Clock clock;
+    private final LinkedHashMap<String, WeatherRecord> entries;
+    private final GeoIndex geoIndex = new GeoIndex();
+    // a lock rather than synchronized so virtual threads are not pinned to their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public WeatherRecordCache(int maxSize, Duration retention, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("weather.cache.max-size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.retention = retention;
+        this.clock = clock;
+        // access order = true turns the map into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WeatherRecord> eldest) {
+                if (size() > WeatherRecordCache.this.maxSize) {
+                    evictions.increment();
+                    geoIndex.remove(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Autowired
+    public WeatherRecordCache(WeatherCacheProperties props) {
+        this(props.getMaxSize(), retentionOf(props), Clock.systemUTC());
+    }
+
+    static Duration retentionOf(WeatherCacheProperties props) {
+        Duration ttl = Duration.ofMinutes(props.getTtlMinutes());
+        return props.isStaleWhileRevalidate() ? ttl.plusMinutes(props.getMaxStaleMinutes()) : ttl;
+    }
+
+    public Optional<WeatherRecord> get(String locationKey) {
+        return lookup(locationKey, true);
+    }
+
+    /** Same as {@link #get} but does not count towards hit/miss statistics. */
+    public Optional<WeatherRecord> peek(String locationKey) {
+        return lookup(locationKey, false);
+    }
+
+    private Optional<WeatherRecord> lookup(String locationKey, boolean recordStats) {
+        WeatherRecord rec;
+        lock.lock();
+        try {
+            rec = entries.get(locationKey);
+            if (rec != null && isExpired(rec)) {
+                entries.remove(locationKey);
+                geoIndex.remove(rec);
+                expirations.increment();
+                rec = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (recordStats) {
+            (rec == null ? misses : hits).increment();
+        }
+        return Optional.ofNullable(rec);
+    }
+
+    public void put(WeatherRecord rec) {
+        if (rec == null || rec.getLocationKey() == null) return;
+        lock.lock();
+        try {
+            WeatherRecord previous = entries.put(rec.getLocationKey(), rec);
+            if (previous != null) {
+                geoIndex.remove(previous);
+            }
+            geoIndex.add(rec);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String locationKey) {
+        lock.lock();
+        try {
+            WeatherRecord removed = entries.remove(locationKey);
+            if (removed != null) {
+                geoIndex.remove(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The retained record closest to the coordinates within {@code radiusKm} that {@code usable}
+     * accepts (typically: fresh enough to serve). Does not count towards hit/miss statistics.
+     */
+    public Optional<WeatherRecord> nearest(double latitude, double longitude, double radiusKm,
+                                           Predicate<WeatherRecord> usable) {
+        lock.lock();
+        try {
+            return geoIndex.nearest(latitude, longitude, radiusKm, rec -> !isExpired(rec) && usable.test(rec));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private boolean isExpired(WeatherRecord r) {
+        if (r.getUpdatedAt() == null) return true;
+        return r.getUpdatedAt().plus(retention).isBefore(LocalDateTime.now(clock));
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, long expirations) {
+    }
+}
@@ -2,12 +2,28 @@ package com.weather_app.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+
 @Configuration
 public class HttpClientConfig {
+    // One JDK client for both the blocking and the async path: it keeps a pool of
+    // keep-alive HTTP/1.1 connections and multiplexes HTTP/2 where the server supports it.
+    @Bean
+    public HttpClient weatherHttpClient(WeatherApiProperties props) {
+        return HttpClient.newBuilder()
+                .version(props.getHttpVersion())
+                .connectTimeout(props.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpClient weatherHttpClient, WeatherApiProperties props) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(weatherHttpClient);
+        factory.setReadTimeout(props.getReadTimeout());
+        return new RestTemplate(factory);
     }
 }
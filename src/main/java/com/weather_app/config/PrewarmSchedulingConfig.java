@@ -0,0 +1,11 @@
+package com.weather_app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "weather.prewarm", name = "enabled", havingValue = "true")
+public class PrewarmSchedulingConfig {
+}
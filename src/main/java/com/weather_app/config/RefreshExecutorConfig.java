@@ -0,0 +1,83 @@
+package com.weather_app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for background refreshes, batch fan-out and writing stream events. With {@code spring.threads.virtual.enabled}
+ * (Java 21+) they switch to virtual threads, bounded by the same limits as the platform pools.
+ */
+@Configuration
+public class RefreshExecutorConfig {
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor weatherRefreshExecutor(WeatherCacheProperties props) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("weather-refresh-");
+        executor.setCorePoolSize(props.getRefreshThreads());
+        executor.setMaxPoolSize(props.getRefreshThreads());
+        executor.setQueueCapacity(props.getRefreshQueueCapacity());
+        // a rejected background refresh is simply retried by the next request
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor weatherFanOutExecutor(WeatherBatchProperties props) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("weather-fanout-");
+        executor.setCorePoolSize(props.getMaxConcurrency());
+        executor.setMaxPoolSize(props.getMaxConcurrency());
+        executor.setQueueCapacity(props.getQueueCapacity());
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor weatherStreamExecutor(WeatherStreamProperties props) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("weather-stream-");
+        executor.setCorePoolSize(props.getSenderThreads());
+        executor.setMaxPoolSize(props.getSenderThreads());
+        // at most one queued drain per subscriber
+        executor.setQueueCapacity(props.getMaxSubscribers());
+        return executor;
+    }
+
+    @Bean(name = "weatherRefreshExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualWeatherRefreshExecutor(WeatherCacheProperties props) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("weather-refresh-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(props.getRefreshThreads());
+        // never park the request thread that scheduled the refresh
+        executor.setRejectTasksWhenLimitReached(true);
+        executor.setTaskTerminationTimeout(5_000);
+        return executor;
+    }
+
+    @Bean(name = "weatherFanOutExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualWeatherFanOutExecutor(WeatherBatchProperties props) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("weather-fanout-");
+        executor.setVirtualThreads(true);
+        // over the limit the (virtual) batch request thread waits, which is the backpressure we want
+        executor.setConcurrencyLimit(props.getMaxConcurrency());
+        return executor;
+    }
+
+    @Bean(name = "weatherStreamExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualWeatherStreamExecutor(WeatherStreamProperties props) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("weather-stream-");
+        executor.setVirtualThreads(true);
+        // a slow client only parks its own virtual thread, no limit below one drain per subscriber
+        executor.setConcurrencyLimit(props.getMaxSubscribers());
+        return executor;
+    }
+}
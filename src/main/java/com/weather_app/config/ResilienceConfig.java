@@ -0,0 +1,59 @@
+package com.weather_app.config;
+
+import com.weather_app.resilience.Bulkhead;
+import com.weather_app.resilience.CircuitBreaker;
+import com.weather_app.resilience.ResilientWeatherProvider;
+import com.weather_app.resilience.TokenBucketRateLimiter;
+import com.weather_app.service.AsyncWeatherApiClient;
+import com.weather_app.service.WeatherApiClient;
+import com.weather_app.service.WeatherProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Clock;
+
+/**
+ * Picks the provider client ({@code weather.api.client}) and, unless {@code weather.resilience.enabled}
+ * is off, wraps it in the circuit breaker, bulkhead and rate limiter.
+ */
+@Configuration
+public class ResilienceConfig {
+    @Bean
+    public CircuitBreaker weatherApiCircuitBreaker(WeatherResilienceProperties props) {
+        WeatherResilienceProperties.CircuitBreaker cb = props.getCircuitBreaker();
+        return new CircuitBreaker("weather-api", cb.getFailureRateThreshold(), cb.getSlidingWindowSize(),
+                cb.getMinimumCalls(), cb.getOpenDuration(), cb.getHalfOpenProbes(), Clock.systemUTC());
+    }
+
+    @Bean
+    public Bulkhead weatherApiBulkhead(WeatherResilienceProperties props) {
+        return new Bulkhead(props.getBulkhead().getMaxConcurrentCalls());
+    }
+
+    @Bean
+    public TokenBucketRateLimiter weatherApiRateLimiter(WeatherResilienceProperties props) {
+        WeatherResilienceProperties.RateLimit rl = props.getRateLimit();
+        return new TokenBucketRateLimiter(rl.getCallsPerMinute(), rl.getBurst(), rl.getMinCallsPerMinute(),
+                Clock.systemUTC());
+    }
+
+    @Bean
+    @Primary
+    public WeatherProvider weatherProvider(WeatherApiClient syncClient,
+                                           ObjectProvider<AsyncWeatherApiClient> asyncClient,
+                                           WeatherResilienceProperties props,
+                                           CircuitBreaker circuitBreaker,
+                                           Bulkhead bulkhead,
+                                           TokenBucketRateLimiter rateLimiter) {
+        WeatherProvider client = asyncClient.getIfAvailable();
+        if (client == null) {
+            client = syncClient;
+        }
+        if (!props.isEnabled()) {
+            return client;
+        }
+        return new ResilientWeatherProvider(client, circuitBreaker, bulkhead, rateLimiter);
+    }
+}
@@ -0,0 +1,76 @@
+package com.weather_app.config;
+
+import com.weather_app.resilience.Bulkhead;
+import com.weather_app.resilience.CircuitBreaker;
+import com.weather_app.resilience.CircuitBreaker.State;
+import com.weather_app.resilience.TokenBucketRateLimiter;
+import com.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+public class ResilienceMetrics implements MeterBinder {
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final WeatherService weatherService;
+
+    public ResilienceMetrics(CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                             TokenBucketRateLimiter rateLimiter, WeatherService weatherService) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.rateLimiter = rateLimiter;
+        this.weatherService = weatherService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (State state : State.values()) {
+            // 1 for the current state, 0 for the others
+            Gauge.builder("weather.api.circuit.state", circuitBreaker, cb -> cb.state() == state ? 1 : 0)
+                    .tag("name", circuitBreaker.name())
+                    .tag("state", tagValue(state))
+                    .register(registry);
+        }
+        transition(registry, State.CLOSED, State.OPEN);
+        transition(registry, State.OPEN, State.HALF_OPEN);
+        transition(registry, State.HALF_OPEN, State.OPEN);
+        transition(registry, State.HALF_OPEN, State.CLOSED);
+
+        FunctionCounter.builder("weather.api.calls.rejected", circuitBreaker, CircuitBreaker::notPermittedCount)
+                .tag("reason", "circuit_open")
+                .register(registry);
+        FunctionCounter.builder("weather.api.calls.rejected", bulkhead, Bulkhead::rejectedCount)
+                .tag("reason", "bulkhead_full")
+                .register(registry);
+        FunctionCounter.builder("weather.api.calls.rejected", rateLimiter, TokenBucketRateLimiter::rejectedCount)
+                .tag("reason", "rate_limited")
+                .register(registry);
+        Gauge.builder("weather.api.bulkhead.active", bulkhead, Bulkhead::activeCalls)
+                .register(registry);
+        Gauge.builder("weather.api.rate_limit.calls_per_minute", rateLimiter, TokenBucketRateLimiter::callsPerMinute)
+                .register(registry);
+        FunctionCounter.builder("weather.api.throttled", rateLimiter, TokenBucketRateLimiter::throttledCount)
+                .register(registry);
+
+        FunctionCounter.builder("weather.api.fallbacks", weatherService, WeatherService::fallbackCount)
+                .register(registry);
+    }
+
+    private void transition(MeterRegistry registry, State from, State to) {
+        FunctionCounter.builder("weather.api.circuit.transitions", circuitBreaker, cb -> cb.transitionCount(from, to))
+                .tag("name", circuitBreaker.name())
+                .tag("from", tagValue(from))
+                .tag("to", tagValue(to))
+                .register(registry);
+    }
+
+    private static String tagValue(State state) {
+        return state.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package com.weather_app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.cache.NoSharedWeatherCache;
+import com.weather_app.cache.RespSharedWeatherCache;
+import com.weather_app.cache.SharedWeatherCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Picks the tier shared between instances ({@code weather.shared-cache.type}). */
+@Configuration
+public class SharedCacheConfig {
+    @Bean
+    public SharedWeatherCache sharedWeatherCache(WeatherSharedCacheProperties props,
+                                                 WeatherCacheProperties cacheProps,
+                                                 ObjectMapper objectMapper,
+                                                 MeterRegistry meterRegistry) {
+        if (props.getType() == WeatherSharedCacheProperties.Type.REDIS) {
+            return new RespSharedWeatherCache(props, cacheProps, objectMapper, meterRegistry);
+        }
+        return new NoSharedWeatherCache();
+    }
+}
@@ -5,6 +5,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "weather.api")
 @RequiredArgsConstructor
@@ -12,5 +15,20 @@ import org.springframework.context.annotation.Configuration;
 public class WeatherApiProperties {
     private String key;
     private String url;
+    // the bulk endpoint taking comma-separated city IDs; defaults to url with /weather replaced by /group
+    private String groupUrl;
+    // IDs per /group call, OpenWeatherMap accepts at most 20; 0 turns bulk refreshes off
+    private int groupSize = 20;
     private String units = "metric";
+    // sync = RestTemplate based WeatherApiClient, async = non-blocking AsyncWeatherApiClient
+    private String client = "sync";
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(5);
+    // HTTP_2 falls back to HTTP/1.1 when the server does not negotiate it
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    public String resolveGroupUrl() {
+        if (groupUrl != null && !groupUrl.isBlank()) return groupUrl;
+        return url.endsWith("/weather") ? url.substring(0, url.length() - "/weather".length()) + "/group" : null;
+    }
 }
@@ -0,0 +1,18 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.batch")
+@RequiredArgsConstructor
+@Data
+public class WeatherBatchProperties {
+    // locations accepted in one POST /weather/batch call
+    private int maxItems = 500;
+    // upstream calls running in parallel for batch misses, shared by all batch requests
+    private int maxConcurrency = 16;
+    private int queueCapacity = 10_000;
+}
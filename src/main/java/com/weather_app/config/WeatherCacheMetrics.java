@@ -0,0 +1,47 @@
+package com.weather_app.config;
+
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.WeatherRecordCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WeatherCacheMetrics implements MeterBinder {
+    private final WeatherRecordCache cache;
+    private final RefreshCoalescer coalescer;
+
+    public WeatherCacheMetrics(WeatherRecordCache cache, RefreshCoalescer coalescer) {
+        this.cache = cache;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("weather.cache.near.requests", cache, c -> c.stats().hits())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.near.requests", cache, c -> c.stats().misses())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.near.evictions", cache, c -> c.stats().evictions())
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("weather.cache.near.evictions", cache, c -> c.stats().expirations())
+                .tag("cause", "expired")
+                .register(registry);
+        Gauge.builder("weather.cache.near.size", cache, WeatherRecordCache::size)
+                .register(registry);
+
+        FunctionCounter.builder("weather.refresh.calls", coalescer, c -> c.stats().executed())
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("weather.refresh.calls", coalescer, c -> c.stats().coalesced())
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder("weather.refresh.in_flight", coalescer, RefreshCoalescer::inFlightCount)
+                .register(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.cache")
+@RequiredArgsConstructor
+@Data
+public class WeatherCacheProperties {
+    private long ttlMinutes = 15;
+    // upper bound for the in-process near cache, least recently used entries go first
+    private int maxSize = 10_000;
+    // serve an expired record right away and refresh it in the background
+    private boolean staleWhileRevalidate = false;
+    // past this age stale-while-revalidate stops and callers block on the refresh again
+    private long maxStaleMinutes = 60;
+    // fraction of the TTL after which a hit also schedules a background refresh, 0 disables
+    private double refreshAheadRatio = 0;
+    // load still-servable records from the database into the near cache on startup
+    private boolean warmOnStartup = true;
+    // per-key locks around saves are striped over this many locks (rounded up to a power of two)
+    private int lockStripes = 64;
+    // a coordinate lookup is answered by a fresh cached observation this close, 0 only serves exact matches
+    private double geoRadiusKm = 5;
+    // spellings resolved to one city key, learned from provider answers, seeded from city-aliases
+    private int cityAliasMaxSize = 50_000;
+    // alias -> city, e.g. kiev: kyiv; keys with commas or non-ASCII need brackets: "[kyiv,ua]": kyiv
+    private Map<String, String> cityAliases = new LinkedHashMap<>();
+    private int refreshThreads = 4;
+    private int refreshQueueCapacity = 1_000;
+}
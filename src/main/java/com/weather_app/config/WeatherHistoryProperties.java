@@ -0,0 +1,21 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.history")
+@RequiredArgsConstructor
+@Data
+public class WeatherHistoryProperties {
+    private boolean enabled = true;
+    private Duration rawRetention = Duration.ofHours(24);
+    private Duration hourlyRetention = Duration.ofDays(7);
+    private Duration dailyRetention = Duration.ofDays(180);
+    // beyond this the least recently observed location is dropped, bounds memory at roughly 25 KB per location
+    private int maxLocations = 2_000;
+}
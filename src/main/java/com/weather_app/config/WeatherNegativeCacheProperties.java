@@ -0,0 +1,24 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.negative-cache")
+@RequiredArgsConstructor
+@Data
+public class WeatherNegativeCacheProperties {
+    private boolean enabled = true;
+    // how long a location the provider did not find is answered with 404 without asking again
+    private Duration ttl = Duration.ofMinutes(10);
+    // the TTL is split into this many generations; an entry expires with its generation
+    private int buckets = 4;
+    // not-found locations per TTL the filter is sized for; beyond it false positives grow
+    private int expectedEntries = 100_000;
+    // chance that a location never seen before is wrongly answered with 404, at expected-entries
+    private double falsePositiveRate = 0.0001;
+}
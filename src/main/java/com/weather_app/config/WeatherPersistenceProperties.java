@@ -0,0 +1,28 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.persistence")
+@RequiredArgsConstructor
+@Data
+public class WeatherPersistenceProperties {
+    // H2 file used by the durable profile, without the .mv.db suffix
+    private String path = "./data/weatherdb";
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class WriteBehind {
+        // refreshed records go to the near cache at once and reach the database in background batches
+        private boolean enabled = false;
+        private int batchSize = 100;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        // past this many unwritten records the refreshing thread flushes itself
+        private int maxPending = 10_000;
+    }
+}
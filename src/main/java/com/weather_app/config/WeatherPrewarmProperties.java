@@ -0,0 +1,25 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.prewarm")
+@RequiredArgsConstructor
+@Data
+public class WeatherPrewarmProperties {
+    private boolean enabled = false;
+    // how many of the most requested locations are kept fresh
+    private int topN = 200;
+    private Duration interval = Duration.ofMinutes(1);
+    // refresh a hot record once it is this close to its TTL
+    private Duration lead = Duration.ofMinutes(2);
+    // request counts are halved after this long, so yesterday's hot spots cool down
+    private Duration halfLife = Duration.ofMinutes(10);
+    // upstream calls pre-warming may spend, on top of and counted against weather.resilience.rate-limit
+    private int callsPerMinute = 20;
+}
@@ -0,0 +1,46 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.resilience")
+@RequiredArgsConstructor
+@Data
+public class WeatherResilienceProperties {
+    // false calls the provider directly, without breaker, bulkhead or rate limiter
+    private boolean enabled = true;
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Bulkhead bulkhead = new Bulkhead();
+    private RateLimit rateLimit = new RateLimit();
+
+    @Data
+    public static class CircuitBreaker {
+        // share of failed calls in the sliding window that opens the circuit
+        private double failureRateThreshold = 0.5;
+        private int slidingWindowSize = 20;
+        // no decision is made before this many calls are in the window
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        // trial calls let through while half-open, all must succeed to close again
+        private int halfOpenProbes = 3;
+    }
+
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 64;
+    }
+
+    @Data
+    public static class RateLimit {
+        // the provider plan's quota, the free OpenWeatherMap plan allows 60 calls per minute
+        private int callsPerMinute = 60;
+        private int burst = 10;
+        // floor the rate backs off to after the provider answers 429
+        private int minCallsPerMinute = 6;
+    }
+}
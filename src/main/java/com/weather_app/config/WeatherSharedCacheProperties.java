@@ -0,0 +1,32 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.shared-cache")
+@RequiredArgsConstructor
+@Data
+public class WeatherSharedCacheProperties {
+    public enum Type { NONE, REDIS }
+
+    // NONE keeps every instance on its own near cache and database
+    private Type type = Type.NONE;
+    private String host = "localhost";
+    private int port = 6379;
+    private String password;
+    // prefix for record, lock and channel names, lets several deployments share one server
+    private String keyPrefix = "weather:";
+    // connect and read timeout; a slow shared tier is treated like a miss
+    private Duration timeout = Duration.ofMillis(250);
+    private int poolSize = 16;
+    // how long a refresh lock is held at most, must exceed the provider's read timeout
+    private Duration lockLease = Duration.ofSeconds(10);
+    // how long a node waits for another node's refresh before calling the provider itself
+    private Duration lockWait = Duration.ofSeconds(2);
+    private Duration pollInterval = Duration.ofMillis(50);
+}
@@ -0,0 +1,26 @@
+package com.weather_app.config;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "weather.stream")
+@RequiredArgsConstructor
+@Data
+public class WeatherStreamProperties {
+    private boolean enabled = true;
+    // cities + zips accepted in one subscription
+    private int maxLocations = 50;
+    private int maxSubscribers = 10_000;
+    // updates buffered for one subscriber; a subscriber that falls this far behind is disconnected
+    private int queueCapacity = 64;
+    // how often the subscribed locations are looked up, stale ones are refreshed once for all subscribers
+    private Duration refreshInterval = Duration.ofMinutes(1);
+    private Duration timeout = Duration.ofMinutes(30);
+    // threads writing events to subscribers
+    private int senderThreads = 8;
+}
@@ -0,0 +1,46 @@
+package com.weather_app.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for {@code GET /weather} by lookup type and outcome, all registered up front so a request
+ * only picks one instead of building and looking up its meter.
+ */
+final class RequestMetrics {
+    enum Type { CITY, ZIP, COORD }
+
+    enum Outcome { SUCCESS, NOT_FOUND, UNAVAILABLE, ERROR }
+
+    private final io.micrometer.core.instrument.Clock clock;
+    private final Map<Type, Map<Outcome, Timer>> timers = new EnumMap<>(Type.class);
+
+    RequestMetrics(MeterRegistry registry) {
+        this.clock = registry.config().clock();
+        for (Type type : Type.values()) {
+            Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder("weather.requests")
+                        .description("GET /weather by lookup type and outcome")
+                        .tag("type", type.name().toLowerCase(Locale.ROOT))
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            timers.put(type, byOutcome);
+        }
+    }
+
+    long start() {
+        return clock.monotonicTime();
+    }
+
+    void record(Type type, Outcome outcome, long start) {
+        timers.get(type).get(outcome).record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,36 +1,179 @@
 package com.weather_app.controller;
 
+import com.weather_app.config.WeatherBatchProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.UpstreamUnavailableException;
+import com.weather_app.history.HistoryResolution;
 import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.BatchWeatherItem;
+import com.weather_app.model.dto.BatchWeatherRequest;
+import com.weather_app.model.dto.WeatherHistoryPoint;
+import com.weather_app.model.dto.WeatherView;
 import com.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
 @RestController
 @RequestMapping("/weather")
 public class WeatherController {
+    static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
 
     private final WeatherService service;
+    private final WeatherBatchProperties batchProps;
+    private final RequestMetrics metrics;
 
-    public WeatherController(WeatherService service) {
+    public WeatherController(WeatherService service, WeatherBatchProperties batchProps, MeterRegistry meterRegistry) {
         this.service = service;
+        this.batchProps = batchProps;
+        this.metrics = new RequestMetrics(meterRegistry);
     }
 
-    @GetMapping
-    public ResponseEntity<WeatherRecord> getWeather(
+    /**
+     * By {@code city}, by {@code zip}, or by {@code lat} and {@code lon} together; exactly one of them.
+     * The body is the record's {@link WeatherView}, as JSON or, when the client prefers it, CBOR.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, "application/cbor"})
+    public ResponseEntity<byte[]> getWeather(
             @RequestParam(required = false) String city,
-            @RequestParam(required = false) String zip) {
+            @RequestParam(required = false) String zip,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        boolean coordinates = lat != null || lon != null;
+        int given = (city != null ? 1 : 0) + (zip != null ? 1 : 0) + (coordinates ? 1 : 0);
+        if (given != 1 || (coordinates && !validCoordinates(lat, lon))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        RequestMetrics.Type type = city != null ? RequestMetrics.Type.CITY
+                : zip != null ? RequestMetrics.Type.ZIP
+                : RequestMetrics.Type.COORD;
+        long start = metrics.start();
+        RequestMetrics.Outcome outcome = RequestMetrics.Outcome.ERROR;
+        try {
+            WeatherRecord rec = city != null ? service.getByCity(city)
+                    : zip != null ? service.getByZip(zip)
+                    : service.getByCoordinates(lat, lon);
+            outcome = RequestMetrics.Outcome.SUCCESS;
+            return withCacheHeaders(rec, prefersCbor(accept));
+        } catch (LocationNotFoundException e) {
+            outcome = RequestMetrics.Outcome.NOT_FOUND;
+            throw e;
+        } catch (UpstreamUnavailableException e) {
+            outcome = RequestMetrics.Outcome.UNAVAILABLE;
+            throw e;
+        } finally {
+            metrics.record(type, outcome, start);
+        }
+    }
+
+    private static boolean validCoordinates(Double lat, Double lon) {
+        return lat != null && lon != null && lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    /**
+     * Whether CBOR ranks above JSON in {@code Accept}: highest quality first, the client's order
+     * between equals, and wildcards count as JSON. The mapping's {@code produces} has already
+     * turned away requests that accept neither.
+     */
+    static boolean prefersCbor(String accept) {
+        if (accept == null) return false;
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) continue;
+            if (type.includes(MediaType.APPLICATION_JSON)) return false;
+            if (type.includes(APPLICATION_CBOR)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * A record only changes through a refresh, which moves {@code updatedAt}, so the key and
+     * {@code updatedAt} identify the representation. For a matching {@code If-None-Match} or
+     * {@code If-Modified-Since} Spring answers 304 from these headers without writing the body.
+     */
+    private ResponseEntity<byte[]> withCacheHeaders(WeatherRecord rec, boolean cbor) {
+        WeatherView view = rec.view();
+        byte[] body = cbor ? view.cbor() : view.json();
+        MediaType contentType = cbor ? APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        if (rec.getUpdatedAt() == null) {
+            return ResponseEntity.ok().contentType(contentType).body(body);
+        }
+        Instant updatedAt = rec.getUpdatedAt().toInstant(ZoneOffset.UTC);
+        // weak: the same record may go out in other encodings (compression, field order)
+        String etag = "W/\"" + Integer.toHexString(rec.getLocationKey().hashCode())
+                + "-" + Long.toHexString(updatedAt.toEpochMilli()) + "\"";
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(updatedAt)
+                .cacheControl(CacheControl.maxAge(service.remainingTtl(rec)).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(contentType)
+                .body(body);
+    }
 
-        if ((city == null && zip == null) || (city != null && zip != null)) {
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchWeatherItem>> getWeatherBatch(@RequestBody BatchWeatherRequest request) {
+        int cities = request.getCities() == null ? 0 : request.getCities().size();
+        int zips = request.getZips() == null ? 0 : request.getZips().size();
+        if (cities + zips == 0 || cities + zips > batchProps.getMaxItems()) {
             return ResponseEntity.badRequest().build();
         }
 
-        WeatherRecord rec = (city != null)
-                ? service.getByCity(city)
-                : service.getByZip(zip);
+        return ResponseEntity.ok(service.getBatch(request.getCities(), request.getZips()));
+    }
+
+    /**
+     * Min/max/avg per hour (default), per day, or the raw observations of a location in
+     * {@code [from, to)}; times are UTC.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<List<WeatherHistoryPoint>> getHistory(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String zip,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "hourly") String resolution) {
+
+        if ((city == null && zip == null) || (city != null && zip != null) || !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        HistoryResolution res;
+        try {
+            res = HistoryResolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return ResponseEntity.ok(rec);
+        return ResponseEntity.ok(city != null
+                ? service.getHistoryByCity(city, from, to, res)
+                : service.getHistoryByZip(zip, from, to, res));
     }
 }
@@ -0,0 +1,78 @@
+package com.weather_app.controller;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.model.dto.BatchWeatherItem;
+import com.weather_app.service.Location;
+import com.weather_app.service.WeatherService;
+import com.weather_app.stream.WeatherUpdateHub;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/weather")
+@ConditionalOnProperty(prefix = "weather.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherStreamController {
+
+    private final WeatherService service;
+    private final WeatherUpdateHub hub;
+    private final WeatherStreamProperties props;
+
+    public WeatherStreamController(WeatherService service, WeatherUpdateHub hub, WeatherStreamProperties props) {
+        this.service = service;
+        this.hub = hub;
+        this.props = props;
+    }
+
+    /**
+     * Server-sent {@code weather} events for the given cities and zips: the current record of each
+     * first, then every refresh as it happens.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(
+            @RequestParam(required = false) List<String> city,
+            @RequestParam(required = false) List<String> zip) {
+
+        Set<Location> requested = new LinkedHashSet<>();
+        for (String c : city == null ? List.<String>of() : city) {
+            if (c.isBlank()) return ResponseEntity.badRequest().build();
+            requested.add(Location.ofCity(c));
+        }
+        for (String z : zip == null ? List.<String>of() : zip) {
+            if (z.isBlank()) return ResponseEntity.badRequest().build();
+            requested.add(Location.ofZip(z));
+        }
+        if (requested.isEmpty() || requested.size() > props.getMaxLocations()) {
+            return ResponseEntity.badRequest().build();
+        }
+        // another spelling of a known city is refreshed and published under that city's key
+        Set<String> keys = new LinkedHashSet<>();
+        for (Location loc : requested) {
+            keys.add(loc.city() != null ? service.resolveCity(loc.city()).key() : loc.key());
+        }
+
+        SseEmitter emitter = new SseEmitter(props.getTimeout().toMillis());
+        Optional<WeatherUpdateHub.Subscription> subscription = hub.subscribe(keys, emitter);
+        if (subscription.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // subscribed first, so a refresh finishing meanwhile is not missed
+        for (BatchWeatherItem item : service.getBatch(city, zip)) {
+            if (item.getWeather() != null) {
+                subscription.get().offer(item.getWeather());
+            }
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
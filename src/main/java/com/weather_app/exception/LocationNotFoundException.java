@@ -0,0 +1,12 @@
+package com.weather_app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** The provider does not know the requested city or zip (404). */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class LocationNotFoundException extends WeatherApiException {
+    public LocationNotFoundException(Throwable cause) {
+        super("Location not found (404).", cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.weather_app.exception;
+
+/** The provider rejected the call because our plan's quota is used up (429). */
+public class RateLimitedException extends WeatherApiException {
+    public RateLimitedException(Throwable cause) {
+        super("Rate limited by weather provider (429).", cause);
+    }
+}
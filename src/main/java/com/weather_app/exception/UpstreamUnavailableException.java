@@ -0,0 +1,12 @@
+package com.weather_app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** The call was not attempted: circuit open, bulkhead full or local quota exhausted. */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UpstreamUnavailableException extends WeatherApiException {
+    public UpstreamUnavailableException(String reason) {
+        super("Weather provider unavailable: " + reason + ".");
+    }
+}
@@ -0,0 +1,12 @@
+package com.weather_app.exception;
+
+/** Failure talking to the weather provider. */
+public class WeatherApiException extends RuntimeException {
+    public WeatherApiException(String message) {
+        super(message);
+    }
+
+    public WeatherApiException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,5 @@
+package com.weather_app.history;
+
+public enum HistoryResolution {
+    RAW, HOURLY, DAILY
+}
@@ -0,0 +1,60 @@
+package com.weather_app.history;
+
+import com.weather_app.model.dto.MetricSummary;
+
+import java.util.Arrays;
+
+/** min/max/sum/count of one metric per bucket, as parallel primitive arrays. */
+final class MetricColumn {
+    private float[] min;
+    private float[] max;
+    private float[] sum;
+    private int[] count;
+
+    MetricColumn(int capacity) {
+        min = new float[capacity];
+        max = new float[capacity];
+        sum = new float[capacity];
+        count = new int[capacity];
+    }
+
+    void grow(int capacity) {
+        min = Arrays.copyOf(min, capacity);
+        max = Arrays.copyOf(max, capacity);
+        sum = Arrays.copyOf(sum, capacity);
+        count = Arrays.copyOf(count, capacity);
+    }
+
+    void reset(int index) {
+        count[index] = 0;
+        sum[index] = 0;
+    }
+
+    /** {@code null} values are not counted. */
+    void add(int index, Number value) {
+        if (value == null) return;
+        float v = value.floatValue();
+        if (count[index] == 0) {
+            min[index] = v;
+            max[index] = v;
+        } else {
+            min[index] = Math.min(min[index], v);
+            max[index] = Math.max(max[index], v);
+        }
+        sum[index] += v;
+        count[index]++;
+    }
+
+    /** Drops the first {@code n} of {@code size} buckets. */
+    void shift(int n, int size) {
+        System.arraycopy(min, n, min, 0, size - n);
+        System.arraycopy(max, n, max, 0, size - n);
+        System.arraycopy(sum, n, sum, 0, size - n);
+        System.arraycopy(count, n, count, 0, size - n);
+    }
+
+    MetricSummary summary(int index) {
+        if (count[index] == 0) return null;
+        return new MetricSummary((double) min[index], (double) max[index], (double) (sum[index] / count[index]));
+    }
+}
@@ -0,0 +1,116 @@
+package com.weather_app.history;
+
+import com.weather_app.config.WeatherHistoryProperties;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.WeatherHistoryPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only in-memory history of refreshed observations per location key. Every observation
+ * is appended to the raw series and folded into its hourly and daily rollup on the way in, so
+ * range queries read precomputed min/max/avg and never aggregate raw points. At
+ * {@code max-locations} a new location evicts the one observed least recently.
+ */
+@Component
+public class ObservationHistory {
+    private static final long HOUR = Duration.ofHours(1).toSeconds();
+    private static final long DAY = Duration.ofDays(1).toSeconds();
+
+    private final boolean enabled;
+    private final long rawRetention;
+    private final long hourlyRetention;
+    private final long dailyRetention;
+    private final int maxLocations;
+    private final Map<String, LocationHistory> locations = new ConcurrentHashMap<>();
+    private final Counter evictions;
+
+    public ObservationHistory(WeatherHistoryProperties props, MeterRegistry meterRegistry) {
+        this.enabled = props.isEnabled();
+        this.rawRetention = props.getRawRetention().toSeconds();
+        this.hourlyRetention = props.getHourlyRetention().toSeconds();
+        this.dailyRetention = props.getDailyRetention().toSeconds();
+        this.maxLocations = props.getMaxLocations();
+        Gauge.builder("weather.history.locations", locations, Map::size)
+                .register(meterRegistry);
+        this.evictions = Counter.builder("weather.history.evictions")
+                .description("Locations dropped to make room for a new one")
+                .register(meterRegistry);
+    }
+
+    public void record(WeatherRecord rec) {
+        if (!enabled || rec.getUpdatedAt() == null) return;
+        LocationHistory history = locations.get(rec.getLocationKey());
+        if (history == null) {
+            while (locations.size() >= maxLocations && evictLeastRecentlyObserved()) {
+                evictions.increment();
+            }
+            history = locations.computeIfAbsent(rec.getLocationKey(), k -> new LocationHistory());
+        }
+        history.add(rec.getUpdatedAt().toEpochSecond(ZoneOffset.UTC),
+                rec.getTemperature(), rec.getHumidity(), rec.getWindSpeed());
+    }
+
+    /** Points starting in {@code [from, to)}, oldest first; empty for an unknown location. */
+    public List<WeatherHistoryPoint> query(String locationKey, LocalDateTime from, LocalDateTime to,
+                                           HistoryResolution resolution) {
+        LocationHistory history = locations.get(locationKey);
+        if (history == null) return List.of();
+        return history.range(resolution, from.toEpochSecond(ZoneOffset.UTC), to.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /** A scan, but only when a new location arrives at the cap. */
+    private boolean evictLeastRecentlyObserved() {
+        Map.Entry<String, LocationHistory> oldest = null;
+        for (Map.Entry<String, LocationHistory> entry : locations.entrySet()) {
+            if (oldest == null || entry.getValue().lastObserved < oldest.getValue().lastObserved) {
+                oldest = entry;
+            }
+        }
+        return oldest != null && locations.remove(oldest.getKey(), oldest.getValue());
+    }
+
+    private final class LocationHistory {
+        private final ReentrantLock lock = new ReentrantLock();
+        // epoch second of the newest observation, what eviction orders by
+        private volatile long lastObserved = Long.MIN_VALUE;
+        private final RollupColumns raw = new RollupColumns(1, rawRetention);
+        private final RollupColumns hourly = new RollupColumns(HOUR, hourlyRetention);
+        private final RollupColumns daily = new RollupColumns(DAY, dailyRetention);
+
+        void add(long epochSecond, Double temp, Integer hum, Double wind) {
+            lock.lock();
+            try {
+                raw.add(epochSecond, temp, hum, wind);
+                hourly.add(epochSecond, temp, hum, wind);
+                daily.add(epochSecond, temp, hum, wind);
+                lastObserved = Math.max(lastObserved, epochSecond);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<WeatherHistoryPoint> range(HistoryResolution resolution, long from, long to) {
+            lock.lock();
+            try {
+                return switch (resolution) {
+                    case RAW -> raw.range(from, to);
+                    case HOURLY -> hourly.range(from, to);
+                    case DAILY -> daily.range(from, to);
+                };
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
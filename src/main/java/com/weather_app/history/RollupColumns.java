@@ -0,0 +1,111 @@
+package com.weather_app.history;
+
+import com.weather_app.model.dto.WeatherHistoryPoint;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One resolution of a location's history: fixed-width time buckets, oldest first, in parallel
+ * primitive arrays. With one-second buckets every observation is its own point (the raw series).
+ */
+final class RollupColumns {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final long bucketSeconds;
+    private final long retentionSeconds;
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private int[] samples = new int[INITIAL_CAPACITY];
+    private final MetricColumn temperature = new MetricColumn(INITIAL_CAPACITY);
+    private final MetricColumn humidity = new MetricColumn(INITIAL_CAPACITY);
+    private final MetricColumn windSpeed = new MetricColumn(INITIAL_CAPACITY);
+    private int size;
+
+    RollupColumns(long bucketSeconds, long retentionSeconds) {
+        this.bucketSeconds = bucketSeconds;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    void add(long epochSecond, Double temp, Integer hum, Double wind) {
+        long start = epochSecond - Math.floorMod(epochSecond, bucketSeconds);
+        int index;
+        if (size > 0 && starts[size - 1] == start) {
+            index = size - 1;
+        } else if (size == 0 || starts[size - 1] < start) {
+            index = append(start);
+        } else {
+            // late observation: fold into its bucket if we still have it, otherwise drop it
+            index = Arrays.binarySearch(starts, 0, size, start);
+            if (index < 0) return;
+        }
+        samples[index]++;
+        temperature.add(index, temp);
+        humidity.add(index, hum);
+        windSpeed.add(index, wind);
+        dropBefore(epochSecond - retentionSeconds);
+    }
+
+    /** Buckets starting in {@code [from, to)}, found by binary search, no scan of older data. */
+    List<WeatherHistoryPoint> range(long from, long to) {
+        int lo = lowerBound(from);
+        int hi = lowerBound(to);
+        List<WeatherHistoryPoint> points = new ArrayList<>(Math.max(0, hi - lo));
+        for (int i = lo; i < hi; i++) {
+            WeatherHistoryPoint point = new WeatherHistoryPoint();
+            point.setFrom(LocalDateTime.ofEpochSecond(starts[i], 0, ZoneOffset.UTC));
+            point.setSamples(samples[i]);
+            point.setTemperature(temperature.summary(i));
+            point.setHumidity(humidity.summary(i));
+            point.setWindSpeed(windSpeed.summary(i));
+            points.add(point);
+        }
+        return points;
+    }
+
+    void dropBefore(long epochSecond) {
+        int n = lowerBound(epochSecond - bucketSeconds + 1);
+        if (n == 0) return;
+        System.arraycopy(starts, n, starts, 0, size - n);
+        System.arraycopy(samples, n, samples, 0, size - n);
+        temperature.shift(n, size);
+        humidity.shift(n, size);
+        windSpeed.shift(n, size);
+        size -= n;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int append(long start) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            samples = Arrays.copyOf(samples, capacity);
+            temperature.grow(capacity);
+            humidity.grow(capacity);
+            windSpeed.grow(capacity);
+        }
+        int index = size++;
+        starts[index] = start;
+        samples[index] = 0;
+        temperature.reset(index);
+        humidity.reset(index);
+        windSpeed.reset(index);
+        return index;
+    }
+
+    private int lowerBound(long epochSecond) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < epochSecond) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
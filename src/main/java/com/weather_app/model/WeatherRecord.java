@@ -1,22 +1,30 @@
 package com.weather_app.model;
 
+import com.weather_app.model.dto.WeatherView;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @ToString
 @Data
 @RequiredArgsConstructor
 @Entity
-@Table(name = "weather_records")
+@Table(name = "weather_records", indexes = @Index(name = "idx_weather_records_updated_at", columnList = "updatedAt"))
 public class WeatherRecord {
 
     @Id
@@ -29,11 +37,35 @@ public class WeatherRecord {
     private String city;
     private String zip;
 
+    // OpenWeatherMap city ID, learned from the first response; lets refreshes use the /group endpoint
+    private Long providerId;
+
+    // where the provider places the observation, indexed by the near cache for coordinate lookups
+    private Double latitude;
+    private Double longitude;
+
     private Double temperature;
     private String description;
     private Integer humidity;
     private Double windSpeed;
 
     private LocalDateTime updatedAt;
+
+    // response bytes of this state, built on first use; a refresh moves updatedAt and so replaces them
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile WeatherView view;
+
+    public WeatherView view() {
+        WeatherView current = view;
+        if (current == null || !Objects.equals(current.updatedAt(), updatedAt)) {
+            current = WeatherView.of(this);
+            view = current;
+        }
+        return current;
+    }
 }
 
@@ -0,0 +1,52 @@
+package com.weather_app.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.weather_app.model.WeatherRecord;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@Data
+@RequiredArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchWeatherItem {
+    // echo of the requested location, exactly one of city/zip is set
+    private String city;
+    private String zip;
+
+    // written as the record's WeatherView, the same JSON GET /weather serves
+    @JsonSerialize(using = ViewSerializer.class)
+    private WeatherRecord weather;
+    private String error;
+
+    public static BatchWeatherItem forCity(String city) {
+        BatchWeatherItem item = new BatchWeatherItem();
+        item.setCity(city);
+        return item;
+    }
+
+    public static BatchWeatherItem forZip(String zip) {
+        BatchWeatherItem item = new BatchWeatherItem();
+        item.setZip(zip);
+        return item;
+    }
+
+    static final class ViewSerializer extends StdSerializer<WeatherRecord> {
+        ViewSerializer() {
+            super(WeatherRecord.class);
+        }
+
+        @Override
+        public void serialize(WeatherRecord rec, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(new String(rec.view().json(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.weather_app.model.dto;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Data
+@RequiredArgsConstructor
+@ToString
+public class BatchWeatherRequest {
+    private List<String> cities;
+    private List<String> zips;
+}
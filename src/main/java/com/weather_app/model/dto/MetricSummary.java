@@ -0,0 +1,14 @@
+package com.weather_app.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSummary {
+    private Double min;
+    private Double max;
+    private Double avg;
+}
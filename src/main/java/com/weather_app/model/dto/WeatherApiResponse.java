@@ -13,4 +13,7 @@ public class WeatherApiResponse {
     private String description;
     private Double windSpeed;
     private String city;
+    private Long cityId;
+    private Double latitude;
+    private Double longitude;
 }
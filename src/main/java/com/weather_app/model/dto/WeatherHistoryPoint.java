@@ -0,0 +1,23 @@
+package com.weather_app.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Data
+@RequiredArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeatherHistoryPoint {
+    // start of the hour or day (UTC), or the observation time for raw points
+    private LocalDateTime from;
+    private int samples;
+
+    // a metric the provider never reported in this period is left out
+    private MetricSummary temperature;
+    private MetricSummary humidity;
+    private MetricSummary windSpeed;
+}
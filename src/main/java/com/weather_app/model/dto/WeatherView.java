@@ -0,0 +1,117 @@
+package com.weather_app.model.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.weather_app.model.WeatherRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The {@code GET /weather} body for one state of a record: its public fields as primitives plus
+ * the encoded bytes, written once when the view is built. A record keeps its view until a refresh
+ * moves {@code updatedAt} (see {@link WeatherRecord#view()}), so a cache hit writes ready bytes
+ * instead of mapping the entity per request. Internal fields ({@code id}, {@code providerId}) are
+ * not part of it.
+ */
+public final class WeatherView {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CBORFactory CBOR = new CBORFactory();
+    // -1 for a humidity the provider did not report, NaN for the doubles
+    private static final int NO_HUMIDITY = -1;
+
+    private final String locationKey;
+    private final String city;
+    private final String zip;
+    private final double latitude;
+    private final double longitude;
+    private final double temperature;
+    private final String description;
+    private final int humidity;
+    private final double windSpeed;
+    private final LocalDateTime updatedAt;
+    private final byte[] json;
+    // most clients ask for JSON, the CBOR form is only built on demand
+    private volatile byte[] cbor;
+
+    private WeatherView(WeatherRecord rec) {
+        this.locationKey = rec.getLocationKey();
+        this.city = rec.getCity();
+        this.zip = rec.getZip();
+        this.latitude = orNaN(rec.getLatitude());
+        this.longitude = orNaN(rec.getLongitude());
+        this.temperature = orNaN(rec.getTemperature());
+        this.description = rec.getDescription();
+        this.humidity = rec.getHumidity() != null ? rec.getHumidity() : NO_HUMIDITY;
+        this.windSpeed = orNaN(rec.getWindSpeed());
+        this.updatedAt = rec.getUpdatedAt();
+        this.json = encode(JSON);
+    }
+
+    public static WeatherView of(WeatherRecord rec) {
+        return new WeatherView(rec);
+    }
+
+    public LocalDateTime updatedAt() {
+        return updatedAt;
+    }
+
+    /** UTF-8 JSON, shared between responses: do not modify. */
+    public byte[] json() {
+        return json;
+    }
+
+    /** The same fields as CBOR ({@code application/cbor}), shared between responses: do not modify. */
+    public byte[] cbor() {
+        byte[] bytes = cbor;
+        if (bytes == null) {
+            // a racing second encode produces the same bytes
+            bytes = encode(CBOR);
+            cbor = bytes;
+        }
+        return bytes;
+    }
+
+    /** Same field names and formats as Jackson's mapping of the entity, unknown values as {@code null}. */
+    private byte[] encode(JsonFactory factory) {
+        var out = new ByteArrayOutputStream(256);
+        try (JsonGenerator gen = factory.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("locationKey", locationKey);
+            gen.writeStringField("city", city);
+            gen.writeStringField("zip", zip);
+            writeNumber(gen, "latitude", latitude);
+            writeNumber(gen, "longitude", longitude);
+            writeNumber(gen, "temperature", temperature);
+            gen.writeStringField("description", description);
+            if (humidity == NO_HUMIDITY) {
+                gen.writeNullField("humidity");
+            } else {
+                gen.writeNumberField("humidity", humidity);
+            }
+            writeNumber(gen, "windSpeed", windSpeed);
+            gen.writeStringField("updatedAt",
+                    updatedAt == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(updatedAt));
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeNumber(JsonGenerator gen, String field, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            gen.writeNullField(field);
+        } else {
+            gen.writeNumberField(field, value);
+        }
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
@@ -1,15 +1,23 @@
 package com.weather_app.repository;
 
 import com.weather_app.model.WeatherRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WeatherRecordRepository extends JpaRepository<WeatherRecord, Integer> {
     Optional<WeatherRecord> findByLocationKey(String locationKey);
 
+    List<WeatherRecord> findAllByLocationKeyIn(Collection<String> locationKeys);
+
+    List<WeatherRecord> findByUpdatedAtAfterOrderByUpdatedAtDesc(LocalDateTime cutoff, Limit limit);
+
     Optional<WeatherRecord> findByCity(String city);
 
     Optional<WeatherRecord> findByZip(String zip);
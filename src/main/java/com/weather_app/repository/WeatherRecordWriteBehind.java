@@ -0,0 +1,212 @@
+package com.weather_app.repository;
+
+import com.weather_app.config.WeatherPersistenceProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for refreshed records. Records are kept per location key, so a key refreshed twice
+ * before a flush is written once, and a background flusher writes them as one JDBC batch of
+ * upserts every flush interval or as soon as a batch is full. Everything still pending is
+ * flushed when the context shuts down.
+ */
+@Component
+public class WeatherRecordWriteBehind implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(WeatherRecordWriteBehind.class);
+
+    // upsert keyed on the unique location key; a row that is already newer (written directly
+    // while write-behind was off, or by another instance) is left alone, the id is generated on
+    // first insert
+    private static final String UPSERT = """
+            MERGE INTO weather_records t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                           CAST(? AS BIGINT), CAST(? AS DOUBLE PRECISION), CAST(? AS DOUBLE PRECISION),
+                           CAST(? AS DOUBLE PRECISION), CAST(? AS VARCHAR(255)), CAST(? AS INTEGER),
+                           CAST(? AS DOUBLE PRECISION), CAST(? AS TIMESTAMP(6))))
+                AS s(location_key, city, zip, provider_id, latitude, longitude, temperature, description, humidity,
+                     wind_speed, updated_at)
+            ON t.location_key = s.location_key
+            WHEN MATCHED AND (t.updated_at IS NULL OR t.updated_at <= s.updated_at) THEN UPDATE SET
+                city = s.city, zip = s.zip, provider_id = COALESCE(s.provider_id, t.provider_id),
+                latitude = COALESCE(s.latitude, t.latitude), longitude = COALESCE(s.longitude, t.longitude),
+                temperature = s.temperature, description = s.description,
+                humidity = s.humidity, wind_speed = s.wind_speed, updated_at = s.updated_at
+            WHEN NOT MATCHED THEN INSERT
+                (location_key, city, zip, provider_id, latitude, longitude, temperature, description, humidity,
+                 wind_speed, updated_at)
+                VALUES (s.location_key, s.city, s.zip, s.provider_id, s.latitude, s.longitude, s.temperature,
+                        s.description, s.humidity, s.wind_speed, s.updated_at)
+            """;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService flusher;
+    private final Map<String, WeatherRecord> pending = new ConcurrentHashMap<>();
+    // one flush at a time, so an older batch can never overwrite a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushes;
+
+    public WeatherRecordWriteBehind(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    WeatherPersistenceProperties props,
+                                    MeterRegistry meterRegistry) {
+        WeatherPersistenceProperties.WriteBehind wb = props.getWriteBehind();
+        this.enabled = wb.isEnabled();
+        this.batchSize = wb.getBatchSize();
+        this.maxPending = wb.getMaxPending();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = enabled ? new TransactionTemplate(transactionManager) : null;
+        this.flusher = enabled ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "weather-write-behind");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        if (enabled) {
+            long interval = wb.getFlushInterval().toMillis();
+            flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        this.written = Counter.builder("weather.persistence.write_behind.records")
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        this.failed = Counter.builder("weather.persistence.write_behind.records")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.flushes = Timer.builder("weather.persistence.write_behind.flush")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("weather.persistence.write_behind.pending", pending, Map::size)
+                .register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public void enqueue(WeatherRecord rec) {
+        pending.put(rec.getLocationKey(), rec);
+        int size = pending.size();
+        if (size >= maxPending) {
+            // the flusher is falling behind, make the producer pay instead of growing without bound
+            flush();
+        } else if (size >= batchSize) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    /** A record that was refreshed but is not in the database yet. */
+    public Optional<WeatherRecord> pending(String locationKey) {
+        return enabled ? Optional.ofNullable(pending.get(locationKey)) : Optional.empty();
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /** Writes everything pending, one batch at a time. */
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                if (!flushBatch()) return;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (!enabled) return;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("{} weather records could not be written on shutdown", pending.size());
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    /** Returns {@code false} when the batch could not be written and was put back. */
+    private boolean flushBatch() {
+        List<WeatherRecord> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        for (WeatherRecord rec : pending.values()) {
+            // a newer record for the same key that arrives meanwhile stays pending
+            if (pending.remove(rec.getLocationKey(), rec)) {
+                batch.add(rec);
+                if (batch.size() == batchSize) break;
+            }
+        }
+        if (batch.isEmpty()) return true;
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT, batch, batch.size(), (ps, rec) -> {
+                        ps.setString(1, rec.getLocationKey());
+                        ps.setString(2, rec.getCity());
+                        ps.setString(3, rec.getZip());
+                        ps.setObject(4, rec.getProviderId());
+                        ps.setObject(5, rec.getLatitude());
+                        ps.setObject(6, rec.getLongitude());
+                        ps.setObject(7, rec.getTemperature());
+                        ps.setString(8, rec.getDescription());
+                        ps.setObject(9, rec.getHumidity());
+                        ps.setObject(10, rec.getWindSpeed());
+                        ps.setTimestamp(11, rec.getUpdatedAt() == null ? null : Timestamp.valueOf(rec.getUpdatedAt()));
+                    }));
+            written.increment(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            batch.forEach(rec -> pending.putIfAbsent(rec.getLocationKey(), rec));
+            log.warn("Writing {} weather records failed, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        } finally {
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.weather_app.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Caps concurrent upstream calls; a call over the limit is rejected instead of queued. */
+public class Bulkhead {
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be >= 1");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int activeCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+}
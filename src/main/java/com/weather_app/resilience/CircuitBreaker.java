@@ -0,0 +1,186 @@
+package com.weather_app.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last {@code windowSize} calls
+ * reaches the threshold, rejects calls for {@code openDuration}, then lets {@code halfOpenProbes}
+ * trial calls through: all of them succeeding closes the circuit, any failure opens it again.
+ */
+public class CircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Transition(State from, State to) {}
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final Clock clock;
+
+    // a ReentrantLock rather than synchronized so virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCalls;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int probesPermitted;
+    private int probesSucceeded;
+
+    private final Map<Transition, LongAdder> transitions = new ConcurrentHashMap<>();
+    private final LongAdder notPermitted = new LongAdder();
+
+    public CircuitBreaker(String name, double failureRateThreshold, int windowSize, int minimumCalls,
+                          Duration openDuration, int halfOpenProbes, Clock clock) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]");
+        }
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("windowSize >= minimumCalls >= 1 and halfOpenProbes >= 1 required");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+    }
+
+    /** Returns {@code false} if the call must not go out; a permitted call must report its outcome. */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    notPermitted.increment();
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesPermitted >= halfOpenProbes) {
+                    notPermitted.increment();
+                    return false;
+                }
+                probesPermitted++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Gives back a permission that was acquired but not used for a call. */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesPermitted > 0) {
+                probesPermitted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> record(false);
+                case HALF_OPEN -> {
+                    if (++probesSucceeded >= halfOpenProbes) {
+                        transitionTo(State.CLOSED);
+                    }
+                }
+                case OPEN -> { } // a call that started before the circuit opened, nothing to learn
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onError() {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    record(true);
+                    if (windowCalls >= minimumCalls && (double) windowFailures / windowCalls >= failureRateThreshold) {
+                        transitionTo(State.OPEN);
+                    }
+                }
+                case HALF_OPEN -> transitionTo(State.OPEN);
+                case OPEN -> { }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long transitionCount(State from, State to) {
+        LongAdder count = transitions.get(new Transition(from, to));
+        return count == null ? 0 : count.sum();
+    }
+
+    public long notPermittedCount() {
+        return notPermitted.sum();
+    }
+
+    private void record(boolean failure) {
+        if (windowCalls == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCalls++;
+        }
+        window[windowPos] = failure;
+        if (failure) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        State previous = state;
+        state = next;
+        switch (next) {
+            case OPEN -> openedAt = clock.instant();
+            case HALF_OPEN -> {
+                probesPermitted = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                windowPos = 0;
+                windowCalls = 0;
+                windowFailures = 0;
+            }
+        }
+        transitions.computeIfAbsent(new Transition(previous, next), t -> new LongAdder()).increment();
+        log.info("Circuit breaker '{}' {} -> {}", name, previous, next);
+    }
+}
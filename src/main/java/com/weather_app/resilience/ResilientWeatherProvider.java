@@ -0,0 +1,156 @@
+package com.weather_app.resilience;
+
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.RateLimitedException;
+import com.weather_app.exception.UpstreamUnavailableException;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.service.WeatherProvider;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Guards a {@link WeatherProvider} with a bulkhead, a circuit breaker and a token bucket, in that
+ * order. A call that is not let through fails fast with {@link UpstreamUnavailableException}
+ * and never reaches the provider.
+ */
+public class ResilientWeatherProvider implements WeatherProvider {
+    private final WeatherProvider delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public ResilientWeatherProvider(WeatherProvider delegate, CircuitBreaker circuitBreaker,
+                                    Bulkhead bulkhead, TokenBucketRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public WeatherProvider delegate() {
+        return delegate;
+    }
+
+    @Override
+    public WeatherApiResponse fetchByCity(String city) {
+        return call(() -> delegate.fetchByCity(city));
+    }
+
+    @Override
+    public WeatherApiResponse fetchByZip(String zip) {
+        return call(() -> delegate.fetchByZip(zip));
+    }
+
+    @Override
+    public WeatherApiResponse fetchByCoordinates(double latitude, double longitude) {
+        return call(() -> delegate.fetchByCoordinates(latitude, longitude));
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByCityAsync(String city, Executor blockingExecutor) {
+        return callAsync(() -> delegate.fetchByCityAsync(city, blockingExecutor));
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByZipAsync(String zip, Executor blockingExecutor) {
+        return callAsync(() -> delegate.fetchByZipAsync(zip, blockingExecutor));
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByCoordinatesAsync(double latitude, double longitude,
+                                                                         Executor blockingExecutor) {
+        return callAsync(() -> delegate.fetchByCoordinatesAsync(latitude, longitude, blockingExecutor));
+    }
+
+    @Override
+    public int groupSize() {
+        return delegate.groupSize();
+    }
+
+    // a bulk call is one upstream request, and costs one permit like any other
+    @Override
+    public List<WeatherApiResponse> fetchByIds(Collection<Long> cityIds) {
+        return call(() -> delegate.fetchByIds(cityIds));
+    }
+
+    @Override
+    public CompletableFuture<List<WeatherApiResponse>> fetchByIdsAsync(Collection<Long> cityIds,
+                                                                       Executor blockingExecutor) {
+        return callAsync(() -> delegate.fetchByIdsAsync(cityIds, blockingExecutor));
+    }
+
+    private <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            T response = call.get();
+            onSuccess();
+            return response;
+        } catch (RuntimeException e) {
+            onError(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        try {
+            acquire();
+        } catch (UpstreamUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onError(e);
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((response, error) -> {
+            if (error == null) {
+                onSuccess();
+            } else {
+                onError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+            bulkhead.release();
+        });
+    }
+
+    private void acquire() {
+        if (!bulkhead.tryAcquire()) {
+            throw new UpstreamUnavailableException("too many concurrent calls");
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            throw new UpstreamUnavailableException("circuit open");
+        }
+        if (!rateLimiter.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            bulkhead.release();
+            throw new UpstreamUnavailableException("call quota exhausted");
+        }
+    }
+
+    private void onSuccess() {
+        circuitBreaker.onSuccess();
+        rateLimiter.onSuccess();
+    }
+
+    private void onError(Throwable error) {
+        if (error instanceof LocationNotFoundException) {
+            // the provider answered properly, an unknown city says nothing about its health
+            onSuccess();
+            return;
+        }
+        if (error instanceof RateLimitedException) {
+            rateLimiter.onThrottled();
+        }
+        circuitBreaker.onError();
+    }
+}
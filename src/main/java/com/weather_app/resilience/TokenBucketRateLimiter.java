@@ -0,0 +1,103 @@
+package com.weather_app.resilience;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket sized to the provider plan's quota. The refill rate adapts: a 429 from the
+ * provider halves it (down to a floor) and every successful call adds back a twentieth of the
+ * quota, so we settle just under whatever the provider actually lets through.
+ */
+public class TokenBucketRateLimiter {
+    private final double maxPerMilli;
+    private final double minPerMilli;
+    private final double capacity;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double ratePerMilli;
+    private double tokens;
+    private long lastRefillMillis;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public TokenBucketRateLimiter(int callsPerMinute, int burst, int minCallsPerMinute, Clock clock) {
+        if (callsPerMinute < 1 || burst < 1 || minCallsPerMinute < 1 || minCallsPerMinute > callsPerMinute) {
+            throw new IllegalArgumentException("callsPerMinute >= minCallsPerMinute >= 1 and burst >= 1 required");
+        }
+        this.maxPerMilli = callsPerMinute / 60_000.0;
+        this.minPerMilli = minCallsPerMinute / 60_000.0;
+        this.capacity = burst;
+        this.clock = clock;
+        this.ratePerMilli = maxPerMilli;
+        this.tokens = burst;
+        this.lastRefillMillis = clock.millis();
+    }
+
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The provider answered 429: back off multiplicatively and drop what is left in the bucket. */
+    public void onThrottled() {
+        lock.lock();
+        try {
+            refill();
+            ratePerMilli = Math.max(minPerMilli, ratePerMilli / 2);
+            tokens = 0;
+            throttled.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (ratePerMilli < maxPerMilli) {
+                refill();
+                ratePerMilli = Math.min(maxPerMilli, ratePerMilli + maxPerMilli / 20);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double callsPerMinute() {
+        lock.lock();
+        try {
+            return ratePerMilli * 60_000;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    private void refill() {
+        long now = clock.millis();
+        if (now > lastRefillMillis) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * ratePerMilli);
+            lastRefillMillis = now;
+        }
+    }
+}
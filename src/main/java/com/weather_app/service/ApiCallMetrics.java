@@ -0,0 +1,66 @@
+package com.weather_app.service;
+
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.RateLimitedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Timers shared by the provider clients: the whole call by outcome, and the JSON mapping alone. */
+final class ApiCallMetrics {
+    interface Mapping<T> {
+        T map() throws IOException;
+    }
+
+    private final io.micrometer.core.instrument.Clock clock;
+    private final Timer success;
+    private final Timer notFound;
+    private final Timer rateLimited;
+    private final Timer error;
+    private final Timer mapping;
+
+    ApiCallMetrics(MeterRegistry registry, String client) {
+        this.clock = registry.config().clock();
+        this.success = callTimer(registry, client, "success");
+        this.notFound = callTimer(registry, client, "not_found");
+        this.rateLimited = callTimer(registry, client, "rate_limited");
+        this.error = callTimer(registry, client, "error");
+        this.mapping = Timer.builder("weather.api.mapping")
+                .description("Reading the provider's JSON into a WeatherApiResponse")
+                .tag("client", client)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    long start() {
+        return clock.monotonicTime();
+    }
+
+    void recordCall(long start, Throwable failure) {
+        Timer timer = failure == null ? success
+                : failure instanceof LocationNotFoundException ? notFound
+                : failure instanceof RateLimitedException ? rateLimited
+                : error;
+        timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    <T> T timeMapping(Mapping<T> body) throws IOException {
+        long start = clock.monotonicTime();
+        try {
+            return body.map();
+        } finally {
+            mapping.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer callTimer(MeterRegistry registry, String client, String outcome) {
+        return Timer.builder("weather.api.requests")
+                .description("Calls to the weather provider, including reading the response")
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,189 @@
+package com.weather_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.config.WeatherApiProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.RateLimitedException;
+import com.weather_app.exception.WeatherApiException;
+import com.weather_app.model.dto.WeatherApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking OpenWeatherMap client on the pooled JDK {@link HttpClient}. No thread is held
+ * while a request is in flight; the blocking methods simply wait for the future.
+ */
+@Service
+@ConditionalOnProperty(prefix = "weather.api", name = "client", havingValue = "async")
+public class AsyncWeatherApiClient implements WeatherProvider {
+    private final HttpClient httpClient;
+    private final WeatherJsonExtractor extractor;
+    private final WeatherApiProperties props;
+    private final ApiCallMetrics metrics;
+
+    public AsyncWeatherApiClient(HttpClient httpClient, ObjectMapper objectMapper, WeatherApiProperties props,
+                                 MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.extractor = new WeatherJsonExtractor(objectMapper.getFactory());
+        this.props = props;
+        this.metrics = new ApiCallMetrics(meterRegistry, "async");
+    }
+
+    public CompletableFuture<WeatherApiResponse> fetchByCityAsync(String city) {
+        return callAndMap(uri("q", city));
+    }
+
+    public CompletableFuture<WeatherApiResponse> fetchByZipAsync(String zip) {
+        return callAndMap(uri("zip", zip));
+    }
+
+    public CompletableFuture<WeatherApiResponse> fetchByCoordinatesAsync(double latitude, double longitude) {
+        URI uri = UriComponentsBuilder.fromUriString(props.getUrl())
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("appid", props.getKey())
+                .queryParam("units", props.getUnits())
+                .encode()
+                .build()
+                .toUri();
+        return callAndMap(uri);
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByCityAsync(String city, Executor blockingExecutor) {
+        return fetchByCityAsync(city);
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByZipAsync(String zip, Executor blockingExecutor) {
+        return fetchByZipAsync(zip);
+    }
+
+    @Override
+    public CompletableFuture<WeatherApiResponse> fetchByCoordinatesAsync(double latitude, double longitude,
+                                                                         Executor blockingExecutor) {
+        return fetchByCoordinatesAsync(latitude, longitude);
+    }
+
+    @Override
+    public WeatherApiResponse fetchByCity(String city) {
+        return await(fetchByCityAsync(city));
+    }
+
+    @Override
+    public WeatherApiResponse fetchByZip(String zip) {
+        return await(fetchByZipAsync(zip));
+    }
+
+    @Override
+    public WeatherApiResponse fetchByCoordinates(double latitude, double longitude) {
+        return await(fetchByCoordinatesAsync(latitude, longitude));
+    }
+
+    @Override
+    public int groupSize() {
+        return props.resolveGroupUrl() == null ? 0 : props.getGroupSize();
+    }
+
+    @Override
+    public CompletableFuture<List<WeatherApiResponse>> fetchByIdsAsync(Collection<Long> cityIds,
+                                                                       Executor blockingExecutor) {
+        URI uri = UriComponentsBuilder.fromUriString(props.resolveGroupUrl())
+                .queryParam("id", cityIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .queryParam("appid", props.getKey())
+                .queryParam("units", props.getUnits())
+                .encode()
+                .build()
+                .toUri();
+        return callAndMap(uri, extractor::extractGroup);
+    }
+
+    @Override
+    public List<WeatherApiResponse> fetchByIds(Collection<Long> cityIds) {
+        return await(fetchByIdsAsync(cityIds, Runnable::run));
+    }
+
+    private URI uri(String param, String value) {
+        return UriComponentsBuilder.fromUriString(props.getUrl())
+                .queryParam(param, value)
+                .queryParam("appid", props.getKey())
+                .queryParam("units", props.getUnits())
+                .encode()
+                .build()
+                .toUri();
+    }
+
+    private CompletableFuture<WeatherApiResponse> callAndMap(URI uri) {
+        return callAndMap(uri, extractor::extract);
+    }
+
+    private <T> CompletableFuture<T> callAndMap(URI uri, BodyReader<T> reader) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(props.getReadTimeout())
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        long start = metrics.start();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new WeatherApiException("Failed to fetch weather data.", unwrap(error));
+                    }
+                    return map(response, reader);
+                })
+                .whenComplete((response, error) -> metrics.recordCall(start, unwrap(error)));
+    }
+
+    private <T> T map(HttpResponse<byte[]> response, BodyReader<T> reader) {
+        int status = response.statusCode();
+        if (status == 401) {
+            throw new WeatherApiException("API key is invalid or not activated yet (401).");
+        }
+        if (status == 404) {
+            throw new LocationNotFoundException(null);
+        }
+        if (status == 429) {
+            throw new RateLimitedException(null);
+        }
+        if (status < 200 || status >= 300) {
+            throw new WeatherApiException("Failed to fetch weather data.", new IOException("HTTP " + status));
+        }
+        try {
+            return metrics.timeMapping(() -> reader.read(response.body()));
+        } catch (IOException e) {
+            throw new WeatherApiException("Failed to fetch weather data.", e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+    }
+
+    private interface BodyReader<T> {
+        T read(byte[] body) throws IOException;
+    }
+}
@@ -0,0 +1,98 @@
+package com.weather_app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps spellings of a city ("Kiev", "kyiv,ua", "Київ") to the one {@code city:} key that holds
+ * its record, so they share a cache entry, a database row and an upstream call.
+ * <p>
+ * The index learns from refreshes: the first city query answered with a provider city ID becomes
+ * that ID's canonical key, and every later query answered with the same ID is an alias of it. The
+ * provider's own name for the city is added too, unless the query already contains it ("Paris
+ * Texas" must not claim "Paris"). Zip and coordinate lookups are never aliased.
+ */
+final class CityAliasIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern SPACED_COMMA = Pattern.compile(" ?, ?");
+
+    private final int maxSize;
+    // folded spelling -> canonical location key
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final Map<Long, String> canonicalByProviderId = new ConcurrentHashMap<>();
+    private final Counter aliased;
+    private final Counter canonical;
+    private final Counter unknown;
+
+    CityAliasIndex(int maxSize, Map<String, String> seeds, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        seeds.forEach((alias, city) -> aliases.put(fold(alias), Location.ofCity(city).key()));
+        this.aliased = resultCounter(registry, "alias");
+        this.canonical = resultCounter(registry, "canonical");
+        this.unknown = resultCounter(registry, "unknown");
+        Gauge.builder("weather.city.aliases.size", aliases, Map::size)
+                .description("Spellings in the city alias index")
+                .register(registry);
+    }
+
+    /** The canonical location for a city lookup; anything else is returned as is. */
+    Location resolve(Location loc) {
+        if (loc.city() == null) return loc;
+        String key = aliases.get(fold(loc.city()));
+        if (key == null) {
+            unknown.increment();
+            return loc;
+        }
+        if (key.equals(loc.key())) {
+            canonical.increment();
+            return loc;
+        }
+        aliased.increment();
+        return Location.ofKey(key);
+    }
+
+    /** Records that the provider answered the city query {@code loc} with this city. */
+    void learn(Location loc, Long providerId, String providerName) {
+        if (loc.city() == null || providerId == null) return;
+        String key = canonicalByProviderId.get(providerId);
+        if (key == null) {
+            if (canonicalByProviderId.size() >= maxSize) return;
+            key = canonicalByProviderId.computeIfAbsent(providerId, id -> loc.key());
+        }
+        String query = fold(loc.city());
+        if (aliases.size() < maxSize || aliases.containsKey(query)) {
+            aliases.put(query, key);
+        }
+        if (providerName != null) {
+            String name = fold(providerName);
+            if (!name.isEmpty() && !query.contains(name) && aliases.size() < maxSize) {
+                aliases.putIfAbsent(name, key);
+            }
+        }
+    }
+
+    int size() {
+        return aliases.size();
+    }
+
+    /** Case, accents, and spacing around words and commas do not tell two spellings apart. */
+    static String fold(String city) {
+        String lower = Location.normalizeCity(city);
+        String bare = MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFKD)).replaceAll("");
+        return SPACED_COMMA.matcher(SPACES.matcher(bare).replaceAll(" ")).replaceAll(",");
+    }
+
+    private static Counter resultCounter(MeterRegistry registry, String result) {
+        return Counter.builder("weather.city.aliases")
+                .description("City lookups by whether the alias index rewrote them")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,334 @@
+package com.weather_app.service;
+
+import com.weather_app.cache.HotKeyTracker;
+import com.weather_app.cache.NegativeLookupCache;
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.SharedWeatherCache;
+import com.weather_app.cache.StripedLocks;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherPrewarmProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.history.ObservationHistory;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.repository.WeatherRecordWriteBehind;
+import com.weather_app.resilience.TokenBucketRateLimiter;
+import com.weather_app.stream.WeatherUpdateHub;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the most requested locations fresh: on every tick the top-N keys from the
+ * {@link HotKeyTracker} that are about to expire are fetched in parallel, within a per-minute
+ * call budget, and written back in one transaction. Locations whose provider city ID is known
+ * are fetched together through the {@code /group} endpoint, one budget unit per call. With a
+ * shared cache tier, keys another instance has refreshed or is refreshing are left to it, and a
+ * key a lookup is already refreshing through the {@link RefreshCoalescer} is left to that lookup.
+ */
+@Component
+@ConditionalOnProperty(prefix = "weather.prewarm", name = "enabled", havingValue = "true")
+public class HotKeyPrewarmer {
+    private static final Logger log = LoggerFactory.getLogger(HotKeyPrewarmer.class);
+
+    private final HotKeyTracker hotKeys;
+    private final WeatherRecordCache cache;
+    private final SharedWeatherCache shared;
+    private final RefreshCoalescer coalescer;
+    private final NegativeLookupCache notFound;
+    private final StripedLocks keyLocks;
+    private final WeatherRecordRepository repository;
+    private final WeatherRecordWriteBehind writeBehind;
+    private final WeatherProvider apiClient;
+    private final ObservationHistory history;
+    private final WeatherUpdateHub updates;
+    private final Executor fanOutExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenBucketRateLimiter budget;
+    private final int topN;
+    private final Duration refreshAfter;
+    private final Clock clock;
+
+    private final Counter refreshed;
+    private final Counter failed;
+    private final Counter overBudget;
+
+    public HotKeyPrewarmer(HotKeyTracker hotKeys,
+                           WeatherRecordCache cache,
+                           SharedWeatherCache shared,
+                           RefreshCoalescer coalescer,
+                           NegativeLookupCache notFound,
+                           StripedLocks keyLocks,
+                           WeatherRecordRepository repository,
+                           WeatherRecordWriteBehind writeBehind,
+                           WeatherProvider apiClient,
+                           ObservationHistory history,
+                           WeatherUpdateHub updates,
+                           Executor fanOutExecutor,
+                           PlatformTransactionManager transactionManager,
+                           WeatherPrewarmProperties props,
+                           WeatherCacheProperties cacheProps,
+                           MeterRegistry meterRegistry,
+                           Clock clock) {
+        this.hotKeys = hotKeys;
+        this.cache = cache;
+        this.shared = shared;
+        this.coalescer = coalescer;
+        this.notFound = notFound;
+        this.keyLocks = keyLocks;
+        this.repository = repository;
+        this.writeBehind = writeBehind;
+        this.apiClient = apiClient;
+        this.history = history;
+        this.updates = updates;
+        this.fanOutExecutor = fanOutExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.budget = new TokenBucketRateLimiter(props.getCallsPerMinute(), props.getCallsPerMinute(),
+                props.getCallsPerMinute(), clock);
+        this.topN = props.getTopN();
+        this.refreshAfter = Duration.ofMinutes(cacheProps.getTtlMinutes()).minus(props.getLead());
+        this.clock = clock;
+
+        this.refreshed = prewarmCounter(meterRegistry, "success");
+        this.failed = prewarmCounter(meterRegistry, "failed");
+        this.overBudget = prewarmCounter(meterRegistry, "over_budget");
+        Gauge.builder("weather.prewarm.tracked_keys", hotKeys, HotKeyTracker::trackedKeys)
+                .register(meterRegistry);
+    }
+
+    @Autowired
+    public HotKeyPrewarmer(HotKeyTracker hotKeys,
+                           WeatherRecordCache cache,
+                           SharedWeatherCache shared,
+                           RefreshCoalescer coalescer,
+                           NegativeLookupCache notFound,
+                           StripedLocks keyLocks,
+                           WeatherRecordRepository repository,
+                           WeatherRecordWriteBehind writeBehind,
+                           WeatherProvider apiClient,
+                           ObservationHistory history,
+                           WeatherUpdateHub updates,
+                           @Qualifier("weatherFanOutExecutor") Executor fanOutExecutor,
+                           PlatformTransactionManager transactionManager,
+                           WeatherPrewarmProperties props,
+                           WeatherCacheProperties cacheProps,
+                           MeterRegistry meterRegistry) {
+        this(hotKeys, cache, shared, coalescer, notFound, keyLocks, repository, writeBehind, apiClient, history, updates,
+                fanOutExecutor, transactionManager, props, cacheProps, meterRegistry, Clock.systemUTC());
+    }
+
+    @Scheduled(fixedDelayString = "${weather.prewarm.interval:1m}", initialDelayString = "${weather.prewarm.interval:1m}")
+    public void prewarm() {
+        List<String> hot = hotKeys.topKeys(topN);
+        if (hot.isEmpty()) return;
+
+        // only keys we already hold a record for: a hot key that 404s must not cost a call every tick
+        Map<String, WeatherRecord> known = new HashMap<>();
+        List<String> notCached = new ArrayList<>();
+        for (String key : hot) {
+            cache.peek(key).ifPresentOrElse(r -> known.put(key, r), () -> notCached.add(key));
+        }
+        if (!notCached.isEmpty()) {
+            repository.findAllByLocationKeyIn(notCached).forEach(r -> known.put(r.getLocationKey(), r));
+        }
+
+        LocalDateTime dueBefore = LocalDateTime.now(clock).minus(refreshAfter);
+        List<String> due = new ArrayList<>();
+        for (String key : hot) {
+            WeatherRecord rec = known.get(key);
+            if (rec != null && !isFresh(rec, dueBefore)) {
+                due.add(key);
+            }
+        }
+        if (due.isEmpty()) return;
+        Map<String, WeatherRecord> peers = shared.getAll(due);
+        Map<String, SharedWeatherCache.RefreshLock> locks = new HashMap<>();
+        // keys whose coalesced refresh this tick owns, until their record is saved
+        Map<String, CompletableFuture<WeatherRecord>> leading = new HashMap<>();
+        try {
+            refresh(due, known, peers, locks, leading, dueBefore);
+        } catch (RuntimeException | Error e) {
+            failed.increment(leading.size());
+            leading.values().forEach(refresh -> refresh.completeExceptionally(e));
+            throw e;
+        } finally {
+            locks.values().forEach(SharedWeatherCache.RefreshLock::close);
+        }
+    }
+
+    private void refresh(List<String> due, Map<String, WeatherRecord> known, Map<String, WeatherRecord> peers,
+                         Map<String, SharedWeatherCache.RefreshLock> locks,
+                         Map<String, CompletableFuture<WeatherRecord>> leading, LocalDateTime dueBefore) {
+        int groupSize = apiClient.groupSize();
+        Map<String, CompletableFuture<WeatherApiResponse>> fetches = new LinkedHashMap<>();
+        Map<String, Long> groupable = new LinkedHashMap<>();
+        for (String key : due) {
+            WeatherRecord peer = peers.get(key);
+            if (peer != null && isFresh(peer, dueBefore)) {
+                cache.put(peer);
+                continue;
+            }
+            Optional<SharedWeatherCache.RefreshLock> lock = shared.tryLock(key);
+            if (lock.isEmpty()) {
+                continue; // another instance is on it
+            }
+            locks.put(key, lock.get());
+            WeatherRecord rec = known.get(key);
+            if (groupSize > 0 && rec.getProviderId() != null) {
+                groupable.put(key, rec.getProviderId());
+                continue;
+            }
+            if (!budget.tryAcquire()) {
+                overBudget.increment();
+                locks.remove(key).close();
+                continue;
+            }
+            if (!lead(key, leading)) {
+                locks.remove(key).close(); // a lookup is refreshing it already
+                continue;
+            }
+            fetches.put(key, WeatherService.fetchAsync(apiClient, Location.ofKey(key), fanOutExecutor));
+        }
+        // keys with a known city ID cost one call per /group request instead of one each
+        for (List<String> keys : ProviderGroups.chunks(new ArrayList<>(groupable.keySet()), groupSize)) {
+            if (!budget.tryAcquire()) {
+                overBudget.increment(keys.size());
+                keys.forEach(key -> locks.remove(key).close());
+                continue;
+            }
+            List<String> led = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                if (lead(key, leading)) {
+                    led.add(key);
+                } else {
+                    locks.remove(key).close();
+                }
+            }
+            if (led.isEmpty()) continue;
+            List<Long> ids = led.stream().map(groupable::get).distinct().toList();
+            CompletableFuture<Map<Long, WeatherApiResponse>> group = ProviderGroups.fetch(apiClient, ids, fanOutExecutor);
+            for (String key : led) {
+                // an ID the group call left out is fetched on its own; only that call can tell "not found"
+                fetches.put(key, group.thenCompose(byId -> byId.containsKey(groupable.get(key))
+                        ? CompletableFuture.completedFuture(byId.get(groupable.get(key)))
+                        : WeatherService.fetchAsync(apiClient, Location.ofKey(key), fanOutExecutor)));
+            }
+        }
+
+        Map<String, WeatherApiResponse> responses = new HashMap<>();
+        fetches.forEach((key, fetch) -> {
+            try {
+                responses.put(key, fetch.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof LocationNotFoundException) {
+                    notFound.add(key);
+                }
+                failed.increment();
+                leading.remove(key).completeExceptionally(cause);
+                log.debug("Pre-warming {} failed: {}", key, cause.getMessage());
+            }
+        });
+        if (responses.isEmpty()) return;
+
+        for (WeatherRecord rec : save(responses, known)) {
+            cache.put(rec);
+            shared.put(rec);
+            history.record(rec);
+            updates.publish(rec);
+            leading.remove(rec.getLocationKey()).complete(rec);
+            refreshed.increment();
+        }
+    }
+
+    /**
+     * Takes over the coalesced refresh of {@code key}, so lookups arriving meanwhile wait for
+     * this tick's record instead of calling the provider again; {@code false} if one is running.
+     */
+    private boolean lead(String key, Map<String, CompletableFuture<WeatherRecord>> leading) {
+        CompletableFuture<WeatherRecord> refresh = new CompletableFuture<>();
+        coalescer.submit(key, () -> {
+            leading.put(key, refresh);
+            return refresh;
+        });
+        return leading.get(key) == refresh;
+    }
+
+    /**
+     * Resolves each key's record the way {@link WeatherService} saves a refresh: with write-behind
+     * on, a new instance based on the pending or last known record is queued; otherwise the rows
+     * are updated in one transaction, and a key whose row is gone gets a new one.
+     */
+    private List<WeatherRecord> save(Map<String, WeatherApiResponse> responses, Map<String, WeatherRecord> known) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (writeBehind.enabled()) {
+            List<WeatherRecord> queued = new ArrayList<>(responses.size());
+            responses.forEach((key, api) -> {
+                WeatherRecord base = writeBehind.pending(key).orElse(known.get(key));
+                WeatherRecord rec = new WeatherRecord();
+                rec.setId(base.getId());
+                rec.setProviderId(base.getProviderId());
+                rec.setLatitude(base.getLatitude());
+                rec.setLongitude(base.getLongitude());
+                Location loc = Location.ofKey(key);
+                WeatherService.apply(rec, key, loc.city(), loc.zip(), api, now);
+                writeBehind.enqueue(rec);
+                queued.add(rec);
+            });
+            return queued;
+        }
+        // same stripes as WeatherService's saves, so a user-triggered save of a key cannot interleave
+        return keyLocks.withLocks(responses.keySet(), () -> transactionTemplate.execute(status -> {
+            Map<String, WeatherRecord> rows = new HashMap<>();
+            repository.findAllByLocationKeyIn(responses.keySet()).forEach(r -> rows.put(r.getLocationKey(), r));
+            List<WeatherRecord> records = new ArrayList<>(responses.size());
+            responses.forEach((key, api) -> {
+                Location loc = Location.ofKey(key);
+                WeatherRecord rec = rows.get(key);
+                if (rec == null) {
+                    rec = new WeatherRecord();
+                    WeatherService.apply(rec, key, loc.city(), loc.zip(), api, now);
+                    records.add(repository.save(rec));
+                } else {
+                    WeatherService.apply(rec, key, loc.city(), loc.zip(), api, now);
+                    records.add(rec); // managed, flushed on commit as one batch of updates
+                }
+            });
+            return records;
+        }));
+    }
+
+    private static boolean isFresh(WeatherRecord rec, LocalDateTime dueBefore) {
+        return rec.getUpdatedAt() != null && rec.getUpdatedAt().isAfter(dueBefore);
+    }
+
+    private static Counter prewarmCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("weather.prewarm.refreshes")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
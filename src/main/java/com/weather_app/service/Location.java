@@ -0,0 +1,71 @@
+package com.weather_app.service;
+
+import java.util.Locale;
+
+/**
+ * A normalized lookup target: the {@code locationKey} used by the cache and the repository,
+ * plus the city, zip or coordinates that are sent upstream.
+ */
+public record Location(String key, String city, String zip, Double latitude, Double longitude) {
+
+    public Location(String key, String city, String zip) {
+        this(key, city, zip, null, null);
+    }
+
+    public static Location ofCity(String cityRaw) {
+        return city(normalizeCity(cityRaw));
+    }
+
+    public static Location ofZip(String zipRaw) {
+        return zip(normalizeZip(zipRaw));
+    }
+
+    /** Coordinates rounded to two decimals (about a kilometre), so nearby requests share a key. */
+    public static Location ofCoordinates(double latitude, double longitude) {
+        return coordinates(roundCoordinate(latitude), roundCoordinate(longitude));
+    }
+
+    static Location city(String normCity) {
+        return new Location("city:" + normCity, normCity, null);
+    }
+
+    static Location zip(String normZip) {
+        return new Location("zip:" + normZip, null, normZip);
+    }
+
+    static Location coordinates(double latitude, double longitude) {
+        return new Location("coord:" + latitude + "," + longitude, null, null, latitude, longitude);
+    }
+
+    /** Rebuilds the location from a key produced by {@link #city}, {@link #zip} or {@link #coordinates}. */
+    public static Location ofKey(String key) {
+        if (key.startsWith("city:")) return city(key.substring(5));
+        if (key.startsWith("zip:")) return zip(key.substring(4));
+        int comma = key.indexOf(',');
+        if (key.startsWith("coord:") && comma > 0) {
+            try {
+                return coordinates(Double.parseDouble(key.substring(6, comma)), Double.parseDouble(key.substring(comma + 1)));
+            } catch (NumberFormatException e) {
+                // falls through to the error below
+            }
+        }
+        throw new IllegalArgumentException("Not a location key: " + key);
+    }
+
+    /** {@code city}, {@code zip} or {@code coord}; used as a metric tag. */
+    public String type() {
+        return city != null ? "city" : zip != null ? "zip" : "coord";
+    }
+
+    public static String normalizeCity(String city) {
+        return city == null ? null : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String normalizeZip(String zip) {
+        return zip == null ? null : zip.trim(); // keep case as-is for zips
+    }
+
+    private static double roundCoordinate(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
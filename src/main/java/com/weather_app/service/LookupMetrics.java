@@ -0,0 +1,70 @@
+package com.weather_app.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for {@link WeatherService}. Tags are the lookup type and how it was answered, never the
+ * location itself, and all meters are registered up front so the hot path does no registry lookup.
+ */
+final class LookupMetrics {
+    enum Result { HIT, NEARBY_HIT, SHARED_HIT, DB_HIT, STALE, MISS, NOT_FOUND, FALLBACK, ERROR }
+
+    private final io.micrometer.core.instrument.Clock clock;
+    private final Map<Result, Timer> cityLookups = new EnumMap<>(Result.class);
+    private final Map<Result, Timer> zipLookups = new EnumMap<>(Result.class);
+    private final Map<Result, Timer> coordLookups = new EnumMap<>(Result.class);
+    private final Timer[] refreshes = new Timer[6]; // city/zip/coord x success/error
+
+    LookupMetrics(MeterRegistry registry) {
+        this.clock = registry.config().clock();
+        for (Result result : Result.values()) {
+            cityLookups.put(result, lookupTimer(registry, "city", result));
+            zipLookups.put(result, lookupTimer(registry, "zip", result));
+            coordLookups.put(result, lookupTimer(registry, "coord", result));
+        }
+        refreshes[0] = refreshTimer(registry, "city", "success");
+        refreshes[1] = refreshTimer(registry, "city", "error");
+        refreshes[2] = refreshTimer(registry, "zip", "success");
+        refreshes[3] = refreshTimer(registry, "zip", "error");
+        refreshes[4] = refreshTimer(registry, "coord", "success");
+        refreshes[5] = refreshTimer(registry, "coord", "error");
+    }
+
+    long start() {
+        return clock.monotonicTime();
+    }
+
+    void recordLookup(Location loc, Result result, long start) {
+        (loc.city() != null ? cityLookups : loc.zip() != null ? zipLookups : coordLookups).get(result)
+                .record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    void recordRefresh(Location loc, boolean success, long start) {
+        int index = (loc.city() != null ? 0 : loc.zip() != null ? 2 : 4) + (success ? 0 : 1);
+        refreshes[index].record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer lookupTimer(MeterRegistry registry, String type, Result result) {
+        return Timer.builder("weather.lookup")
+                .description("Single-location lookups by how they were answered")
+                .tag("type", type)
+                .tag("result", result.name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer refreshTimer(MeterRegistry registry, String type, String outcome) {
+        return Timer.builder("weather.refresh.duration")
+                .description("Upstream fetch plus save of one location")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
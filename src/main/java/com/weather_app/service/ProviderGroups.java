@@ -0,0 +1,39 @@
+package com.weather_app.service;
+
+import com.weather_app.model.dto.WeatherApiResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/** Splitting refreshes into bulk calls against the provider's {@code /group} endpoint. */
+final class ProviderGroups {
+
+    private ProviderGroups() {
+    }
+
+    static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+
+    /** One bulk call; completes with the responses keyed by city ID, unknown IDs are missing. */
+    static CompletableFuture<Map<Long, WeatherApiResponse>> fetch(WeatherProvider provider, List<Long> cityIds,
+                                                                  Executor blockingExecutor) {
+        return provider.fetchByIdsAsync(cityIds, blockingExecutor).thenApply(list -> {
+            Map<Long, WeatherApiResponse> byId = new HashMap<>();
+            for (WeatherApiResponse response : list) {
+                if (response.getCityId() != null) {
+                    byId.put(response.getCityId(), response);
+                }
+            }
+            return byId;
+        });
+    }
+}
@@ -1,27 +1,41 @@
 package com.weather_app.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.weather_app.config.WeatherApiProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.RateLimitedException;
+import com.weather_app.exception.WeatherApiException;
 import com.weather_app.model.dto.WeatherApiResponse;
-import org.springframework.http.ResponseEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
-public class WeatherApiClient {
+public class WeatherApiClient implements WeatherProvider {
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final WeatherJsonExtractor extractor;
     private final WeatherApiProperties props;
+    private final ApiCallMetrics metrics;
 
-    public WeatherApiClient(RestTemplate restTemplate, ObjectMapper objectMapper, WeatherApiProperties props) {
+    public WeatherApiClient(RestTemplate restTemplate, ObjectMapper objectMapper, WeatherApiProperties props,
+                            MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+        this.extractor = new WeatherJsonExtractor(objectMapper.getFactory());
         this.props = props;
+        this.metrics = new ApiCallMetrics(meterRegistry, "sync");
     }
 
+    @Override
     public WeatherApiResponse fetchByCity(String city) {
         String uri = UriComponentsBuilder.fromHttpUrl(props.getUrl())
                 .queryParam("q", city)
@@ -32,6 +46,7 @@ public class WeatherApiClient {
         return callAndMap(uri);
     }
 
+    @Override
     public WeatherApiResponse fetchByZip(String zip) {
         String uri = UriComponentsBuilder.fromHttpUrl(props.getUrl())
                 .queryParam("zip", zip)
@@ -42,45 +57,69 @@ public class WeatherApiClient {
         return callAndMap(uri);
     }
 
-    private WeatherApiResponse callAndMap(String uri) {
-        try {
-            ResponseEntity<String> response = restTemplate.getForEntity(uri, String.class);
-            JsonNode root = objectMapper.readTree(response.getBody());
+    @Override
+    public WeatherApiResponse fetchByCoordinates(double latitude, double longitude) {
+        String uri = UriComponentsBuilder.fromUriString(props.getUrl())
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("appid", props.getKey())
+                .queryParam("units", props.getUnits())
+                .toUriString();
 
-            Double temperature = optDouble(root.at("/main/temp"));
-            Integer humidity = optInt(root.at("/main/humidity"));
-            String description = optText(root.at("/weather/0/description"));
-            Double windSpeed = optDouble(root.at("/wind/speed"));
-            String city = optText(root.at("/name"));
+        return callAndMap(uri);
+    }
 
-            WeatherApiResponse dto = new WeatherApiResponse();
-            dto.setTemperature(temperature);
-            dto.setHumidity(humidity);
-            dto.setDescription(description);
-            dto.setWindSpeed(windSpeed);
-            dto.setCity(city);
+    @Override
+    public int groupSize() {
+        return props.resolveGroupUrl() == null ? 0 : props.getGroupSize();
+    }
 
-            return dto;
+    @Override
+    public List<WeatherApiResponse> fetchByIds(Collection<Long> cityIds) {
+        String uri = UriComponentsBuilder.fromUriString(props.resolveGroupUrl())
+                .queryParam("id", cityIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .queryParam("appid", props.getKey())
+                .queryParam("units", props.getUnits())
+                .toUriString();
 
-        } catch (HttpClientErrorException.Unauthorized e) {
-            throw new RuntimeException("API key is invalid or not activated yet (401).", e);
-        } catch (HttpClientErrorException.NotFound e) {
-            throw new RuntimeException("Location not found (404).", e);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch weather data.", e);
-        }
+        return callAndMap(uri, extractor::extractGroup);
     }
 
-    // small helpers to avoid NPEs
-    private String optText(JsonNode node) {
-        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asText();
+    private WeatherApiResponse callAndMap(String uri) {
+        return callAndMap(uri, extractor::extract);
+    }
+
+    private <T> T callAndMap(String uri, BodyReader<T> reader) {
+        long start = metrics.start();
+        try {
+            T response = exchange(uri, reader);
+            metrics.recordCall(start, null);
+            return response;
+        } catch (RuntimeException e) {
+            metrics.recordCall(start, e);
+            throw e;
+        }
     }
 
-    private Double optDouble(JsonNode node) {
-        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asDouble();
+    private <T> T exchange(String uri, BodyReader<T> reader) {
+        try {
+            // parse straight off the response stream instead of buffering the body into a String
+            return restTemplate.execute(uri, HttpMethod.GET,
+                    request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                    response -> metrics.timeMapping(() -> reader.read(response.getBody())));
+
+        } catch (HttpClientErrorException.Unauthorized e) {
+            throw new WeatherApiException("API key is invalid or not activated yet (401).", e);
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new LocationNotFoundException(e);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            throw new RateLimitedException(e);
+        } catch (Exception e) {
+            throw new WeatherApiException("Failed to fetch weather data.", e);
+        }
     }
 
-    private Integer optInt(JsonNode node) {
-        return (node == null || node.isMissingNode() || node.isNull()) ? null : node.asInt();
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
     }
 }
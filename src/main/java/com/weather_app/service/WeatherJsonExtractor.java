@@ -0,0 +1,211 @@
+package com.weather_app.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.weather_app.model.dto.WeatherApiResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for the OpenWeatherMap current-weather payload. Pulls only
+ * {@code main.temp}, {@code main.humidity}, {@code weather[0].description}, {@code wind.speed},
+ * {@code coord}, {@code name} and {@code id} straight from the token stream and skips everything else, so no
+ * intermediate {@code String} body or {@code JsonNode} tree is built. {@link #extractGroup} reads
+ * the {@code /group} payload, a {@code list} of the same objects.
+ */
+public class WeatherJsonExtractor {
+    private final JsonFactory jsonFactory;
+
+    public WeatherJsonExtractor(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public WeatherApiResponse extract(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return extract(parser);
+        }
+    }
+
+    public WeatherApiResponse extract(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return extract(parser);
+        }
+    }
+
+    public List<WeatherApiResponse> extractGroup(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return extractGroup(parser);
+        }
+    }
+
+    public List<WeatherApiResponse> extractGroup(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return extractGroup(parser);
+        }
+    }
+
+    private WeatherApiResponse extract(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        return readCurrent(p);
+    }
+
+    private List<WeatherApiResponse> extractGroup(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        List<WeatherApiResponse> list = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("list".equals(field) && value == JsonToken.START_ARRAY) {
+                JsonToken element;
+                while ((element = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (element == JsonToken.START_OBJECT) {
+                        list.add(readCurrent(p));
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return list;
+    }
+
+    // the parser is positioned on the START_OBJECT of one current-weather object
+    private WeatherApiResponse readCurrent(JsonParser p) throws IOException {
+        WeatherApiResponse dto = new WeatherApiResponse();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "main" -> readMain(p, value, dto);
+                case "wind" -> readWind(p, value, dto);
+                case "weather" -> readWeather(p, value, dto);
+                case "coord" -> readCoord(p, value, dto);
+                case "name" -> dto.setCity(optText(p, value));
+                case "id" -> dto.setCityId(optLong(p, value));
+                default -> p.skipChildren();
+            }
+        }
+        return dto;
+    }
+
+    private void readMain(JsonParser p, JsonToken start, WeatherApiResponse dto) throws IOException {
+        if (start != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "temp" -> dto.setTemperature(optDouble(p, value));
+                case "humidity" -> dto.setHumidity(optInt(p, value));
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readWind(JsonParser p, JsonToken start, WeatherApiResponse dto) throws IOException {
+        if (start != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("speed".equals(field)) {
+                dto.setWindSpeed(optDouble(p, value));
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readCoord(JsonParser p, JsonToken start, WeatherApiResponse dto) throws IOException {
+        if (start != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "lat" -> dto.setLatitude(optDouble(p, value));
+                case "lon" -> dto.setLongitude(optDouble(p, value));
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // only the first element of the "weather" array carries the description we keep
+    private void readWeather(JsonParser p, JsonToken start, WeatherApiResponse dto) throws IOException {
+        if (start != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        boolean first = true;
+        JsonToken element;
+        while ((element = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (first && element == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    JsonToken value = p.nextToken();
+                    if ("description".equals(field)) {
+                        dto.setDescription(optText(p, value));
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+            first = false;
+        }
+    }
+
+    // same leniency as JsonNode.asText/asDouble/asInt: null stays null, scalars are coerced
+    private static String optText(JsonParser p, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return "";
+        }
+        return p.getValueAsString();
+    }
+
+    private static Double optDouble(JsonParser p, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return 0.0;
+        }
+        return p.getValueAsDouble();
+    }
+
+    private static Long optLong(JsonParser p, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return 0L;
+        }
+        return p.getValueAsLong();
+    }
+
+    private static Integer optInt(JsonParser p, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return 0;
+        }
+        return p.getValueAsInt();
+    }
+}
@@ -0,0 +1,54 @@
+package com.weather_app.service;
+
+import com.weather_app.model.dto.WeatherApiResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Upstream weather lookup. {@link WeatherApiClient} is the blocking implementation,
+ * {@link AsyncWeatherApiClient} the non-blocking one selected by {@code weather.api.client=async}.
+ */
+public interface WeatherProvider {
+    WeatherApiResponse fetchByCity(String city);
+
+    WeatherApiResponse fetchByZip(String zip);
+
+    /** Weather at the provider's observation nearest to the coordinates, which the response carries. */
+    WeatherApiResponse fetchByCoordinates(double latitude, double longitude);
+
+    /** Asynchronous variant; blocking implementations run the call on {@code blockingExecutor}. */
+    default CompletableFuture<WeatherApiResponse> fetchByCityAsync(String city, Executor blockingExecutor) {
+        return CompletableFuture.supplyAsync(() -> fetchByCity(city), blockingExecutor);
+    }
+
+    default CompletableFuture<WeatherApiResponse> fetchByZipAsync(String zip, Executor blockingExecutor) {
+        return CompletableFuture.supplyAsync(() -> fetchByZip(zip), blockingExecutor);
+    }
+
+    default CompletableFuture<WeatherApiResponse> fetchByCoordinatesAsync(double latitude, double longitude,
+                                                                          Executor blockingExecutor) {
+        return CompletableFuture.supplyAsync(() -> fetchByCoordinates(latitude, longitude), blockingExecutor);
+    }
+
+    /** Most provider city IDs {@link #fetchByIds} takes in one call; 0 when bulk lookups are not supported. */
+    default int groupSize() {
+        return 0;
+    }
+
+    /**
+     * Current weather for up to {@link #groupSize} provider city IDs in a single call. IDs the
+     * provider does not know are left out of the result; each response carries its {@code cityId}.
+     * A provider without bulk lookups knows none of them.
+     */
+    default List<WeatherApiResponse> fetchByIds(Collection<Long> cityIds) {
+        return List.of();
+    }
+
+    default CompletableFuture<List<WeatherApiResponse>> fetchByIdsAsync(Collection<Long> cityIds,
+                                                                        Executor blockingExecutor) {
+        return CompletableFuture.supplyAsync(() -> fetchByIds(cityIds), blockingExecutor);
+    }
+}
@@ -1,99 +1,601 @@
 package com.weather_app.service;
 
+import com.weather_app.cache.HotKeyTracker;
+import com.weather_app.cache.NegativeLookupCache;
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.SharedWeatherCache;
+import com.weather_app.cache.StripedLocks;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherSharedCacheProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.UpstreamUnavailableException;
+import com.weather_app.history.HistoryResolution;
+import com.weather_app.history.ObservationHistory;
 import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.BatchWeatherItem;
 import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.model.dto.WeatherHistoryPoint;
 import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.repository.WeatherRecordWriteBehind;
+import com.weather_app.stream.WeatherUpdateHub;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class WeatherService {
     private final WeatherRecordRepository repository;
-    private final WeatherApiClient apiClient;
+    private final WeatherProvider apiClient;
+    private final WeatherRecordCache cache;
+    private final SharedWeatherCache shared;
+    private final RefreshCoalescer coalescer;
+    private final StripedLocks keyLocks;
+    private final HotKeyTracker hotKeys;
+    private final NegativeLookupCache notFound;
+    private final WeatherRecordWriteBehind writeBehind;
+    private final ObservationHistory history;
+    private final WeatherUpdateHub updates;
+    private final Executor refreshExecutor;
+    private final Executor fanOutExecutor;
+    private final TransactionTemplate transactionTemplate;
     private final Duration ttl;
+    private final Duration refreshAheadAfter;
+    private final Duration maxStale;
+    private final boolean staleWhileRevalidate;
+    private final double geoRadiusKm;
+    private final Duration lockWait;
+    private final Duration pollInterval;
     private final Clock clock;
+    private final LookupMetrics metrics;
+    private final CityAliasIndex aliases;
+    private final LongAdder fallbacks = new LongAdder();
 
     public WeatherService(WeatherRecordRepository repository,
-                          WeatherApiClient apiClient,
-                          @Value("${weather.cache.ttl-minutes:15}") long ttlMinutes,
+                          WeatherProvider apiClient,
+                          WeatherRecordCache cache,
+                          SharedWeatherCache shared,
+                          RefreshCoalescer coalescer,
+                          StripedLocks keyLocks,
+                          HotKeyTracker hotKeys,
+                          NegativeLookupCache notFound,
+                          WeatherRecordWriteBehind writeBehind,
+                          ObservationHistory history,
+                          WeatherUpdateHub updates,
+                          Executor refreshExecutor,
+                          Executor fanOutExecutor,
+                          PlatformTransactionManager transactionManager,
+                          WeatherCacheProperties cacheProps,
+                          WeatherSharedCacheProperties sharedProps,
+                          MeterRegistry meterRegistry,
                           Clock clock) {
+        if (cacheProps.getRefreshAheadRatio() < 0 || cacheProps.getRefreshAheadRatio() >= 1) {
+            throw new IllegalArgumentException("weather.cache.refresh-ahead-ratio must be in [0, 1)");
+        }
+        if (cacheProps.getGeoRadiusKm() < 0) {
+            throw new IllegalArgumentException("weather.cache.geo-radius-km must not be negative");
+        }
         this.repository = repository;
         this.apiClient = apiClient;
-        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.cache = cache;
+        this.shared = shared;
+        this.coalescer = coalescer;
+        this.keyLocks = keyLocks;
+        this.hotKeys = hotKeys;
+        this.notFound = notFound;
+        this.writeBehind = writeBehind;
+        this.history = history;
+        this.updates = updates;
+        this.refreshExecutor = refreshExecutor;
+        this.fanOutExecutor = fanOutExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMinutes(cacheProps.getTtlMinutes());
+        this.refreshAheadAfter = cacheProps.getRefreshAheadRatio() > 0
+                ? Duration.ofMillis((long) (ttl.toMillis() * cacheProps.getRefreshAheadRatio()))
+                : ttl;
+        this.maxStale = Duration.ofMinutes(cacheProps.getMaxStaleMinutes());
+        this.staleWhileRevalidate = cacheProps.isStaleWhileRevalidate();
+        this.geoRadiusKm = cacheProps.getGeoRadiusKm();
+        this.lockWait = sharedProps.getLockWait();
+        this.pollInterval = sharedProps.getPollInterval();
         this.clock = clock;
+        this.metrics = new LookupMetrics(meterRegistry);
+        this.aliases = new CityAliasIndex(cacheProps.getCityAliasMaxSize(), cacheProps.getCityAliases(), meterRegistry);
+        shared.onInvalidation(this::onPeerUpdate);
     }
 
     @Autowired
     public WeatherService(WeatherRecordRepository repository,
-                          WeatherApiClient apiClient,
-                          @Value("${weather.cache.ttl-minutes:15}") long ttlMinutes) {
-        this(repository, apiClient, ttlMinutes, Clock.systemUTC());
+                          WeatherProvider apiClient,
+                          WeatherRecordCache cache,
+                          SharedWeatherCache shared,
+                          RefreshCoalescer coalescer,
+                          StripedLocks keyLocks,
+                          HotKeyTracker hotKeys,
+                          NegativeLookupCache notFound,
+                          WeatherRecordWriteBehind writeBehind,
+                          ObservationHistory history,
+                          WeatherUpdateHub updates,
+                          @Qualifier("weatherRefreshExecutor") Executor refreshExecutor,
+                          @Qualifier("weatherFanOutExecutor") Executor fanOutExecutor,
+                          PlatformTransactionManager transactionManager,
+                          WeatherCacheProperties cacheProps,
+                          WeatherSharedCacheProperties sharedProps,
+                          MeterRegistry meterRegistry) {
+        this(repository, apiClient, cache, shared, coalescer, keyLocks, hotKeys, notFound, writeBehind, history, updates,
+                refreshExecutor, fanOutExecutor, transactionManager, cacheProps, sharedProps, meterRegistry,
+                Clock.systemUTC());
     }
 
-    @Transactional
+    // Not @Transactional on purpose: a near-cache hit must not open a transaction, and no
+    // connection may be held across the provider call; the save is its own short transaction.
     public WeatherRecord getByCity(String cityRaw) {
-        String normCity = normalizeCity(cityRaw);
-        String key = "city:" + normCity;
+        return lookup(resolveCity(cityRaw));
+    }
 
-        var existing = repository.findByLocationKey(key);
-        if (existing.isPresent() && !isStale(existing.get())) {
-            return existing.get();
-        }
-        return refreshFromApiAndSave(key, normCity, null);
+    /**
+     * The location a city query is stored under: another spelling of a city seen before (or
+     * configured in {@code weather.cache.city-aliases}) resolves to that city's key.
+     */
+    public Location resolveCity(String cityRaw) {
+        return aliases.resolve(Location.ofCity(cityRaw));
     }
 
-    @Transactional
     public WeatherRecord getByZip(String zipRaw) {
-        String normZip = normalizeZip(zipRaw);
-        String key = "zip:" + normZip;
+        return lookup(Location.ofZip(zipRaw));
+    }
 
-        var existing = repository.findByLocationKey(key);
-        if (existing.isPresent() && !isStale(existing.get())) {
-            return existing.get();
+    /**
+     * Weather at a coordinate. A fresh cached observation within {@code weather.cache.geo-radius-km}
+     * answers it without an upstream call; otherwise the coordinates, rounded to about a kilometre,
+     * go through the same tiers as a city and are fetched by coordinates on a miss.
+     */
+    public WeatherRecord getByCoordinates(double latitude, double longitude) {
+        Location loc = Location.ofCoordinates(latitude, longitude);
+        if (geoRadiusKm > 0) {
+            long start = metrics.start();
+            Optional<WeatherRecord> nearby = cache.nearest(latitude, longitude, geoRadiusKm, r -> isYoungerThan(r, ttl));
+            if (nearby.isPresent()) {
+                WeatherRecord rec = nearby.get();
+                hotKeys.record(rec.getLocationKey());
+                metrics.recordLookup(loc, LookupMetrics.Result.NEARBY_HIT, start);
+                // a fresh record is always servable, at most it also schedules its own refresh
+                return serveOrSchedule(rec, Location.ofKey(rec.getLocationKey()));
+            }
         }
-        return refreshFromApiAndSave(key, null, normZip);
+        return lookup(loc);
     }
+
+    /** Observations recorded for a location in {@code [from, to)}, answered from the in-memory rollups. */
+    public List<WeatherHistoryPoint> getHistoryByCity(String cityRaw, LocalDateTime from, LocalDateTime to,
+                                                      HistoryResolution resolution) {
+        return history.query(resolveCity(cityRaw).key(), from, to, resolution);
+    }
+
+    public List<WeatherHistoryPoint> getHistoryByZip(String zipRaw, LocalDateTime from, LocalDateTime to,
+                                                     HistoryResolution resolution) {
+        return history.query(Location.ofZip(zipRaw).key(), from, to, resolution);
+    }
+
+    /**
+     * Resolves many locations at once: near-cache hits first, then one read of the shared tier and
+     * a single repository query for the rest, and the remaining misses are refreshed in parallel
+     * (on the fan-out executor, or without holding a thread when the non-blocking client is
+     * configured). Misses whose provider city ID is known are refreshed together, up to
+     * {@link WeatherProvider#groupSize} per call. A failing location is reported on its own item
+     * and does not fail the batch.
+     */
+    public List<BatchWeatherItem> getBatch(List<String> cities, List<String> zips) {
+        List<BatchWeatherItem> items = new ArrayList<>();
+        List<Location> itemLocations = new ArrayList<>();
+        for (String city : nullToEmpty(cities)) {
+            String norm = Location.normalizeCity(city);
+            items.add(BatchWeatherItem.forCity(city));
+            itemLocations.add(norm == null || norm.isEmpty() ? null : aliases.resolve(Location.city(norm)));
+        }
+        for (String zip : nullToEmpty(zips)) {
+            String norm = Location.normalizeZip(zip);
+            items.add(BatchWeatherItem.forZip(zip));
+            itemLocations.add(norm == null || norm.isEmpty() ? null : Location.zip(norm));
+        }
+        Map<String, Location> unique = new LinkedHashMap<>();
+        for (Location loc : itemLocations) {
+            if (loc != null) {
+                hotKeys.record(loc.key());
+                unique.putIfAbsent(loc.key(), loc);
+            }
+        }
+
+        Map<String, WeatherRecord> resolved = new HashMap<>();
+        Map<String, WeatherRecord> lastKnown = new HashMap<>();
+        List<String> notCached = new ArrayList<>();
+        for (Location loc : unique.values()) {
+            WeatherRecord cached = cache.get(loc.key()).or(() -> writeBehind.pending(loc.key())).orElse(null);
+            WeatherRecord served = cached != null ? serveOrSchedule(cached, loc) : null;
+            if (served != null) {
+                resolved.put(loc.key(), served);
+            } else if (cached != null) {
+                lastKnown.put(loc.key(), cached);
+            } else {
+                notCached.add(loc.key());
+            }
+        }
+        if (!notCached.isEmpty()) {
+            shared.getAll(notCached).forEach((key, rec) -> {
+                lastKnown.put(key, rec);
+                WeatherRecord served = serveOrSchedule(rec, unique.get(key));
+                if (served != null) {
+                    cache.put(served);
+                    resolved.put(key, served);
+                }
+            });
+            notCached.removeAll(lastKnown.keySet());
+        }
+        if (!notCached.isEmpty()) {
+            for (WeatherRecord rec : repository.findAllByLocationKeyIn(notCached)) {
+                lastKnown.put(rec.getLocationKey(), rec);
+                WeatherRecord served = serveOrSchedule(rec, unique.get(rec.getLocationKey()));
+                if (served != null) {
+                    cache.put(served);
+                    resolved.put(rec.getLocationKey(), served);
+                }
+            }
+        }
+
+        // misses with a known provider city ID share /group calls, the rest are fetched one by one
+        int groupSize = -1;
+        Map<String, CompletableFuture<WeatherRecord>> refreshes = new HashMap<>();
+        Map<Long, CompletableFuture<WeatherApiResponse>> grouped = new LinkedHashMap<>();
+        for (Location loc : unique.values()) {
+            if (resolved.containsKey(loc.key())) continue;
+            WeatherRecord known = lastKnown.get(loc.key());
+            if (known != null && known.getProviderId() != null && groupSize < 0) {
+                groupSize = apiClient.groupSize();
+            }
+            if (known == null && notFound.recentlyNotFound(loc.key())) {
+                refreshes.put(loc.key(), CompletableFuture.failedFuture(new LocationNotFoundException(null)));
+                continue;
+            }
+            Long providerId = known != null && groupSize > 0 ? known.getProviderId() : null;
+            refreshes.put(loc.key(), coalescer.submit(loc.key(), () -> providerId == null
+                    ? refreshAsyncUnlessFresh(loc)
+                    : refreshInGroupUnlessFresh(loc, providerId, grouped))
+                    .whenComplete((rec, error) -> rememberIfNotFound(loc, error)));
+        }
+        fetchGroups(grouped, groupSize);
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchWeatherItem item = items.get(i);
+            Location loc = itemLocations.get(i);
+            if (loc == null) {
+                item.setError("Location must not be blank.");
+            } else if (resolved.containsKey(loc.key())) {
+                item.setWeather(resolved.get(loc.key()));
+            } else {
+                try {
+                    item.setWeather(refreshes.get(loc.key()).join());
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof UpstreamUnavailableException && lastKnown.containsKey(loc.key())) {
+                        fallbacks.increment();
+                        item.setWeather(lastKnown.get(loc.key()));
+                    } else {
+                        item.setError(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * How much longer {@code rec} counts as fresh, zero once it is past the TTL (a stale record
+     * served while it is revalidated must not be cached downstream).
+     */
+    public Duration remainingTtl(WeatherRecord rec) {
+        if (rec.getUpdatedAt() == null) return Duration.ZERO;
+        Duration remaining = Duration.between(LocalDateTime.now(clock), rec.getUpdatedAt().plus(ttl));
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    /** Lookups answered with a last known record because the provider could not be called. */
+    public long fallbackCount() {
+        return fallbacks.sum();
+    }
+
     // ----- helpers -----
 
-    private WeatherRecord refreshFromApiAndSave(String locationKey, String normCity, String normZip) {
-        WeatherApiResponse api = (normCity != null)
-                ? apiClient.fetchByCity(normCity)
-                : apiClient.fetchByZip(normZip);
+    private WeatherRecord lookup(Location loc) {
+        long start = metrics.start();
+        hotKeys.record(loc.key());
+        LookupMetrics.Result hit = LookupMetrics.Result.HIT;
+        WeatherRecord lastKnown = cache.get(loc.key()).orElse(null);
+        if (lastKnown == null) {
+            hit = LookupMetrics.Result.SHARED_HIT;
+            lastKnown = shared.get(loc.key()).orElse(null);
+        }
+        if (lastKnown == null) {
+            hit = LookupMetrics.Result.DB_HIT;
+            lastKnown = writeBehind.pending(loc.key())
+                    .or(() -> repository.findByLocationKey(loc.key()))
+                    .orElse(null);
+        }
+        if (lastKnown != null) {
+            WeatherRecord served = serveOrSchedule(lastKnown, loc);
+            if (served != null) {
+                if (hit != LookupMetrics.Result.HIT) {
+                    cache.put(served);
+                }
+                metrics.recordLookup(loc, isYoungerThan(served, ttl) ? hit : LookupMetrics.Result.STALE, start);
+                return served;
+            }
+        }
+        if (lastKnown == null && notFound.recentlyNotFound(loc.key())) {
+            metrics.recordLookup(loc, LookupMetrics.Result.NOT_FOUND, start);
+            throw new LocationNotFoundException(null);
+        }
+        try {
+            WeatherRecord refreshed = coalescer.run(loc.key(), () -> refreshUnlessFresh(loc));
+            metrics.recordLookup(loc, LookupMetrics.Result.MISS, start);
+            return refreshed;
+        } catch (UpstreamUnavailableException e) {
+            // when the provider is shut off for us, an old record beats an error
+            if (lastKnown != null) {
+                fallbacks.increment();
+                metrics.recordLookup(loc, LookupMetrics.Result.FALLBACK, start);
+                return lastKnown;
+            }
+            metrics.recordLookup(loc, LookupMetrics.Result.ERROR, start);
+            throw e;
+        } catch (RuntimeException e) {
+            rememberIfNotFound(loc, e);
+            metrics.recordLookup(loc, LookupMetrics.Result.ERROR, start);
+            throw e;
+        }
+    }
+
+    private void rememberIfNotFound(Location loc, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof LocationNotFoundException) {
+            notFound.add(loc.key());
+        }
+    }
+
+    /**
+     * Returns the record if it may be served as-is, scheduling a background refresh when it is
+     * inside the refresh-ahead window or stale but still within max staleness. Returns
+     * {@code null} when the caller has to block on a refresh.
+     */
+    private WeatherRecord serveOrSchedule(WeatherRecord rec, Location loc) {
+        if (isYoungerThan(rec, refreshAheadAfter)) {
+            return rec;
+        }
+        if (isYoungerThan(rec, ttl) || (staleWhileRevalidate && isYoungerThan(rec, ttl.plus(maxStale)))) {
+            coalescer.runAsync(loc.key(), refreshExecutor, () -> refreshUnlessFresh(loc));
+            return rec;
+        }
+        return null;
+    }
+
+    private WeatherRecord refreshUnlessFresh(Location loc) {
+        // another caller may have finished the refresh between our read and now
+        return cache.peek(loc.key())
+                .filter(r -> isYoungerThan(r, refreshAheadAfter))
+                .orElseGet(() -> refreshFromApiAndSave(loc));
+    }
+
+    private CompletableFuture<WeatherRecord> refreshAsyncUnlessFresh(Location loc) {
+        var fresh = cache.peek(loc.key()).filter(r -> isYoungerThan(r, refreshAheadAfter));
+        if (fresh.isPresent()) {
+            return CompletableFuture.completedFuture(fresh.get());
+        }
+        Optional<SharedWeatherCache.RefreshLock> lock = shared.tryLock(loc.key());
+        if (lock.isEmpty()) {
+            // another instance is refreshing it; wait for its result off the caller's thread
+            return CompletableFuture.supplyAsync(() -> refreshFromApiAndSave(loc), fanOutExecutor);
+        }
+        long start = metrics.start();
+        return saveAsync(loc, fetchAsync(loc), start).whenComplete((rec, error) -> lock.get().close());
+    }
+
+    /**
+     * Like {@link #refreshAsyncUnlessFresh}, but takes the response from a {@code /group} call
+     * issued by {@link #fetchGroups}; a location the group call did not return is fetched on its own.
+     */
+    private CompletableFuture<WeatherRecord> refreshInGroupUnlessFresh(
+            Location loc, Long providerId, Map<Long, CompletableFuture<WeatherApiResponse>> grouped) {
+        var fresh = cache.peek(loc.key()).filter(r -> isYoungerThan(r, refreshAheadAfter));
+        if (fresh.isPresent()) {
+            return CompletableFuture.completedFuture(fresh.get());
+        }
+        Optional<SharedWeatherCache.RefreshLock> lock = shared.tryLock(loc.key());
+        if (lock.isEmpty()) {
+            return CompletableFuture.supplyAsync(() -> refreshFromApiAndSave(loc), fanOutExecutor);
+        }
+        long start = metrics.start();
+        CompletableFuture<WeatherApiResponse> group = grouped.computeIfAbsent(providerId, id -> new CompletableFuture<>());
+        CompletableFuture<WeatherApiResponse> api =
+                group.thenCompose(res -> res != null ? CompletableFuture.completedFuture(res) : fetchAsync(loc));
+        return saveAsync(loc, api, start).whenComplete((rec, error) -> lock.get().close());
+    }
+
+    private void fetchGroups(Map<Long, CompletableFuture<WeatherApiResponse>> grouped, int groupSize) {
+        if (grouped.isEmpty()) return;
+        for (List<Long> ids : ProviderGroups.chunks(new ArrayList<>(grouped.keySet()), groupSize)) {
+            ProviderGroups.fetch(apiClient, ids, fanOutExecutor).whenComplete((byId, error) -> {
+                for (Long id : ids) {
+                    if (error != null) {
+                        grouped.get(id).completeExceptionally(
+                                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    } else {
+                        grouped.get(id).complete(byId.get(id));
+                    }
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<WeatherApiResponse> fetchAsync(Location loc) {
+        return fetchAsync(apiClient, loc, fanOutExecutor);
+    }
 
-        WeatherRecord rec = repository.findByLocationKey(locationKey)
-                .orElseGet(WeatherRecord::new);
+    static CompletableFuture<WeatherApiResponse> fetchAsync(WeatherProvider provider, Location loc, Executor executor) {
+        if (loc.city() != null) return provider.fetchByCityAsync(loc.city(), executor);
+        if (loc.zip() != null) return provider.fetchByZipAsync(loc.zip(), executor);
+        return provider.fetchByCoordinatesAsync(loc.latitude(), loc.longitude(), executor);
+    }
 
+    private static WeatherApiResponse fetch(WeatherProvider provider, Location loc) {
+        if (loc.city() != null) return provider.fetchByCity(loc.city());
+        if (loc.zip() != null) return provider.fetchByZip(loc.zip());
+        return provider.fetchByCoordinates(loc.latitude(), loc.longitude());
+    }
+
+    private CompletableFuture<WeatherRecord> saveAsync(Location loc, CompletableFuture<WeatherApiResponse> api, long start) {
+        // persisting is blocking JDBC work, keep it off the HTTP client's threads
+        return api.thenApplyAsync(res -> saveRefreshed(loc.key(), loc.city(), loc.zip(), res), fanOutExecutor)
+                .whenComplete((rec, error) -> metrics.recordRefresh(loc, error == null, start));
+    }
+
+    /**
+     * Fetches and saves under the cross-instance refresh lock. When another instance holds it we
+     * wait for its record to show up in the shared tier, and only call the provider ourselves if
+     * it does not within the lock wait (the holder may have died or be stuck on a slow call).
+     */
+    private WeatherRecord refreshFromApiAndSave(Location loc) {
+        Optional<SharedWeatherCache.RefreshLock> lock = shared.tryLock(loc.key());
+        // with the lock held, re-check: the previous holder may have stored a record just before
+        Optional<WeatherRecord> peer = lock.isEmpty()
+                ? awaitPeerRefresh(loc.key())
+                : shared.get(loc.key()).filter(r -> isYoungerThan(r, refreshAheadAfter));
+        if (peer.isPresent()) {
+            lock.ifPresent(SharedWeatherCache.RefreshLock::close);
+            cache.put(peer.get());
+            return peer.get();
+        }
+        long start = metrics.start();
+        boolean success = false;
+        try {
+            WeatherApiResponse api = fetch(apiClient, loc);
+            WeatherRecord saved = saveRefreshed(loc.key(), loc.city(), loc.zip(), api);
+            success = true;
+            return saved;
+        } finally {
+            lock.ifPresent(SharedWeatherCache.RefreshLock::close);
+            metrics.recordRefresh(loc, success, start);
+        }
+    }
+
+    private Optional<WeatherRecord> awaitPeerRefresh(String locationKey) {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        do {
+            Optional<WeatherRecord> rec = shared.get(locationKey).filter(r -> isYoungerThan(r, refreshAheadAfter));
+            if (rec.isPresent()) {
+                return rec;
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+        } while (System.nanoTime() < deadline);
+        return Optional.empty();
+    }
+
+    /**
+     * Another instance stored a newer record: drop our copy so the next lookup reads the shared
+     * one, and push it to our stream subscribers, who would otherwise not see it.
+     */
+    private void onPeerUpdate(String locationKey) {
+        cache.invalidate(locationKey);
+        if (updates.isSubscribed(locationKey)) {
+            shared.get(locationKey).ifPresent(rec -> {
+                cache.put(rec);
+                updates.publish(rec);
+            });
+        }
+    }
+
+    private WeatherRecord saveRefreshed(String locationKey, String normCity, String normZip, WeatherApiResponse api) {
+        if (normCity != null) {
+            aliases.learn(Location.city(normCity), api.getCityId(), api.getCity());
+        }
+        if (writeBehind.enabled()) {
+            // a new instance: the cached one may be read concurrently, and the upsert needs no prior read
+            WeatherRecord rec = new WeatherRecord();
+            cache.peek(locationKey).ifPresent(cached -> {
+                rec.setId(cached.getId());
+                rec.setProviderId(cached.getProviderId());
+                rec.setLatitude(cached.getLatitude());
+                rec.setLongitude(cached.getLongitude());
+            });
+            apply(rec, locationKey, normCity, normZip, api, LocalDateTime.now(clock));
+            cache.put(rec);
+            writeBehind.enqueue(rec);
+            shared.put(rec);
+            history.record(rec);
+            updates.publish(rec);
+            return rec;
+        }
+        // the provider has answered already: the transaction covers only the read-modify-write of
+        // the row, and the key's stripe keeps it from interleaving with another save of the location
+        WeatherRecord saved = keyLocks.withLock(locationKey, () -> transactionTemplate.execute(status -> {
+            WeatherRecord rec = repository.findByLocationKey(locationKey)
+                    .orElseGet(WeatherRecord::new);
+            apply(rec, locationKey, normCity, normZip, api, LocalDateTime.now(clock));
+            return repository.save(rec);
+        }));
+        cache.put(saved);
+        shared.put(saved);
+        history.record(saved);
+        updates.publish(saved);
+        return saved;
+    }
+
+    static void apply(WeatherRecord rec, String locationKey, String normCity, String normZip,
+                      WeatherApiResponse api, LocalDateTime updatedAt) {
         rec.setLocationKey(locationKey);
         // Prefer provider's proper city name if present
         rec.setCity(api.getCity() != null ? api.getCity() : normCity);
         rec.setZip(normZip);
+        if (api.getCityId() != null) {
+            rec.setProviderId(api.getCityId());
+        }
+        if (api.getLatitude() != null && api.getLongitude() != null) {
+            rec.setLatitude(api.getLatitude());
+            rec.setLongitude(api.getLongitude());
+        }
         rec.setTemperature(api.getTemperature());
         rec.setDescription(api.getDescription());
         rec.setHumidity(api.getHumidity());
         rec.setWindSpeed(api.getWindSpeed());
-        rec.setUpdatedAt(LocalDateTime.now(clock));
-
-        return repository.save(rec);
+        rec.setUpdatedAt(updatedAt);
     }
 
-    private boolean isStale(WeatherRecord r) {
-        if (r.getUpdatedAt() == null) return true;
+    private boolean isYoungerThan(WeatherRecord r, Duration age) {
+        if (r.getUpdatedAt() == null) return false;
         LocalDateTime now = LocalDateTime.now(clock);
-        return r.getUpdatedAt().plus(ttl).isBefore(now);
-    }
-
-    private String normalizeCity(String city) {
-        return city == null ? null : city.trim().toLowerCase(Locale.ROOT);
+        return !r.getUpdatedAt().plus(age).isBefore(now);
     }
 
-    private String normalizeZip(String zip) {
-        return zip == null ? null : zip.trim(); // keep case as-is for zips
+    private static List<String> nullToEmpty(List<String> list) {
+        return list == null ? List.of() : list;
     }
 }
@@ -0,0 +1,74 @@
+package com.weather_app.stream;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.service.Location;
+import com.weather_app.service.WeatherService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps subscribed locations fresh on one schedule, however many clients watch them: every
+ * {@code refresh-interval} the union of subscribed locations goes through
+ * {@link WeatherService#getBatch}, which refreshes only the stale ones (coalesced, in bulk where
+ * the provider city ID is known). The refreshes reach subscribers through the {@link WeatherUpdateHub}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "weather.stream", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherStreamRefresher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(WeatherStreamRefresher.class);
+
+    private final WeatherUpdateHub hub;
+    private final WeatherService service;
+    private final ScheduledExecutorService scheduler;
+
+    public WeatherStreamRefresher(WeatherUpdateHub hub, WeatherService service, WeatherStreamProperties props) {
+        this.hub = hub;
+        this.service = service;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "weather-stream-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = props.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void refresh() {
+        Set<String> keys = hub.subscribedKeys();
+        if (keys.isEmpty()) return;
+        List<String> cities = new ArrayList<>();
+        List<String> zips = new ArrayList<>();
+        for (String key : keys) {
+            Location loc = Location.ofKey(key);
+            if (loc.city() != null) {
+                cities.add(loc.city());
+            } else if (loc.zip() != null) {
+                zips.add(loc.zip());
+            }
+        }
+        service.getBatch(cities, zips);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Refreshing subscribed locations failed", e);
+        }
+    }
+}
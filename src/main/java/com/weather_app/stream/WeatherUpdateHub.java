@@ -0,0 +1,195 @@
+package com.weather_app.stream;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of refreshed records to SSE subscribers. Publishing never blocks the refreshing
+ * thread: each subscriber has a bounded queue drained by one task at a time on the stream
+ * executor, and a subscriber whose queue is full is too slow to keep up and is disconnected.
+ */
+@Component
+public class WeatherUpdateHub implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(WeatherUpdateHub.class);
+
+    private final Map<String, Set<Subscriber>> byKey = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger slots = new AtomicInteger();
+    private final Executor sender;
+    private final int maxSubscribers;
+    private final int queueCapacity;
+
+    private final Counter sent;
+    private final Counter evicted;
+
+    public WeatherUpdateHub(WeatherStreamProperties props,
+                            @Qualifier("weatherStreamExecutor") Executor sender,
+                            MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.maxSubscribers = props.getMaxSubscribers();
+        this.queueCapacity = props.getQueueCapacity();
+        this.sent = Counter.builder("weather.stream.events")
+                .description("Updates written to stream subscribers")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("weather.stream.evictions")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+        Gauge.builder("weather.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        Gauge.builder("weather.stream.locations", byKey, Map::size)
+                .description("Distinct locations with at least one subscriber")
+                .register(meterRegistry);
+    }
+
+    /** Registers {@code emitter} for updates of {@code locationKeys}; empty when the hub is full. */
+    public Optional<Subscription> subscribe(Set<String> locationKeys, SseEmitter emitter) {
+        if (slots.incrementAndGet() > maxSubscribers) {
+            slots.decrementAndGet();
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(Set.copyOf(locationKeys), emitter);
+        subscribers.add(subscriber);
+        for (String key : subscriber.keys) {
+            byKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return Optional.of(subscriber);
+    }
+
+    public void publish(WeatherRecord rec) {
+        Set<Subscriber> targets = byKey.get(rec.getLocationKey());
+        if (targets == null) return;
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(rec);
+        }
+    }
+
+    /** Locations with at least one subscriber. */
+    public Set<String> subscribedKeys() {
+        return Set.copyOf(byKey.keySet());
+    }
+
+    public boolean isSubscribed(String locationKey) {
+        return byKey.containsKey(locationKey);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.forEach(s -> s.close(false));
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) return;
+        slots.decrementAndGet();
+        for (String key : subscriber.keys) {
+            byKey.computeIfPresent(key, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    public interface Subscription {
+        /** Queues {@code rec} for this subscriber only, e.g. the current state right after subscribing. */
+        void offer(WeatherRecord rec);
+    }
+
+    private final class Subscriber implements Subscription {
+        private final Set<String> keys;
+        private final SseEmitter emitter;
+        private final BlockingQueue<WeatherRecord> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Set<String> keys, SseEmitter emitter) {
+            this.keys = keys;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void offer(WeatherRecord rec) {
+            if (closed) return;
+            if (!queue.offer(rec)) {
+                log.debug("Disconnecting stream subscriber {} updates behind", queueCapacity);
+                evicted.increment();
+                close(false);
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                evicted.increment();
+                close(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                WeatherRecord rec;
+                while (!closed && (rec = queue.poll()) != null) {
+                    // the bytes GET /weather serves, encoded once per refresh rather than per subscriber
+                    emitter.send(SseEmitter.event().name("weather").data(rec.view().json(), MediaType.APPLICATION_JSON));
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away, or the emitter already completed
+                close(true);
+            } finally {
+                draining.set(false);
+            }
+            // an update offered after the last poll but before the flag was cleared
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void close(boolean failed) {
+            if (closed) return;
+            closed = true;
+            queue.clear();
+            remove(this);
+            if (failed) return;
+            // completing waits for a send in progress, which for a slow client may take a while:
+            // keep that off the publishing thread
+            try {
+                sender.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.weather_app;
+
+import com.weather_app.resilience.ResilientWeatherProvider;
+import com.weather_app.service.AsyncWeatherApiClient;
+import com.weather_app.service.WeatherApiClient;
+import com.weather_app.service.WeatherProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "weather.api.client=async")
+class WeatherAppApplicationAsyncClientTests {
+
+    @Autowired
+    WeatherProvider provider;
+    @Autowired
+    WeatherApiClient syncClient;
+
+    @Test
+    void asyncClient_isPrimaryProvider_andSyncClientStaysAvailable() {
+        assertThat(provider).isInstanceOf(ResilientWeatherProvider.class);
+        assertThat(((ResilientWeatherProvider) provider).delegate()).isInstanceOf(AsyncWeatherApiClient.class);
+        assertThat(syncClient).isNotNull();
+    }
+}
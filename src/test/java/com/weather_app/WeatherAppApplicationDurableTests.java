@@ -0,0 +1,47 @@
+package com.weather_app;
+
+import com.weather_app.cache.NearCacheWarmer;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.repository.WeatherRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherAppApplicationDurableTests {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void durableProfile_keepsRecordsAcrossRestarts_andWarmsNearCache() {
+        try (ConfigurableApplicationContext first = start()) {
+            var rec = new WeatherRecord();
+            rec.setLocationKey("city:kyiv");
+            rec.setCity("Kyiv");
+            rec.setUpdatedAt(LocalDateTime.now());
+            first.getBean(WeatherRecordRepository.class).save(rec);
+        }
+
+        try (ConfigurableApplicationContext second = start()) {
+            assertThat(second.getBean(NearCacheWarmer.class).restoredRecords()).isEqualTo(1);
+            assertThat(second.getBean(WeatherRecordCache.class).peek("city:kyiv"))
+                    .get().extracting(WeatherRecord::getCity).isEqualTo("Kyiv");
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        // command-line style args so they take precedence over application.yml
+        return new SpringApplicationBuilder(WeatherAppApplication.class).run(
+                "--spring.profiles.active=durable",
+                "--weather.persistence.path=" + dataDir.resolve("weatherdb"),
+                "--server.port=0",
+                "--logging.level.root=WARN");
+    }
+}
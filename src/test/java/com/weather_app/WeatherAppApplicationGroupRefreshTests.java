@@ -0,0 +1,70 @@
+package com.weather_app;
+
+import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a zero TTL makes every stored record stale, so the second batch has to refresh all of them
+@SpringBootTest(properties = "weather.cache.ttl-minutes=0")
+@AutoConfigureMockMvc
+class WeatherAppApplicationGroupRefreshTests {
+
+    static final StubWeatherApi upstream = newUpstream();
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    WeatherRecordRepository repository;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("weather.api.url", upstream::weatherUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Test
+    void batchRefresh_learnsCityIds_thenUsesOneGroupCall() throws Exception {
+        // names no other test context stores in the shared in-memory database
+        String body = "{\"cities\":[\"Uzhhorod\",\"Chernihiv\",\"Poltava\"]}";
+
+        mvc.perform(post("/weather/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        assertThat(upstream.calls()).isEqualTo(3);
+        assertThat(repository.findByLocationKey("city:uzhhorod").orElseThrow().getProviderId()).isNotNull();
+
+        mvc.perform(post("/weather/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[2].weather.city").value("poltava"));
+
+        assertThat(upstream.calls()).isEqualTo(3);
+        assertThat(upstream.groupCalls()).isEqualTo(1);
+    }
+
+    private static StubWeatherApi newUpstream() {
+        try {
+            return new StubWeatherApi(Duration.ZERO);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
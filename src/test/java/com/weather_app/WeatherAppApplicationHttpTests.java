@@ -0,0 +1,98 @@
+package com.weather_app;
+
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Connector settings from application.yml: gzip above the size threshold and h2c on the plain port. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WeatherAppApplicationHttpTests {
+
+    static final StubWeatherApi upstream = newUpstream();
+
+    @LocalServerPort
+    int port;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("weather.api.url", upstream::weatherUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Test
+    void largeResponses_areGzipped_smallOnesAreNot() throws Exception {
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String cities = IntStream.range(0, 20).mapToObj(i -> "\"gzip-city" + i + "\"").collect(Collectors.joining(","));
+        var batch = HttpRequest.newBuilder(uri("/weather/batch"))
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"cities\":[" + cities + "]}"))
+                .build();
+
+        HttpResponse<byte[]> compressed = client.send(batch, HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(compressed.statusCode()).isEqualTo(200);
+        assertThat(compressed.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        String json = gunzip(compressed.body());
+        assertThat(json).contains("\"city\":\"gzip-city19\"");
+        assertThat(compressed.body().length).isLessThan(json.length() / 2);
+
+        HttpResponse<byte[]> single = client.send(HttpRequest.newBuilder(uri("/weather?city=gzip-city1"))
+                .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(single.statusCode()).isEqualTo(200);
+        assertThat(single.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    void plainPort_speaksH2c() throws Exception {
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        var request = HttpRequest.newBuilder(uri("/weather?city=Rivne")).timeout(Duration.ofSeconds(10)).build();
+
+        client.send(request, HttpResponse.BodyHandlers.ofString()); // upgrades the connection
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+        assertThat(response.body()).contains("\"locationKey\":\"city:rivne\"");
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create("http://localhost:" + port + pathAndQuery);
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static StubWeatherApi newUpstream() {
+        try {
+            return new StubWeatherApi(Duration.ZERO);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.weather_app;
+
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class WeatherAppApplicationMetricsTests {
+
+    static final StubWeatherApi upstream = newUpstream();
+
+    @Autowired
+    MockMvc mvc;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("weather.api.url", upstream::weatherUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Test
+    void prometheusEndpoint_exposesEveryStageOfALookup() throws Exception {
+        mvc.perform(get("/weather").param("city", "Kyiv")).andExpect(status().isOk());
+
+        String scrape = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("weather_requests_seconds_count{outcome=\"success\",type=\"city\"} 1")
+                .contains("weather_lookup_seconds_count{result=\"miss\",type=\"city\"} 1")
+                .contains("weather_refresh_duration_seconds_count{outcome=\"success\",type=\"city\"} 1")
+                .contains("weather_api_requests_seconds_count{client=\"sync\",outcome=\"success\"} 1")
+                .contains("weather_api_mapping_seconds_count{client=\"sync\"} 1")
+                .contains("spring_data_repository_invocations_seconds_bucket")
+                .contains("method=\"findByLocationKey\"")
+                .doesNotContainIgnoringCase("kyiv");
+    }
+
+    private static StubWeatherApi newUpstream() {
+        try {
+            return new StubWeatherApi(Duration.ZERO);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.weather_app;
+
+import com.weather_app.service.HotKeyPrewarmer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"weather.prewarm.enabled=true", "weather.prewarm.interval=10m"})
+class WeatherAppApplicationPrewarmTests {
+
+    @Autowired
+    HotKeyPrewarmer prewarmer;
+    @Autowired
+    ScheduledTaskHolder scheduledTasks;
+
+    @Test
+    void prewarmer_isScheduled() {
+        assertThat(prewarmer).isNotNull();
+        assertThat(scheduledTasks.getScheduledTasks()).isNotEmpty();
+    }
+}
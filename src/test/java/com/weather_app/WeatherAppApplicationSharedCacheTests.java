@@ -0,0 +1,68 @@
+package com.weather_app;
+
+import com.weather_app.cache.SharedWeatherCache;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.service.WeatherService;
+import com.weather_app.support.EmbeddedRespServer;
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Two instances, each with its own database, sharing records through the embedded RESP server. */
+class WeatherAppApplicationSharedCacheTests {
+
+    @Test
+    void secondInstance_isServedFromSharedTier_andDropsItsCopyOnPeerUpdate() throws Exception {
+        try (StubWeatherApi api = new StubWeatherApi(Duration.ZERO);
+             EmbeddedRespServer redis = new EmbeddedRespServer();
+             ConfigurableApplicationContext a = start("a", api, redis);
+             ConfigurableApplicationContext b = start("b", api, redis)) {
+
+            WeatherRecord first = a.getBean(WeatherService.class).getByCity("Ternopil");
+            assertThat(api.calls()).isEqualTo(1);
+
+            // b's database has never seen Ternopil, yet the provider is not called again
+            WeatherRecord fromPeer = b.getBean(WeatherService.class).getByCity("Ternopil");
+            assertThat(api.calls()).isEqualTo(1);
+            assertThat(fromPeer.getTemperature()).isEqualTo(first.getTemperature());
+            assertThat(b.getBean(WeatherRecordCache.class).peek("city:ternopil")).isPresent();
+
+            // a newer record stored by a drops b's near-cache copy
+            for (int i = 0; i < 100 && redis.subscribers("weather:invalidations") < 2; i++) {
+                Thread.sleep(50);
+            }
+            WeatherRecord newer = new WeatherRecord();
+            newer.setLocationKey("city:ternopil");
+            newer.setCity("Ternopil");
+            newer.setTemperature(-7.0);
+            newer.setUpdatedAt(LocalDateTime.now());
+            a.getBean(SharedWeatherCache.class).put(newer);
+            WeatherRecordCache bCache = b.getBean(WeatherRecordCache.class);
+            for (int i = 0; i < 100 && bCache.peek("city:ternopil").isPresent(); i++) {
+                Thread.sleep(50);
+            }
+            assertThat(bCache.peek("city:ternopil")).isEmpty();
+            assertThat(b.getBean(WeatherService.class).getByCity("Ternopil").getTemperature()).isEqualTo(-7.0);
+            assertThat(api.calls()).isEqualTo(1);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String name, StubWeatherApi api, EmbeddedRespServer redis) {
+        return new SpringApplicationBuilder(WeatherAppApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:shared-cache-" + name,
+                "--weather.api.url=" + api.weatherUrl(),
+                "--weather.shared-cache.type=redis",
+                "--weather.shared-cache.host=127.0.0.1",
+                "--weather.shared-cache.port=" + redis.port(),
+                "--weather.stream.enabled=false",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+    }
+}
@@ -0,0 +1,92 @@
+package com.weather_app;
+
+import com.weather_app.stream.WeatherStreamRefresher;
+import com.weather_app.stream.WeatherUpdateHub;
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a zero TTL makes the subscribed record stale right away, so the refresher has something to do
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"weather.cache.ttl-minutes=0", "weather.stream.refresh-interval=1h"})
+class WeatherAppApplicationStreamTests {
+
+    static final StubWeatherApi upstream = newUpstream();
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    WeatherStreamRefresher refresher;
+    @Autowired
+    WeatherUpdateHub hub;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("weather.api.url", upstream::weatherUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.close();
+    }
+
+    @Test
+    @Timeout(30)
+    void stream_sendsCurrentRecord_thenEveryRefresh() throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/weather/stream?city=Sumy"))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("text/event-stream"));
+
+        try (var reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            assertThat(nextData(reader)).contains("\"locationKey\":\"city:sumy\"").doesNotContain("providerId");
+            long callsBefore = upstream.calls();
+
+            refresher.refresh();
+
+            assertThat(nextData(reader)).contains("\"locationKey\":\"city:sumy\"");
+            assertThat(upstream.calls() + upstream.groupCalls()).isEqualTo(callsBefore + 1);
+            // checked while the stream is open, closing it unsubscribes
+            assertThat(hub.subscribedKeys()).contains("city:sumy");
+        }
+    }
+
+    private static String nextData(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) return line;
+        }
+        throw new IOException("Stream ended");
+    }
+
+    private static StubWeatherApi newUpstream() {
+        try {
+            return new StubWeatherApi(Duration.ZERO);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
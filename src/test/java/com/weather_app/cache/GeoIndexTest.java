@@ -0,0 +1,51 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoIndexTest {
+
+    @Test
+    void nearest_picksTheClosestRecordInRadius() {
+        var index = new GeoIndex();
+        index.add(located("city:kyiv", 50.45, 30.52));
+        index.add(located("city:brovary", 50.51, 30.79));
+
+        assertThat(index.nearest(50.46, 30.53, 50, r -> true)).get()
+                .extracting(WeatherRecord::getLocationKey).isEqualTo("city:kyiv");
+        assertThat(index.nearest(50.46, 30.53, 50, r -> !r.getLocationKey().equals("city:kyiv"))).get()
+                .extracting(WeatherRecord::getLocationKey).isEqualTo("city:brovary");
+        assertThat(index.nearest(48.0, 30.5, 50, r -> true)).isEmpty();
+    }
+
+    @Test
+    void nearest_wrapsAcrossTheAntimeridian() {
+        var index = new GeoIndex();
+        index.add(located("city:east", -17.0, 179.98));
+
+        assertThat(index.nearest(-17.0, -179.98, 10, r -> true)).isPresent();
+    }
+
+    @Test
+    void remove_dropsEmptyCells() {
+        var index = new GeoIndex();
+        var kyiv = located("city:kyiv", 50.45, 30.52);
+        index.add(kyiv);
+        index.add(new WeatherRecord()); // no coordinates, not indexed
+
+        index.remove(kyiv);
+
+        assertThat(index.cellCount()).isZero();
+        assertThat(GeoIndex.distanceKm(50.45, 30.52, 49.84, 24.03)).isBetween(465.0, 475.0);
+    }
+
+    private static WeatherRecord located(String key, double lat, double lon) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setLatitude(lat);
+        rec.setLongitude(lon);
+        return rec;
+    }
+}
@@ -0,0 +1,65 @@
+package com.weather_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyTrackerTest {
+
+    private final Clock fixedClock =
+            Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private void record(HotKeyTracker tracker, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(key);
+        }
+    }
+
+    @Test
+    void topKeys_rankedByRequestCount() {
+        var tracker = new HotKeyTracker(10, Duration.ofMinutes(10), fixedClock);
+        record(tracker, "city:kyiv", 5);
+        record(tracker, "city:london", 9);
+        record(tracker, "zip:10001", 1);
+
+        assertThat(tracker.topKeys(2)).containsExactly("city:london", "city:kyiv");
+        assertThat(tracker.estimate("city:london")).isEqualTo(9);
+    }
+
+    @Test
+    void candidates_stayBounded_andHotKeySurvivesOneOffTraffic() {
+        var tracker = new HotKeyTracker(4, Duration.ofMinutes(10), fixedClock);
+        record(tracker, "city:kyiv", 50);
+        for (int i = 0; i < 1_000; i++) {
+            tracker.record("city:tourist-" + i);
+        }
+
+        assertThat(tracker.trackedKeys()).isLessThanOrEqualTo(8);
+        assertThat(tracker.topKeys(1)).containsExactly("city:kyiv");
+        assertThat(tracker.trackedKeys()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void counts_areHalvedOncePerHalfLife() {
+        var tracker = new HotKeyTracker(4, Duration.ZERO, fixedClock);
+        record(tracker, "city:kyiv", 8);
+
+        tracker.topKeys(1);
+
+        assertThat(tracker.estimate("city:kyiv")).isEqualTo(4);
+    }
+
+    @Test
+    void zeroCapacity_tracksNothing() {
+        var tracker = new HotKeyTracker(0, Duration.ofMinutes(10), fixedClock);
+        record(tracker, "city:kyiv", 3);
+
+        assertThat(tracker.topKeys(10)).isEmpty();
+        assertThat(tracker.estimate("city:kyiv")).isZero();
+    }
+}
@@ -0,0 +1,65 @@
+package com.weather_app.cache;
+
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.repository.WeatherRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NearCacheWarmerTest {
+
+    @Mock
+    WeatherRecordRepository repository;
+
+    private final Clock fixedClock =
+            Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private WeatherRecord record(String key, String updatedAt) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse(updatedAt), ZoneOffset.UTC));
+        return rec;
+    }
+
+    @Test
+    void warmsCacheWithServableRecords_andReportsThem() {
+        var props = new WeatherCacheProperties();
+        props.setMaxSize(2);
+        props.setStaleWhileRevalidate(true);
+        props.setMaxStaleMinutes(45); // servable for 15 + 45 minutes
+        var cache = new WeatherRecordCache(2, Duration.ofMinutes(60), fixedClock);
+        var newest = record("city:kyiv", "2025-01-01T11:55:00Z");
+        var older = record("city:london", "2025-01-01T11:20:00Z");
+        when(repository.findByUpdatedAtAfterOrderByUpdatedAtDesc(LocalDateTime.of(2025, 1, 1, 11, 0), Limit.of(2)))
+                .thenReturn(List.of(newest, older));
+        var meterRegistry = new SimpleMeterRegistry();
+
+        var warmer = new NearCacheWarmer(repository, cache, meterRegistry, props, fixedClock);
+        warmer.afterSingletonsInstantiated();
+
+        assertThat(warmer.restoredRecords()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("weather.cache.warmup.records").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("weather.cache.warmup.duration").timeGauge()).isNotNull();
+
+        // the newest record was put last, so it is the one that survives an eviction
+        cache.put(record("zip:10001", "2025-01-01T11:59:00Z"));
+        assertThat(cache.peek("city:kyiv")).containsSame(newest);
+        assertThat(cache.peek("city:london")).isEmpty();
+    }
+}
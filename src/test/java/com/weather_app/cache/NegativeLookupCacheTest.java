@@ -0,0 +1,87 @@
+package com.weather_app.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NegativeLookupCacheTest {
+
+    private Instant now = Instant.parse("2025-01-01T12:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void recentlyNotFound_afterAdd_untilTheTtlHasPassed() {
+        // 4 buckets of 1 minute
+        var notFound = new NegativeLookupCache(true, Duration.ofMinutes(4), 4, 1_000, 0.001, registry, clock);
+        notFound.add("city:atlantis");
+
+        assertThat(notFound.recentlyNotFound("city:atlantis")).isTrue();
+        assertThat(notFound.recentlyNotFound("city:kyiv")).isFalse();
+        now = now.plus(Duration.ofMinutes(3));
+        assertThat(notFound.recentlyNotFound("city:atlantis")).isTrue();
+        now = now.plus(Duration.ofMinutes(1));
+        assertThat(notFound.recentlyNotFound("city:atlantis")).isFalse();
+        assertThat(registry.get("weather.negative.avoided").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void add_reusesTheBucketOfAnExpiredGeneration() {
+        var notFound = new NegativeLookupCache(true, Duration.ofMinutes(4), 4, 1_000, 0.001, registry, clock);
+        notFound.add("city:atlantis");
+        now = now.plus(Duration.ofMinutes(4)); // same slot, next round
+
+        notFound.add("city:lemuria");
+
+        assertThat(notFound.recentlyNotFound("city:lemuria")).isTrue();
+        assertThat(notFound.recentlyNotFound("city:atlantis")).isFalse();
+    }
+
+    @Test
+    void falsePositives_stayNearTheConfiguredRate() {
+        var notFound = new NegativeLookupCache(true, Duration.ofMinutes(4), 4, 1_000, 0.01, registry, clock);
+        for (int i = 0; i < 1_000; i++) notFound.add("city:missing-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (notFound.recentlyNotFound("city:real-" + i)) falsePositives++;
+        }
+
+        assertThat(notFound.hashCount()).isEqualTo(7);
+        assertThat(notFound.bitsPerBucket()).isEqualTo(9586);
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void disabled_remembersNothing() {
+        var notFound = new NegativeLookupCache(false, Duration.ZERO, 0, 0, 0, registry, clock);
+        notFound.add("city:atlantis");
+
+        assertThat(notFound.recentlyNotFound("city:atlantis")).isFalse();
+        assertThatThrownBy(() -> new NegativeLookupCache(true, Duration.ofMinutes(4), 0, 1_000, 0.01, registry, clock))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,175 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshCoalescerTest {
+
+    private final RefreshCoalescer coalescer = new RefreshCoalescer();
+
+    @Test
+    void run_concurrentCallersForSameKey_shareOneRefresh() throws Exception {
+        int callers = 8;
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        var rec = new WeatherRecord();
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<WeatherRecord>> results = new ArrayList<>();
+            results.add(pool.submit(() -> coalescer.run("city:kyiv", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return rec;
+            })));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 1; i < callers; i++) {
+                results.add(pool.submit(() -> coalescer.run("city:kyiv", () -> {
+                    calls.incrementAndGet();
+                    return new WeatherRecord();
+                })));
+            }
+            // wait until every follower is parked on the leader's future
+            while (coalescer.stats().coalesced() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<WeatherRecord> f : results) {
+                assertThat(f.get(5, TimeUnit.SECONDS)).isSameAs(rec);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(calls).hasValue(1);
+        assertThat(coalescer.stats()).isEqualTo(new RefreshCoalescer.CoalescerStats(1, callers - 1, 0));
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void run_leaderFailure_isPropagatedToWaiters() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var failure = new RuntimeException("Location not found (404).");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<WeatherRecord> leader = pool.submit(() -> coalescer.run("city:nowhere", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<WeatherRecord> follower = pool.submit(() -> coalescer.run("city:nowhere", WeatherRecord::new));
+            while (coalescer.stats().coalesced() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(leader::get).hasCause(failure);
+            assertThatThrownBy(follower::get).hasCause(failure);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void run_sequentialCalls_eachExecute() {
+        coalescer.run("a", WeatherRecord::new);
+        coalescer.run("a", WeatherRecord::new);
+
+        assertThat(coalescer.stats()).isEqualTo(new RefreshCoalescer.CoalescerStats(2, 0, 0));
+    }
+
+    @Test
+    void runAsync_whileRefreshPending_isCoalesced_andBlockingCallerJoinsIt() {
+        List<Runnable> queued = new ArrayList<>();
+        var rec = new WeatherRecord();
+
+        assertThat(coalescer.runAsync("a", queued::add, () -> rec)).isTrue();
+        assertThat(coalescer.runAsync("a", queued::add, WeatherRecord::new)).isFalse();
+        assertThat(queued).hasSize(1);
+        assertThat(coalescer.inFlightCount()).isEqualTo(1);
+
+        queued.get(0).run();
+
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(coalescer.stats()).isEqualTo(new RefreshCoalescer.CoalescerStats(1, 1, 0));
+    }
+
+    @Test
+    void runAsync_rejectedByExecutor_releasesKey() {
+        boolean scheduled = coalescer.runAsync("a", r -> {
+            throw new RejectedExecutionException("queue full");
+        }, WeatherRecord::new);
+
+        assertThat(scheduled).isFalse();
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(coalescer.stats().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void runAsync_failure_isSwallowedAndKeyReleased() {
+        boolean scheduled = coalescer.runAsync("a", Runnable::run, () -> {
+            throw new RuntimeException("boom");
+        });
+
+        assertThat(scheduled).isTrue();
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void submit_sharesPendingFuture_andUnwrapsFailure() {
+        var pending = new CompletableFuture<WeatherRecord>();
+
+        var first = coalescer.submit("a", () -> pending);
+        var second = coalescer.submit("a", () -> CompletableFuture.completedFuture(new WeatherRecord()));
+        assertThat(second).isSameAs(first);
+
+        var failure = new RuntimeException("Location not found (404).");
+        pending.completeExceptionally(new CompletionException(failure));
+
+        assertThatThrownBy(first::join).hasCause(failure);
+        assertThat(coalescer.inFlightCount()).isZero();
+        assertThat(coalescer.stats()).isEqualTo(new RefreshCoalescer.CoalescerStats(1, 1, 0));
+    }
+
+    @Test
+    void submit_supplierThrows_failsFuture() {
+        var failure = new IllegalStateException("boom");
+
+        var future = coalescer.submit("a", () -> {
+            throw failure;
+        });
+
+        assertThatThrownBy(future::join).hasCause(failure);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
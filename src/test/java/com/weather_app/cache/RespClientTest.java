@@ -0,0 +1,57 @@
+package com.weather_app.cache;
+
+import com.weather_app.support.EmbeddedRespServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RespClientTest {
+
+    EmbeddedRespServer server;
+    RespClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedRespServer();
+        client = new RespClient("127.0.0.1", server.port(), null, 2_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void concurrentCallers_shareAtMostPoolSizeConnections() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                calls.add(CompletableFuture.runAsync(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        try {
+                            assertThat(client.call("PING")).isEqualTo("PONG");
+                        } catch (Exception e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                }, callers));
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(server.commands("PING")).isEqualTo(800);
+        assertThat(server.connections()).isBetween(1L, 2L);
+    }
+}
@@ -0,0 +1,163 @@
+package com.weather_app.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherSharedCacheProperties;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.support.EmbeddedRespServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RespSharedWeatherCacheTest {
+
+    EmbeddedRespServer server;
+    WeatherSharedCacheProperties props;
+    SimpleMeterRegistry meterRegistry;
+    final List<RespSharedWeatherCache> instances = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new EmbeddedRespServer();
+        props = new WeatherSharedCacheProperties();
+        props.setType(WeatherSharedCacheProperties.Type.REDIS);
+        props.setHost("127.0.0.1");
+        props.setPort(server.port());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        instances.forEach(RespSharedWeatherCache::close);
+        server.close();
+    }
+
+    private RespSharedWeatherCache newInstance() {
+        var instance = new RespSharedWeatherCache(props, new WeatherCacheProperties(),
+                new ObjectMapper().findAndRegisterModules(), meterRegistry);
+        instances.add(instance);
+        return instance;
+    }
+
+    private static WeatherRecord record(String key, double temperature) {
+        var rec = new WeatherRecord();
+        rec.setId(42L);
+        rec.setLocationKey(key);
+        rec.setCity("Kyiv");
+        rec.setTemperature(temperature);
+        rec.setProviderId(703448L);
+        rec.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        return rec;
+    }
+
+    @Test
+    void put_isVisibleToOtherInstances_withoutTheLocalId() {
+        var a = newInstance();
+        var b = newInstance();
+
+        a.put(record("city:kyiv", 3.5));
+
+        var read = b.get("city:kyiv").orElseThrow();
+        assertThat(read.getId()).isNull();
+        assertThat(read.getTemperature()).isEqualTo(3.5);
+        assertThat(read.getProviderId()).isEqualTo(703448L);
+        assertThat(read.getUpdatedAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 0));
+        assertThat(b.get("city:lviv")).isEmpty();
+        assertThat(b.getAll(List.of("city:kyiv", "city:lviv"))).containsOnlyKeys("city:kyiv");
+        assertThat(b.getAll(List.of())).isEmpty();
+        // retention follows the near cache, the key carries the prefix
+        assertThat(server.contains("weather:record:city:kyiv")).isTrue();
+        assertThat(meterRegistry.get("weather.shared_cache.requests").tag("result", "hit").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void put_invalidatesOtherInstances_only() throws InterruptedException {
+        var a = newInstance();
+        var b = newInstance();
+        List<String> seenByA = new CopyOnWriteArrayList<>();
+        List<String> seenByB = new CopyOnWriteArrayList<>();
+        a.onInvalidation(seenByA::add);
+        b.onInvalidation(seenByB::add);
+        waitUntil(() -> server.subscribers("weather:invalidations") == 2);
+
+        a.put(record("city:kyiv", 1.0));
+
+        waitUntil(() -> seenByB.contains("city:kyiv"));
+        assertThat(seenByB).containsExactly("city:kyiv");
+        assertThat(seenByA).isEmpty();
+        assertThat(meterRegistry.get("weather.shared_cache.invalidations").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void tryLock_isExclusiveAcrossInstances_untilReleased() {
+        var a = newInstance();
+        var b = newInstance();
+
+        var lock = a.tryLock("city:kyiv");
+        assertThat(lock).isPresent();
+        assertThat(b.tryLock("city:kyiv")).isEmpty();
+        assertThat(b.tryLock("city:lviv")).isPresent();
+
+        lock.get().close();
+        assertThat(b.tryLock("city:kyiv")).isPresent();
+        assertThat(meterRegistry.get("weather.shared_cache.locks").tag("result", "busy").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void tryLock_expiresAfterLease_andLateReleaseKeepsTheNewHoldersLock() throws InterruptedException {
+        props.setLockLease(Duration.ofMillis(50));
+        props.setTimeout(Duration.ofSeconds(1));
+        var a = newInstance();
+        var b = newInstance();
+
+        var stale = a.tryLock("city:kyiv").orElseThrow();
+        Thread.sleep(100);
+        assertThat(b.tryLock("city:kyiv")).isPresent();
+        stale.close();
+
+        // b's lock is still held, and still expires on its own
+        assertThat(server.contains("weather:lock:city:kyiv")).isTrue();
+    }
+
+    @Test
+    void unreachableServer_failsOpen() throws Exception {
+        var a = newInstance();
+        server.close();
+
+        assertThat(a.get("city:kyiv")).isEmpty();
+        assertThat(a.getAll(List.of("city:kyiv"))).isEmpty();
+        a.put(record("city:kyiv", 1.0));
+        // every instance refreshes for itself
+        assertThat(a.tryLock("city:kyiv")).isPresent();
+        assertThat(meterRegistry.get("weather.shared_cache.errors").counter().count()).isGreaterThanOrEqualTo(4.0);
+    }
+
+    @Test
+    void password_isSentOnEveryNewConnection() {
+        props.setPassword("secret");
+        var a = newInstance();
+
+        a.put(record("city:kyiv", 1.0));
+
+        assertThat(a.get("city:kyiv")).isPresent();
+        assertThat(server.commands("AUTH")).isGreaterThanOrEqualTo(1);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.weather_app.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedLocksTest {
+
+    @Test
+    void stripeCount_isRoundedUpToAPowerOfTwo() {
+        assertThat(new StripedLocks(50).stripeCount()).isEqualTo(64);
+        assertThat(new StripedLocks(64).stripeCount()).isEqualTo(64);
+        assertThat(new StripedLocks(1).stripeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void withLock_sameKey_isMutuallyExclusive() throws Exception {
+        var locks = new StripedLocks(16);
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var secondEntered = new AtomicBoolean();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            var first = pool.submit(() -> locks.withLock("city:kyiv", () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            holding.await(5, TimeUnit.SECONDS);
+            var second = pool.submit(() -> locks.withLock("city:kyiv", () -> {
+                secondEntered.set(true);
+                return null;
+            }));
+
+            Thread.sleep(100);
+            assertThat(secondEntered).isFalse();
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertThat(secondEntered).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void withLocks_inOppositeOrder_doNotDeadlock() throws Exception {
+        var locks = new StripedLocks(16);
+        String a = "city:kyiv";
+        String b = "city:lviv";
+        assertThat(locks.indexOf(a)).isNotEqualTo(locks.indexOf(b));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            var forward = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) locks.withLocks(List.of(a, b), () -> null);
+            }, pool);
+            var backward = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) locks.withLocks(List.of(b, a), () -> null);
+            }, pool);
+
+            CompletableFuture.allOf(forward, backward).get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void withLocks_releasesEveryStripe_whenTheActionFails() throws Exception {
+        var locks = new StripedLocks(16);
+
+        assertThatThrownBy(() -> locks.withLocks(List.of("city:kyiv", "city:lviv"), () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // another thread can take both stripes again
+        var other = CompletableFuture.supplyAsync(() -> locks.withLocks(List.of("city:lviv", "city:kyiv"), () -> "ok"));
+        assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.weather_app.cache;
+
+import com.weather_app.model.WeatherRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherRecordCacheTest {
+
+    private final Clock fixedClock =
+            Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    private WeatherRecord record(String key, String updatedAt) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse(updatedAt), ZoneOffset.UTC));
+        return rec;
+    }
+
+    @Test
+    void get_freshEntry_countsHit() {
+        var cache = new WeatherRecordCache(10, Duration.ofMinutes(15), fixedClock);
+        var rec = record("city:kyiv", "2025-01-01T11:50:00Z");
+        cache.put(rec);
+
+        assertThat(cache.get("city:kyiv")).containsSame(rec);
+        assertThat(cache.get("city:london")).isEmpty();
+        assertThat(cache.stats()).isEqualTo(new WeatherRecordCache.CacheStats(1, 1, 0, 0));
+    }
+
+    @Test
+    void get_expiredEntry_isDroppedAndCountedAsMiss() {
+        var cache = new WeatherRecordCache(10, Duration.ofMinutes(15), fixedClock);
+        cache.put(record("city:kyiv", "2025-01-01T11:00:00Z"));
+
+        assertThat(cache.get("city:kyiv")).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats().expirations()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void put_overCapacity_evictsLeastRecentlyUsed() {
+        var cache = new WeatherRecordCache(2, Duration.ofMinutes(15), fixedClock);
+        cache.put(record("a", "2025-01-01T11:59:00Z"));
+        cache.put(record("b", "2025-01-01T11:59:00Z"));
+        cache.get("a"); // a is now most recently used
+        cache.put(record("c", "2025-01-01T11:59:00Z"));
+
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("a")).isPresent();
+        assertThat(cache.get("c")).isPresent();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_removesEntry() {
+        var cache = new WeatherRecordCache(10, Duration.ofMinutes(15), fixedClock);
+        cache.put(record("a", "2025-01-01T11:59:00Z"));
+        cache.invalidate("a");
+
+        assertThat(cache.get("a")).isEmpty();
+    }
+
+    private WeatherRecord located(String key, double lat, double lon, String updatedAt) {
+        var rec = record(key, updatedAt);
+        rec.setLatitude(lat);
+        rec.setLongitude(lon);
+        return rec;
+    }
+
+    @Test
+    void nearest_returnsClosestRecordWithinRadius() {
+        var cache = new WeatherRecordCache(10, Duration.ofMinutes(15), fixedClock);
+        var kyiv = located("city:kyiv", 50.45, 30.52, "2025-01-01T11:50:00Z");
+        var brovary = located("city:brovary", 50.51, 30.79, "2025-01-01T11:50:00Z");
+        cache.put(kyiv);
+        cache.put(brovary);
+        cache.put(record("zip:01001", "2025-01-01T11:50:00Z")); // no coordinates, never a candidate
+
+        // about 3 km from Kyiv's centre, 18 km from Brovary
+        assertThat(cache.nearest(50.47, 30.49, 5, r -> true)).containsSame(kyiv);
+        assertThat(cache.nearest(50.50, 30.75, 5, r -> true)).containsSame(brovary);
+        assertThat(cache.nearest(50.47, 30.49, 50, r -> r != kyiv)).containsSame(brovary);
+        assertThat(cache.nearest(49.84, 24.03, 5, r -> true)).isEmpty(); // Lviv
+        assertThat(cache.stats().hits() + cache.stats().misses()).isZero();
+    }
+
+    @Test
+    void nearest_forgetsReplacedInvalidatedEvictedAndExpiredRecords() {
+        var cache = new WeatherRecordCache(2, Duration.ofMinutes(15), fixedClock);
+        cache.put(located("city:kyiv", 50.45, 30.52, "2025-01-01T11:50:00Z"));
+        var moved = located("city:kyiv", 46.48, 30.72, "2025-01-01T11:55:00Z");
+        cache.put(moved);
+        assertThat(cache.nearest(50.45, 30.52, 5, r -> true)).isEmpty();
+        assertThat(cache.nearest(46.48, 30.72, 5, r -> true)).containsSame(moved);
+
+        cache.invalidate("city:kyiv");
+        assertThat(cache.nearest(46.48, 30.72, 5, r -> true)).isEmpty();
+
+        cache.put(located("a", 10, 10, "2025-01-01T11:59:00Z"));
+        cache.put(located("b", 20, 20, "2025-01-01T11:59:00Z"));
+        cache.put(located("c", 30, 30, "2025-01-01T11:59:00Z"));
+        assertThat(cache.nearest(10, 10, 5, r -> true)).isEmpty();
+
+        cache.put(located("old", 30.01, 30, "2025-01-01T11:00:00Z"));
+        assertThat(cache.nearest(30.01, 30, 0.5, r -> true)).isEmpty();
+    }
+
+    @Test
+    void nearest_searchesAcrossTheAntimeridianAndNearThePoles() {
+        var cache = new WeatherRecordCache(10, Duration.ofMinutes(15), fixedClock);
+        var fiji = located("city:fiji", -17.0, 179.99, "2025-01-01T11:50:00Z");
+        var alert = located("city:alert", 89.9, 10.0, "2025-01-01T11:50:00Z");
+        cache.put(fiji);
+        cache.put(alert);
+
+        assertThat(cache.nearest(-17.0, -179.99, 5, r -> true)).containsSame(fiji);
+        assertThat(cache.nearest(89.9, -170.0, 25, r -> true)).containsSame(alert);
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveSize() {
+        assertThatThrownBy(() -> new WeatherRecordCache(0, Duration.ofMinutes(15), fixedClock))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,31 +1,53 @@
 package com.weather_app.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.weather_app.config.WeatherBatchProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.history.HistoryResolution;
 import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.BatchWeatherItem;
+import com.weather_app.model.dto.MetricSummary;
+import com.weather_app.model.dto.WeatherHistoryPoint;
 import com.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = WeatherController.class)
+@Import({WeatherBatchProperties.class, SimpleMeterRegistry.class})
 class WeatherControllerTest {
     @Autowired
     MockMvc mvc;
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockitoBean
     WeatherService weatherService;
 
@@ -51,7 +73,63 @@ class WeatherControllerTest {
                 .andExpect(jsonPath("$.description", is("clear sky")))
                 .andExpect(jsonPath("$.humidity", is(55)))
                 .andExpect(jsonPath("$.windSpeed", is(3.6)))
-                .andExpect(jsonPath("$.locationKey", is("city:kyiv")));
+                .andExpect(jsonPath("$.locationKey", is("city:kyiv")))
+                .andExpect(jsonPath("$.updatedAt", is("2025-01-01T12:00:00")))
+                .andExpect(jsonPath("$.zip").value(nullValue()))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.providerId").doesNotExist());
+    }
+
+    @Test
+    void getWeather_acceptCbor_returnsTheSameFieldsAsCbor() throws Exception {
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        rec.setCity("Kyiv");
+        rec.setTemperature(22.5);
+        rec.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:00:00"));
+        Mockito.when(weatherService.getByCity("Kyiv")).thenReturn(rec);
+
+        byte[] body = mvc.perform(get("/weather").param("city", "Kyiv").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var tree = new CBORMapper().readTree(body);
+        assertThat(tree.get("city").asText()).isEqualTo("Kyiv");
+        assertThat(tree.get("temperature").asDouble()).isEqualTo(22.5);
+        assertThat(tree.get("humidity").isNull()).isTrue();
+
+        mvc.perform(get("/weather").param("city", "Kyiv").accept("text/html"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void prefersCbor_onlyWhenItOutranksJson() {
+        assertThat(WeatherController.prefersCbor(null)).isFalse();
+        assertThat(WeatherController.prefersCbor("*/*")).isFalse();
+        assertThat(WeatherController.prefersCbor("application/cbor")).isTrue();
+        assertThat(WeatherController.prefersCbor("application/json, application/cbor")).isFalse();
+        assertThat(WeatherController.prefersCbor("application/json;q=0.5, application/cbor")).isTrue();
+        assertThat(WeatherController.prefersCbor("application/cbor;q=0, */*")).isFalse();
+        assertThat(WeatherController.prefersCbor("not a type")).isFalse();
+    }
+
+    @Test
+    void view_isReused_untilARefreshMovesUpdatedAt() {
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        rec.setTemperature(1.0);
+        rec.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:00:00"));
+
+        var first = rec.view();
+        assertThat(rec.view()).isSameAs(first);
+        assertThat(rec.view().cbor()).isSameAs(first.cbor());
+
+        rec.setTemperature(2.0);
+        rec.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:15:00"));
+        assertThat(rec.view()).isNotSameAs(first);
+        assertThat(new String(rec.view().json())).contains("\"temperature\":2.0");
     }
 
     @Test
@@ -89,4 +167,163 @@ class WeatherControllerTest {
         mvc.perform(get("/weather").param("city", "Kyiv").param("zip", "01001"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getWeather_byCoordinates_returns200AndIsTimedAsCoord() throws Exception {
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        rec.setCity("Kyiv");
+        rec.setLatitude(50.45);
+        rec.setLongitude(30.52);
+        Mockito.when(weatherService.getByCoordinates(50.47, 30.49)).thenReturn(rec);
+
+        mvc.perform(get("/weather").param("lat", "50.47").param("lon", "30.49"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city", is("Kyiv")))
+                .andExpect(jsonPath("$.latitude", is(50.45)))
+                .andExpect(jsonPath("$.longitude", is(30.52)));
+
+        assertThat(meterRegistry.get("weather.requests").tag("type", "coord").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+        // every type x outcome is registered up front
+        assertThat(meterRegistry.get("weather.requests").timers()).hasSize(12);
+    }
+
+    @Test
+    void getWeather_incompleteOrOutOfRangeCoordinates_return400() throws Exception {
+        mvc.perform(get("/weather").param("lat", "50.45"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather").param("lat", "91").param("lon", "30"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather").param("lat", "50").param("lon", "-180.5"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather").param("lat", "NaN").param("lon", "30"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather").param("city", "Kyiv").param("lat", "50.45").param("lon", "30.52"))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(weatherService);
+    }
+
+    @Test
+    void getWeatherBatch_returnsPerItemResults() throws Exception {
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        rec.setCity("Kyiv");
+        rec.setTemperature(22.5);
+        rec.setId(7L);
+        rec.setProviderId(703448L);
+        var ok = BatchWeatherItem.forCity("Kyiv");
+        ok.setWeather(rec);
+        var failed = BatchWeatherItem.forZip("00000");
+        failed.setError("Location not found (404).");
+
+        Mockito.when(weatherService.getBatch(List.of("Kyiv"), List.of("00000"))).thenReturn(List.of(ok, failed));
+
+        mvc.perform(post("/weather/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cities\":[\"Kyiv\"],\"zips\":[\"00000\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].city", is("Kyiv")))
+                .andExpect(jsonPath("$[0].weather.temperature", is(22.5)))
+                // the same shape as GET /weather
+                .andExpect(jsonPath("$[0].weather.locationKey", is("city:kyiv")))
+                .andExpect(jsonPath("$[0].weather.id").doesNotExist())
+                .andExpect(jsonPath("$[0].weather.providerId").doesNotExist())
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].zip", is("00000")))
+                .andExpect(jsonPath("$[1].error", is("Location not found (404).")));
+    }
+
+    @Test
+    void getWeatherBatch_empty_returns400() throws Exception {
+        mvc.perform(post("/weather/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getWeatherBatch_tooManyItems_returns400() throws Exception {
+        String cities = String.join(",", Collections.nCopies(501, "\"Kyiv\""));
+
+        mvc.perform(post("/weather/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cities\":[" + cities + "]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getWeather_notFound_returns404_andIsTimedByOutcome() throws Exception {
+        Mockito.when(weatherService.getByCity("Atlantis")).thenThrow(new LocationNotFoundException(null));
+
+        mvc.perform(get("/weather").param("city", "Atlantis"))
+                .andExpect(status().isNotFound());
+
+        assertThat(meterRegistry.get("weather.requests").tags("type", "city", "outcome", "not_found")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getHistory_byZip_daily_returnsRollups() throws Exception {
+        var point = new WeatherHistoryPoint();
+        point.setFrom(LocalDateTime.parse("2025-01-01T00:00:00"));
+        point.setSamples(3);
+        point.setTemperature(new MetricSummary(1.0, 7.0, 4.0));
+        Mockito.when(weatherService.getHistoryByZip("01001", LocalDateTime.parse("2025-01-01T00:00:00"),
+                        LocalDateTime.parse("2025-01-08T00:00:00"), HistoryResolution.DAILY))
+                .thenReturn(List.of(point));
+
+        mvc.perform(get("/weather/history").param("zip", "01001")
+                        .param("from", "2025-01-01T00:00:00").param("to", "2025-01-08T00:00:00")
+                        .param("resolution", "daily"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].samples", is(3)))
+                .andExpect(jsonPath("$[0].temperature.max", is(7.0)))
+                .andExpect(jsonPath("$[0].humidity").doesNotExist());
+    }
+
+    @Test
+    void getHistory_invalidRequest_returns400() throws Exception {
+        mvc.perform(get("/weather/history").param("city", "Kyiv")
+                        .param("from", "2025-01-01T00:00:00").param("to", "2025-01-02T00:00:00")
+                        .param("resolution", "weekly"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather/history").param("city", "Kyiv")
+                        .param("from", "2025-01-02T00:00:00").param("to", "2025-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/weather/history")
+                        .param("from", "2025-01-01T00:00:00").param("to", "2025-01-02T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(weatherService);
+    }
+
+    @Test
+    void getWeather_sendsValidators_andCacheControlFromRemainingTtl() throws Exception {
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        rec.setCity("Kyiv");
+        rec.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:00:00"));
+        Mockito.when(weatherService.getByCity("Kyiv")).thenReturn(rec);
+        Mockito.when(weatherService.remainingTtl(rec)).thenReturn(Duration.ofMinutes(5));
+
+        String etag = mvc.perform(get("/weather").param("city", "Kyiv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Last-Modified", "Wed, 01 Jan 2025 12:00:00 GMT"))
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/weather").param("city", "Kyiv").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        mvc.perform(get("/weather").param("city", "Kyiv").header("If-Modified-Since", "Wed, 01 Jan 2025 12:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        rec.setUpdatedAt(LocalDateTime.parse("2025-01-01T12:15:00")); // refreshed since
+        mvc.perform(get("/weather").param("city", "Kyiv").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city", is("Kyiv")));
+    }
+}
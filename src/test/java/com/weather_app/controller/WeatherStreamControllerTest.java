@@ -0,0 +1,97 @@
+package com.weather_app.controller;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.BatchWeatherItem;
+import com.weather_app.service.Location;
+import com.weather_app.service.WeatherService;
+import com.weather_app.stream.WeatherUpdateHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = WeatherStreamController.class)
+@Import(WeatherStreamProperties.class)
+class WeatherStreamControllerTest {
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    WeatherService weatherService;
+    @MockitoBean
+    WeatherUpdateHub hub;
+
+    @BeforeEach
+    void resolveCitiesAsIs() {
+        Mockito.when(weatherService.resolveCity(any())).thenAnswer(inv -> Location.ofCity(inv.getArgument(0)));
+    }
+
+    @Test
+    void stream_subscribesNormalizedKeys_andSendsCurrentRecordsFirst() throws Exception {
+        var subscription = Mockito.mock(WeatherUpdateHub.Subscription.class);
+        Mockito.when(hub.subscribe(Mockito.eq(Set.of("city:kyiv", "zip:10001")), any()))
+                .thenReturn(Optional.of(subscription));
+        var rec = new WeatherRecord();
+        rec.setLocationKey("city:kyiv");
+        var found = BatchWeatherItem.forCity("KYIV");
+        found.setWeather(rec);
+        var missing = BatchWeatherItem.forZip("10001");
+        missing.setError("Location not found (404).");
+        Mockito.when(weatherService.getBatch(List.of("KYIV"), List.of("10001"))).thenReturn(List.of(found, missing));
+
+        mvc.perform(get("/weather/stream").param("city", "KYIV").param("zip", "10001"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(subscription).offer(rec);
+        Mockito.verifyNoMoreInteractions(subscription);
+    }
+
+    @Test
+    void stream_subscribesTheCanonicalKeyOfAnAlias() throws Exception {
+        Mockito.when(weatherService.resolveCity("kiev")).thenReturn(Location.ofCity("Kyiv"));
+        Mockito.when(hub.subscribe(Mockito.eq(Set.of("city:kyiv")), any()))
+                .thenReturn(Optional.of(Mockito.mock(WeatherUpdateHub.Subscription.class)));
+        Mockito.when(weatherService.getBatch(any(), any())).thenReturn(List.of());
+
+        mvc.perform(get("/weather/stream").param("city", "Kiev"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(hub).subscribe(Mockito.eq(Set.of("city:kyiv")), any());
+    }
+
+    @Test
+    void stream_invalidRequest_returns400() throws Exception {
+        mvc.perform(get("/weather/stream")).andExpect(status().isBadRequest());
+        mvc.perform(get("/weather/stream").param("city", " ")).andExpect(status().isBadRequest());
+        var tooMany = new String[51];
+        for (int i = 0; i < tooMany.length; i++) tooMany[i] = "city" + i;
+        mvc.perform(get("/weather/stream").param("city", tooMany)).andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(hub, weatherService);
+    }
+
+    @Test
+    void stream_hubFull_returns503() throws Exception {
+        Mockito.when(hub.subscribe(any(), any())).thenReturn(Optional.empty());
+
+        mvc.perform(get("/weather/stream").param("city", "Kyiv"))
+                .andExpect(status().isServiceUnavailable());
+
+        Mockito.verify(weatherService, Mockito.never()).getBatch(any(), any());
+    }
+}
@@ -0,0 +1,156 @@
+package com.weather_app.history;
+
+import com.weather_app.config.WeatherHistoryProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObservationHistoryTest {
+
+    private static final LocalDateTime DAY_START = LocalDateTime.parse("2025-01-01T00:00:00");
+    private static final LocalDateTime DAY_END = LocalDateTime.parse("2025-01-02T00:00:00");
+
+    WeatherHistoryProperties props;
+    SimpleMeterRegistry meterRegistry;
+    ObservationHistory history;
+
+    @BeforeEach
+    void setUp() {
+        props = new WeatherHistoryProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        history = new ObservationHistory(props, meterRegistry);
+    }
+
+    private static WeatherRecord observation(String key, String at, Double temp, Integer humidity, Double wind) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setUpdatedAt(LocalDateTime.parse(at));
+        rec.setTemperature(temp);
+        rec.setHumidity(humidity);
+        rec.setWindSpeed(wind);
+        return rec;
+    }
+
+    @Test
+    void hourlyRollup_aggregatesMinMaxAvgPerHour() {
+        history.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T10:20:00", 6.0, 60, null));
+        history.record(observation("city:kyiv", "2025-01-01T11:00:00", 1.0, 90, 5.0));
+
+        var points = history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.HOURLY);
+
+        assertThat(points).hasSize(2);
+        var first = points.get(0);
+        assertThat(first.getFrom()).isEqualTo(LocalDateTime.parse("2025-01-01T10:00:00"));
+        assertThat(first.getSamples()).isEqualTo(2);
+        assertThat(first.getTemperature().getMin()).isEqualTo(2.0);
+        assertThat(first.getTemperature().getMax()).isEqualTo(6.0);
+        assertThat(first.getTemperature().getAvg()).isEqualTo(4.0);
+        assertThat(first.getHumidity().getAvg()).isEqualTo(70.0);
+        // a missing value is not averaged in as zero
+        assertThat(first.getWindSpeed().getAvg()).isEqualTo(3.0);
+        assertThat(points.get(1).getFrom()).isEqualTo(LocalDateTime.parse("2025-01-01T11:00:00"));
+    }
+
+    @Test
+    void dailyRollup_andRawSeries() {
+        history.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T18:00:00", 8.0, 40, 1.0));
+
+        var daily = history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.DAILY);
+        var raw = history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.RAW);
+
+        assertThat(daily).singleElement().satisfies(p -> {
+            assertThat(p.getFrom()).isEqualTo(DAY_START);
+            assertThat(p.getSamples()).isEqualTo(2);
+            assertThat(p.getTemperature().getAvg()).isEqualTo(5.0);
+        });
+        assertThat(raw).extracting(p -> p.getTemperature().getAvg()).containsExactly(2.0, 8.0);
+    }
+
+    @Test
+    void query_isHalfOpenRange() {
+        history.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T11:05:00", 3.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T12:05:00", 4.0, 80, 3.0));
+
+        var points = history.query("city:kyiv", LocalDateTime.parse("2025-01-01T11:00:00"),
+                LocalDateTime.parse("2025-01-01T12:00:00"), HistoryResolution.HOURLY);
+
+        assertThat(points).extracting(p -> p.getTemperature().getAvg()).containsExactly(3.0);
+    }
+
+    @Test
+    void lateObservation_isFoldedIntoItsBucket() {
+        history.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T11:05:00", 3.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T10:50:00", 4.0, 80, 3.0));
+
+        var points = history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.HOURLY);
+
+        assertThat(points).extracting(p -> p.getSamples()).containsExactly(2, 1);
+        assertThat(points.get(0).getTemperature().getMax()).isEqualTo(4.0);
+    }
+
+    @Test
+    void retention_dropsOldBuckets() {
+        props.setRawRetention(Duration.ofHours(1));
+        props.setHourlyRetention(Duration.ofHours(2));
+        history = new ObservationHistory(props, meterRegistry);
+
+        history.record(observation("city:kyiv", "2025-01-01T08:30:00", 1.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T10:00:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T11:15:00", 3.0, 80, 3.0));
+
+        assertThat(history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.RAW))
+                .extracting(p -> p.getTemperature().getAvg()).containsExactly(3.0);
+        // 10:00-11:00 still overlaps the last two hours, 08:00-09:00 does not
+        assertThat(history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.HOURLY))
+                .extracting(p -> p.getTemperature().getAvg()).containsExactly(2.0, 3.0);
+        assertThat(history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.DAILY))
+                .singleElement().satisfies(p -> assertThat(p.getSamples()).isEqualTo(3));
+    }
+
+    @Test
+    void manyObservations_growColumns() {
+        LocalDateTime t = DAY_START;
+        for (int i = 0; i < 100; i++) {
+            history.record(observation("city:kyiv", t.plusMinutes(10L * i).toString(), (double) i, 50, 1.0));
+        }
+
+        var hourly = history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.HOURLY);
+
+        assertThat(hourly).hasSize(17);
+        assertThat(hourly.get(0).getTemperature().getAvg()).isEqualTo(2.5);
+        assertThat(history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.RAW)).hasSize(100);
+    }
+
+    @Test
+    void maxLocations_evictsTheLeastRecentlyObserved_andDisabled() {
+        props.setMaxLocations(2);
+        meterRegistry = new SimpleMeterRegistry();
+        history = new ObservationHistory(props, meterRegistry);
+        history.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        history.record(observation("city:lviv", "2025-01-01T10:10:00", 2.0, 80, 3.0));
+        history.record(observation("city:kyiv", "2025-01-01T10:20:00", 2.0, 80, 3.0));
+        history.record(observation("city:odesa", "2025-01-01T10:30:00", 2.0, 80, 3.0));
+
+        // lviv was observed least recently and made room for odesa
+        assertThat(history.query("city:odesa", DAY_START, DAY_END, HistoryResolution.HOURLY)).hasSize(1);
+        assertThat(history.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.RAW)).hasSize(2);
+        assertThat(history.query("city:lviv", DAY_START, DAY_END, HistoryResolution.HOURLY)).isEmpty();
+        assertThat(meterRegistry.get("weather.history.locations").gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("weather.history.evictions").counter().count()).isEqualTo(1.0);
+
+        props.setEnabled(false);
+        var disabled = new ObservationHistory(props, new SimpleMeterRegistry());
+        disabled.record(observation("city:kyiv", "2025-01-01T10:05:00", 2.0, 80, 3.0));
+        assertThat(disabled.query("city:kyiv", DAY_START, DAY_END, HistoryResolution.HOURLY)).isEmpty();
+    }
+}
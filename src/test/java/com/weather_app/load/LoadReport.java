@@ -0,0 +1,77 @@
+package com.weather_app.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one {@link LoadRunner} run measured, after warm-up. Latencies are in milliseconds from the
+ * moment a request was due, so a stalled server shows up as latency instead of as fewer requests.
+ */
+record LoadReport(LoadScenario scenario, double seconds, long sent, long completed, long dropped,
+                  long transportErrors, double throughput, Map<String, Map<Integer, Long>> statuses,
+                  Latency latency, List<Window> windows, Upstream upstream, Map<String, Long> lookups,
+                  Pool pool) {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** Responses of {@code kind} ({@code hot} or {@code cold}) that came back with {@code status}. */
+    long count(String kind, int status) {
+        return statuses.getOrDefault(kind, Map.of()).getOrDefault(status, 0L);
+    }
+
+    long count(String kind) {
+        return statuses.getOrDefault(kind, Map.of()).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Writes the report to {@code target/load-reports/<scenario>.json} and returns the path. */
+    Path write() throws IOException {
+        Path file = Path.of("target", "load-reports", scenario.name() + ".json");
+        Files.createDirectories(file.getParent());
+        JSON.writeValue(file.toFile(), this);
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return """
+                %s: %.0f req/s over %.0f s (%d sent, %d completed, %d dropped, %d transport errors)
+                  latency ms  p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f
+                  statuses    %s
+                  upstream    %d calls, %d group calls, %d answered 500, %d answered 429
+                  lookups     %s
+                  db pool     size=%d max active=%d max waiting=%d, saturated %.1f%% of samples, \
+                acquire mean=%.2f ms max=%.2f ms, %d timeouts""".formatted(
+                scenario.name(), throughput, seconds, sent, completed, dropped, transportErrors,
+                latency.p50(), latency.p90(), latency.p99(), latency.p999(), latency.max(),
+                statuses, upstream.calls(), upstream.groupCalls(), upstream.errors(), upstream.throttled(),
+                lookups, pool.size(), pool.maxActive(), pool.maxWaiting(), pool.saturatedShare() * 100,
+                pool.acquireMeanMillis(), pool.acquireMaxMillis(), pool.timeouts());
+    }
+
+    record Latency(long count, double p50, double p90, double p99, double p999, double max) {
+    }
+
+    /** One {@code scenario.window()} slice of the run, to spot drift over a soak. */
+    record Window(int index, double throughput, double p50, double p99, double max, long heapUsedMb) {
+    }
+
+    record Upstream(long calls, long groupCalls, long errors, long throttled) {
+    }
+
+    /**
+     * Hikari pool samples taken every 50 ms: the busiest moment, and how often every connection was
+     * in use. Acquire times come from Hikari's own {@code hikaricp.connections.acquire} timer.
+     */
+    record Pool(int size, int maxActive, int maxWaiting, double saturatedShare,
+                double acquireMeanMillis, double acquireMaxMillis, long timeouts) {
+    }
+}
@@ -0,0 +1,303 @@
+package com.weather_app.load;
+
+import com.weather_app.WeatherAppApplication;
+import com.weather_app.support.StubWeatherApi;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Starts the application against a {@link StubWeatherApi} and drives {@code GET /weather?city=}
+ * open-loop: requests go out at the scenario's fixed arrival rate whether or not earlier ones
+ * have answered, and each latency is measured from when its request was due, so a stalled server
+ * is not hidden by a client that slowed down with it (coordinated omission). At most
+ * {@code maxInFlight} requests are outstanding; arrivals beyond that are counted as dropped.
+ */
+final class LoadRunner {
+    private static final Duration POOL_SAMPLE_INTERVAL = Duration.ofMillis(50);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final LoadScenario scenario;
+    private final StubWeatherApi upstream;
+    private final MeterRegistry appRegistry;
+    private final HikariPoolMXBean pool;
+    private final int poolSize;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Semaphore inFlight;
+    private final Timer latency;
+    private final Timer[] windows;
+    private final long[] windowHeapMb;
+    private final Map<String, Map<Integer, LongAdder>> statuses = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private volatile long measureStart;
+    // written by the sampler thread only
+    private volatile int maxActive;
+    private volatile int maxWaiting;
+    private volatile long samples;
+    private volatile long saturatedSamples;
+
+    private LoadRunner(LoadScenario scenario, StubWeatherApi upstream, ConfigurableApplicationContext ctx)
+            throws Exception {
+        this.scenario = scenario;
+        this.upstream = upstream;
+        this.appRegistry = ctx.getBean(MeterRegistry.class);
+        HikariDataSource dataSource = ctx.getBean(DataSource.class).unwrap(HikariDataSource.class);
+        this.pool = dataSource.getHikariPoolMXBean();
+        this.poolSize = dataSource.getMaximumPoolSize();
+        this.baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) ctx).getWebServer().getPort()
+                + "/weather?city=";
+        this.inFlight = new Semaphore(scenario.maxInFlight());
+
+        // one registry for the whole run, histograms never rotate so percentiles cover every request
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        this.latency = latencyTimer(registry, "all");
+        int windowCount = (int) Math.max(1, ceilDiv(scenario.duration().toNanos(), scenario.window().toNanos()));
+        this.windows = new Timer[windowCount];
+        this.windowHeapMb = new long[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = latencyTimer(registry, Integer.toString(i));
+        }
+    }
+
+    static LoadReport run(LoadScenario scenario) throws Exception {
+        try (StubWeatherApi upstream = new StubWeatherApi(scenario.upstreamLatency());
+             ConfigurableApplicationContext ctx = start(scenario, upstream)) {
+            upstream.simulate(scenario.upstreamLatency(), scenario.upstreamJitter(),
+                    scenario.upstreamErrorRate(), scenario.upstreamThrottleRate());
+            LoadReport report = new LoadRunner(scenario, upstream, ctx).drive();
+            System.out.println(report);
+            System.out.println("report written to " + report.write().toAbsolutePath());
+            return report;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadScenario scenario, StubWeatherApi upstream) {
+        // command-line style args so they take precedence over application.yml
+        return new SpringApplicationBuilder(WeatherAppApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + scenario.name(),
+                "--spring.datasource.hikari.maximum-pool-size=" + scenario.poolSize(),
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--weather.cache.warm-on-startup=false",
+                // the stub has no quota; keep the limiter, breaker and bulkhead in the path but not the bottleneck
+                "--weather.resilience.rate-limit.calls-per-minute=1000000",
+                "--weather.resilience.rate-limit.burst=10000",
+                "--weather.api.url=" + upstream.weatherUrl());
+    }
+
+    private LoadReport drive() throws InterruptedException {
+        ZipfSampler zipf = new ZipfSampler(scenario.cities(), scenario.zipfExponent());
+        SplittableRandom random = new SplittableRandom(42);
+        long interval = TimeUnit.SECONDS.toNanos(1) / scenario.rate();
+        long warmup = scenario.warmup().toNanos();
+        long total = (warmup + scenario.duration().toNanos()) / interval;
+        long start = System.nanoTime();
+        measureStart = start + warmup;
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "load-pool-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        Baseline baseline = null;
+        long sent = 0;
+        long dropped = 0;
+        try {
+            for (long i = 0; i < total; i++) {
+                long due = start + i * interval;
+                long wait = due - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                boolean measured = due >= measureStart;
+                if (measured && baseline == null) {
+                    baseline = new Baseline();
+                    sampler.scheduleAtFixedRate(this::samplePool, 0, POOL_SAMPLE_INTERVAL.toMillis(),
+                            TimeUnit.MILLISECONDS);
+                }
+                if (!inFlight.tryAcquire()) {
+                    if (measured) dropped++;
+                    continue;
+                }
+                if (measured) sent++;
+                // cold names are never repeated, so each one misses every tier and calls upstream
+                boolean cold = random.nextDouble() < scenario.missRatio();
+                String city = cold ? "cold-" + scenario.name() + "-" + i : "hot-" + zipf.next(random);
+                send(city, cold ? "cold" : "hot", due, measured ? window(due - measureStart) : -1);
+            }
+            if (!inFlight.tryAcquire(scenario.maxInFlight(), DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.out.println("gave up waiting for " + (scenario.maxInFlight() - inFlight.availablePermits())
+                        + " outstanding requests");
+            }
+        } finally {
+            sampler.shutdownNow();
+        }
+        if (baseline == null) baseline = new Baseline();
+        return report(baseline, sent, dropped);
+    }
+
+    private int window(long sinceMeasureStart) {
+        return (int) Math.min(windows.length - 1, sinceMeasureStart / scenario.window().toNanos());
+    }
+
+    private void send(String city, String kind, long due, int window) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + URLEncoder.encode(city, StandardCharsets.UTF_8)))
+                .timeout(DRAIN_TIMEOUT)
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            inFlight.release();
+            if (window < 0) return;
+            long now = System.nanoTime();
+            if (error != null) {
+                transportErrors.increment();
+                return;
+            }
+            latency.record(now - due, TimeUnit.NANOSECONDS);
+            windows[window].record(now - due, TimeUnit.NANOSECONDS);
+            completed.increment();
+            lastCompletion.accumulateAndGet(now, Math::max);
+            statuses.computeIfAbsent(kind, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(response.statusCode(), s -> new LongAdder())
+                    .increment();
+        });
+    }
+
+    private void samplePool() {
+        int active = pool.getActiveConnections();
+        int waiting = pool.getThreadsAwaitingConnection();
+        if (active > maxActive) maxActive = active;
+        if (waiting > maxWaiting) maxWaiting = waiting;
+        if (active >= poolSize) saturatedSamples++;
+        samples++;
+        // the last reading in a window stands for it
+        windowHeapMb[window(System.nanoTime() - measureStart)] =
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+    }
+
+    private LoadReport report(Baseline baseline, long sent, long dropped) {
+        double seconds = Math.max(1, lastCompletion.get() - measureStart) / 1e9;
+        List<LoadReport.Window> perWindow = new ArrayList<>(windows.length);
+        for (int i = 0; i < windows.length; i++) {
+            // the last window is shorter when the duration is not a multiple of it
+            long windowNanos = Math.min(scenario.window().toNanos(),
+                    scenario.duration().toNanos() - i * scenario.window().toNanos());
+            double windowSeconds = windowNanos / 1e9;
+            LoadReport.Latency l = latencyOf(windows[i]);
+            perWindow.add(new LoadReport.Window(i, l.count() / windowSeconds, l.p50(), l.p99(), l.max(), windowHeapMb[i]));
+        }
+
+        Map<String, Map<Integer, Long>> statusCounts = new TreeMap<>();
+        statuses.forEach((kind, byStatus) -> {
+            Map<Integer, Long> counts = new TreeMap<>();
+            byStatus.forEach((status, n) -> counts.put(status, n.sum()));
+            statusCounts.put(kind, counts);
+        });
+        Map<String, Long> lookups = new TreeMap<>();
+        lookupCounts().forEach((result, n) -> lookups.put(result, n - baseline.lookups.getOrDefault(result, 0L)));
+
+        Timer acquire = appRegistry.find("hikaricp.connections.acquire").timer();
+        long acquires = acquire == null ? 0 : acquire.count() - baseline.acquires;
+        double acquireMillis = acquire == null ? 0 : acquire.totalTime(TimeUnit.MILLISECONDS) - baseline.acquireMillis;
+        Counter timeouts = appRegistry.find("hikaricp.connections.timeout").counter();
+        LoadReport.Pool poolReport = new LoadReport.Pool(poolSize, maxActive, maxWaiting,
+                samples == 0 ? 0 : (double) saturatedSamples / samples,
+                acquires == 0 ? 0 : acquireMillis / acquires,
+                acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS),
+                timeouts == null ? 0 : (long) timeouts.count() - baseline.timeouts);
+
+        LoadReport.Upstream upstreamReport = new LoadReport.Upstream(
+                upstream.calls() - baseline.upstreamCalls, upstream.groupCalls() - baseline.groupCalls,
+                upstream.errors() - baseline.upstreamErrors, upstream.throttled() - baseline.throttled);
+
+        return new LoadReport(scenario, seconds, sent, completed.sum(), dropped, transportErrors.sum(),
+                completed.sum() / seconds, statusCounts, latencyOf(latency), perWindow, upstreamReport, lookups,
+                poolReport);
+    }
+
+    private Map<String, Long> lookupCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Timer timer : appRegistry.find("weather.lookup").timers()) {
+            counts.merge(timer.getId().getTag("result"), timer.count(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static LoadReport.Latency latencyOf(Timer timer) {
+        ValueAtPercentile[] values = timer.takeSnapshot().percentileValues();
+        return new LoadReport.Latency(timer.count(),
+                values[0].value(TimeUnit.MILLISECONDS), values[1].value(TimeUnit.MILLISECONDS),
+                values[2].value(TimeUnit.MILLISECONDS), values[3].value(TimeUnit.MILLISECONDS),
+                timer.max(TimeUnit.MILLISECONDS));
+    }
+
+    private static Timer latencyTimer(MeterRegistry registry, String window) {
+        return Timer.builder("load.latency")
+                .tag("window", window)
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+
+    /** Application counters as they stood when measuring started; warm-up traffic is subtracted. */
+    private final class Baseline {
+        final Map<String, Long> lookups = lookupCounts();
+        final long upstreamCalls = upstream.calls();
+        final long groupCalls = upstream.groupCalls();
+        final long upstreamErrors = upstream.errors();
+        final long throttled = upstream.throttled();
+        final long acquires;
+        final double acquireMillis;
+        final long timeouts;
+
+        Baseline() {
+            Timer acquire = appRegistry.find("hikaricp.connections.acquire").timer();
+            acquires = acquire == null ? 0 : acquire.count();
+            acquireMillis = acquire == null ? 0 : acquire.totalTime(TimeUnit.MILLISECONDS);
+            Counter timeout = appRegistry.find("hikaricp.connections.timeout").counter();
+            timeouts = timeout == null ? 0 : (long) timeout.count();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.weather_app.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * One load run: an open-loop arrival {@code rate} against {@code GET /weather} for {@code duration}
+ * after {@code warmup}, over {@code cities} Zipf-ranked names plus a {@code missRatio} share of
+ * never-seen names, with the stub upstream answering after {@code upstreamLatency} plus up to
+ * {@code upstreamJitter} and failing at the given rates. {@link #withSystemOverrides()} lets a run
+ * be resized from the command line, e.g. {@code -Dload.rate=2000 -Dload.duration=5m}.
+ */
+record LoadScenario(String name, int rate, Duration warmup, Duration duration, Duration window,
+                    int cities, double zipfExponent, double missRatio,
+                    Duration upstreamLatency, Duration upstreamJitter,
+                    double upstreamErrorRate, double upstreamThrottleRate,
+                    int poolSize, int maxInFlight) {
+
+    static LoadScenario named(String name) {
+        return new LoadScenario(name, 100, Duration.ofSeconds(20), Duration.ofSeconds(30), Duration.ofSeconds(10),
+                2_000, 1.1, 0.05, Duration.ofMillis(20), Duration.ofMillis(10), 0, 0, 10, 2_000);
+    }
+
+    LoadScenario rate(int rate) {
+        return new LoadScenario(name, rate, warmup, duration, window, cities, zipfExponent, missRatio,
+                upstreamLatency, upstreamJitter, upstreamErrorRate, upstreamThrottleRate, poolSize, maxInFlight);
+    }
+
+    LoadScenario duration(Duration duration, Duration window) {
+        return new LoadScenario(name, rate, warmup, duration, window, cities, zipfExponent, missRatio,
+                upstreamLatency, upstreamJitter, upstreamErrorRate, upstreamThrottleRate, poolSize, maxInFlight);
+    }
+
+    LoadScenario missRatio(double missRatio) {
+        return new LoadScenario(name, rate, warmup, duration, window, cities, zipfExponent, missRatio,
+                upstreamLatency, upstreamJitter, upstreamErrorRate, upstreamThrottleRate, poolSize, maxInFlight);
+    }
+
+    LoadScenario upstream(Duration latency, Duration jitter, double errorRate, double throttleRate) {
+        return new LoadScenario(name, rate, warmup, duration, window, cities, zipfExponent, missRatio,
+                latency, jitter, errorRate, throttleRate, poolSize, maxInFlight);
+    }
+
+    LoadScenario withSystemOverrides() {
+        return new LoadScenario(name,
+                Integer.getInteger("load.rate", rate),
+                duration("load.warmup", warmup),
+                duration("load.duration", duration),
+                duration("load.window", window),
+                Integer.getInteger("load.cities", cities),
+                decimal("load.zipf-exponent", zipfExponent),
+                decimal("load.miss-ratio", missRatio),
+                duration("load.upstream-latency", upstreamLatency),
+                duration("load.upstream-jitter", upstreamJitter),
+                decimal("load.upstream-error-rate", upstreamErrorRate),
+                decimal("load.upstream-throttle-rate", upstreamThrottleRate),
+                Integer.getInteger("load.pool-size", poolSize),
+                Integer.getInteger("load.max-in-flight", maxInFlight));
+    }
+
+    private static Duration duration(String property, Duration fallback) {
+        String value = System.getProperty(property);
+        // same syntax as application.yml: 30s, 5m, 250ms or ISO-8601
+        return value == null || value.isBlank() ? fallback : DurationStyle.detectAndParse(value);
+    }
+
+    private static double decimal(String property, double fallback) {
+        String value = System.getProperty(property);
+        return value == null || value.isBlank() ? fallback : Double.parseDouble(value);
+    }
+}
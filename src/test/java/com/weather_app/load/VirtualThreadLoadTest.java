@@ -0,0 +1,115 @@
+package com.weather_app.load;
+
+import com.weather_app.WeatherAppApplication;
+import com.weather_app.support.StubWeatherApi;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares throughput of the blocking request path on Tomcat platform threads vs. virtual
+ * threads, with every request missing the cache and waiting on a slow stub upstream.
+ * Run with {@code mvn -Pjava21,load-test test -Dtest=VirtualThreadLoadTest} on a Java 21 JDK.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(500);
+    private static final int TOMCAT_THREADS = 20;
+    private static final int CLIENT_CONCURRENCY = 400;
+    private static final int REQUESTS = 2_000;
+
+    @Test
+    void virtualThreads_outperformPlatformThreads_onSlowUpstream() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+
+        try (StubWeatherApi upstream = new StubWeatherApi(UPSTREAM_LATENCY)) {
+            Result platform = run(upstream, false);
+            Result virtual = run(upstream, true);
+
+            System.out.printf("platform threads: %s%nvirtual threads:  %s%n", platform, virtual);
+            assertThat(platform.errors()).isZero();
+            assertThat(virtual.errors()).isZero();
+            assertThat(virtual.throughput()).isGreaterThan(platform.throughput() * 1.5);
+        }
+    }
+
+    private Result run(StubWeatherApi upstream, boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        // command-line style args so they take precedence over application.yml
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(WeatherAppApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--server.tomcat.accept-count=" + CLIENT_CONCURRENCY,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                "--spring.datasource.hikari.maximum-pool-size=20",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                // measure the threading model, not our own quota and concurrency guards
+                "--weather.resilience.enabled=false",
+                "--weather.api.url=" + upstream.weatherUrl())) {
+            int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+            return drive("http://127.0.0.1:" + port + "/weather?city=", mode);
+        }
+    }
+
+    private Result drive(String baseUrl, String mode) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENT_CONCURRENCY);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < CLIENT_CONCURRENCY; w++) {
+                workers.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < REQUESTS) {
+                        // unique city per request, so each one misses and calls upstream
+                        HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + mode + "-city-" + i))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        try {
+                            HttpResponse<Void> res = client.send(req, HttpResponse.BodyHandlers.discarding());
+                            if (res.statusCode() != 200) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : workers) {
+                f.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new Result(REQUESTS / seconds, seconds, errors.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    record Result(double throughput, double seconds, int errors) {
+        @Override
+        public String toString() {
+            return "%.0f req/s (%d requests in %.1f s, %d errors)".formatted(throughput, REQUESTS, seconds, errors);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.weather_app.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Open-loop load against {@code GET /weather} with a Zipf mix of repeated and never-seen cities.
+ * Run with {@code mvn -Pload-test test}; resize with {@code -Dload.*} (see {@link LoadScenario}) and
+ * read the full numbers from {@code target/load-reports/<scenario>.json}.
+ */
+@Tag("load")
+class WeatherLoadTest {
+    // generous by default so a busy CI box passes; tighten per environment with -Dload.p99-slo-ms
+    private static final long P99_SLO_MILLIS = Long.getLong("load.p99-slo-ms", 500);
+
+    @Test
+    void zipfMix_onFastUpstream_servesHotCitiesFromCache() throws Exception {
+        LoadReport report = LoadRunner.run(LoadScenario.named("zipf-fast").withSystemOverrides());
+
+        assertThat(report.transportErrors()).isZero();
+        assertThat(report.dropped()).isZero();
+        assertThat(report.count("hot", 200)).isEqualTo(report.count("hot"));
+        assertThat(report.count("cold", 200)).isEqualTo(report.count("cold"));
+        // after warm-up the hot set is cached: upstream sees the cold names and little else
+        assertThat(report.upstream().calls()).isLessThan(report.count("cold") * 2 + report.scenario().cities());
+        assertThat(report.pool().timeouts()).isZero();
+        assertThat(report.latency().p99()).isLessThan(P99_SLO_MILLIS);
+    }
+
+    @Test
+    void slowFaultyUpstream_neitherHoldsDbConnections_norFailsCachedCities() throws Exception {
+        LoadReport report = LoadRunner.run(LoadScenario.named("faulty-slow")
+                .missRatio(0.1)
+                .upstream(Duration.ofMillis(200), Duration.ofMillis(100), 0.05, 0.05)
+                .withSystemOverrides());
+
+        assertThat(report.transportErrors()).isZero();
+        assertThat(report.upstream().errors()).isPositive();
+        assertThat(report.upstream().throttled()).isPositive();
+        // upstream calls happen outside transactions, so slow answers never pile up on the pool
+        assertThat(report.pool().timeouts()).isZero();
+        assertThat(report.pool().maxWaiting()).isLessThan(report.pool().size());
+        assertThat(report.count("hot", 200)).isGreaterThanOrEqualTo((long) (report.count("hot") * 0.95));
+    }
+}
@@ -0,0 +1,38 @@
+package com.weather_app.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A long steady run that looks for drift rather than peak numbers: latency, throughput and heap
+ * per {@code window} should stay flat from the first window to the last. Run with
+ * {@code mvn -Psoak-test test}, 30 minutes by default ({@code -Dload.duration=2h} for longer).
+ */
+@Tag("soak")
+class WeatherSoakTest {
+
+    @Test
+    void steadyZipfMix_doesNotDegradeOverTime() throws Exception {
+        LoadReport report = LoadRunner.run(LoadScenario.named("soak")
+                .duration(Duration.ofMinutes(30), Duration.ofMinutes(1))
+                .upstream(Duration.ofMillis(50), Duration.ofMillis(50), 0.01, 0.01)
+                .withSystemOverrides());
+
+        assertThat(report.transportErrors()).isZero();
+        assertThat(report.dropped()).isZero();
+        assertThat(report.pool().timeouts()).isZero();
+
+        var windows = report.windows();
+        var first = windows.get(0);
+        var last = windows.get(windows.size() - 1);
+        // the first window still has the cache filling up; twice its p99 (+10 ms of noise) is the ceiling
+        assertThat(last.p99()).isLessThan(first.p99() * 2 + 10);
+        assertThat(last.throughput()).isGreaterThan(first.throughput() * 0.9);
+        // a steady workload holds a steady working set
+        assertThat(last.heapUsedMb()).isLessThan(Math.max(first.heapUsedMb() * 3, 256));
+    }
+}
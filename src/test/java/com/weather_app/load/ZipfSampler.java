@@ -0,0 +1,30 @@
+package com.weather_app.load;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent},
+ * the shape real location traffic has: a few cities take most requests, the tail is long.
+ */
+final class ZipfSampler {
+    private final double[] cdf;
+
+    ZipfSampler(int n, double exponent) {
+        if (n < 1) throw new IllegalArgumentException("n must be positive");
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+    }
+
+    int next(RandomGenerator random) {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+    }
+}
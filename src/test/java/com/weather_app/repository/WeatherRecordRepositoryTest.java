@@ -4,8 +4,10 @@ import com.weather_app.model.WeatherRecord;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -50,4 +52,36 @@ class WeatherRecordRepositoryTest {
         assertThat(found).isPresent();
         assertThat(found.get().getLocationKey()).isEqualTo("city:london");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByLocationKeyIn_returnsOnlyMatchingRecords() {
+        for (String key : new String[]{"city:kyiv", "city:london", "zip:90210"}) {
+            WeatherRecord rec = new WeatherRecord();
+            rec.setLocationKey(key);
+            rec.setUpdatedAt(LocalDateTime.now());
+            repository.save(rec);
+        }
+
+        var found = repository.findAllByLocationKeyIn(List.of("city:kyiv", "zip:90210", "city:paris"));
+
+        assertThat(found).extracting(WeatherRecord::getLocationKey)
+                .containsExactlyInAnyOrder("city:kyiv", "zip:90210");
+    }
+
+    @Test
+    void findByUpdatedAtAfter_returnsNewestFirst_upToLimit() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        String[][] rows = {{"city:kyiv", "5"}, {"city:london", "20"}, {"zip:90210", "1"}, {"city:paris", "10"}};
+        for (String[] row : rows) {
+            WeatherRecord rec = new WeatherRecord();
+            rec.setLocationKey(row[0]);
+            rec.setUpdatedAt(now.minusMinutes(Long.parseLong(row[1])));
+            repository.save(rec);
+        }
+
+        var found = repository.findByUpdatedAtAfterOrderByUpdatedAtDesc(now.minusMinutes(15), Limit.of(2));
+
+        assertThat(found).extracting(WeatherRecord::getLocationKey)
+                .containsExactly("zip:90210", "city:kyiv");
+    }
+}
@@ -0,0 +1,154 @@
+package com.weather_app.repository;
+
+import com.weather_app.config.WeatherPersistenceProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+// the flusher commits on its own connection, so the test must not hold a transaction open
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WeatherRecordWriteBehindTest {
+
+    @Autowired
+    WeatherRecordRepository repository;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    WeatherRecordWriteBehind writeBehind;
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) writeBehind.destroy();
+        repository.deleteAll();
+    }
+
+    private WeatherRecordWriteBehind newWriteBehind(int batchSize, Duration flushInterval) {
+        var props = new WeatherPersistenceProperties();
+        props.getWriteBehind().setEnabled(true);
+        props.getWriteBehind().setBatchSize(batchSize);
+        props.getWriteBehind().setFlushInterval(flushInterval);
+        return new WeatherRecordWriteBehind(new JdbcTemplate(dataSource), transactionManager, props,
+                new SimpleMeterRegistry());
+    }
+
+    private WeatherRecord record(String key, double temperature) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setCity(key.substring(key.indexOf(':') + 1));
+        rec.setTemperature(temperature);
+        rec.setHumidity(50);
+        rec.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 0));
+        return rec;
+    }
+
+    @Test
+    void flush_upsertsLatestRecordPerKey_keepingExistingIds() {
+        var existing = repository.save(record("city:kyiv", 1.0));
+        writeBehind = newWriteBehind(100, Duration.ofHours(1));
+
+        writeBehind.enqueue(record("city:kyiv", 2.0));
+        writeBehind.enqueue(record("city:kyiv", 3.0));
+        writeBehind.enqueue(record("city:london", 4.0));
+        assertThat(writeBehind.pending("city:kyiv")).get()
+                .extracting(WeatherRecord::getTemperature).isEqualTo(3.0);
+        assertThat(repository.findByLocationKey("city:london")).isEmpty();
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(repository.count()).isEqualTo(2);
+        var kyiv = repository.findByLocationKey("city:kyiv").orElseThrow();
+        assertThat(kyiv.getId()).isEqualTo(existing.getId());
+        assertThat(kyiv.getTemperature()).isEqualTo(3.0);
+        assertThat(repository.findByLocationKey("city:london").orElseThrow().getHumidity()).isEqualTo(50);
+    }
+
+    @Test
+    void flush_writesProviderIdAndCoordinates_andKeepsKnownOnesWhenMissing() {
+        var existing = record("city:kyiv", 1.0);
+        existing.setProviderId(703448L);
+        existing.setLatitude(50.45);
+        existing.setLongitude(30.52);
+        repository.save(existing);
+        writeBehind = newWriteBehind(100, Duration.ofHours(1));
+
+        writeBehind.enqueue(record("city:kyiv", 2.0)); // no id or coordinates in this response
+        var london = record("city:london", 4.0);
+        london.setProviderId(2643743L);
+        london.setLatitude(51.51);
+        london.setLongitude(-0.13);
+        writeBehind.enqueue(london);
+        writeBehind.flush();
+
+        var kyiv = repository.findByLocationKey("city:kyiv").orElseThrow();
+        assertThat(kyiv.getProviderId()).isEqualTo(703448L);
+        assertThat(kyiv.getLatitude()).isEqualTo(50.45);
+        var saved = repository.findByLocationKey("city:london").orElseThrow();
+        assertThat(saved.getProviderId()).isEqualTo(2643743L);
+        assertThat(saved.getLatitude()).isEqualTo(51.51);
+        assertThat(saved.getLongitude()).isEqualTo(-0.13);
+    }
+
+    @Test
+    void flush_neverOverwritesANewerRow() {
+        var newer = record("city:kyiv", 9.0);
+        newer.setUpdatedAt(LocalDateTime.of(2025, 1, 1, 12, 5));
+        repository.save(newer);
+        writeBehind = newWriteBehind(100, Duration.ofHours(1));
+
+        writeBehind.enqueue(record("city:kyiv", 2.0)); // updated at 12:00
+        writeBehind.flush();
+
+        assertThat(repository.findByLocationKey("city:kyiv").orElseThrow().getTemperature()).isEqualTo(9.0);
+    }
+
+    @Test
+    void fullBatch_isFlushedInTheBackground() throws InterruptedException {
+        writeBehind = newWriteBehind(2, Duration.ofHours(1));
+
+        writeBehind.enqueue(record("city:kyiv", 1.0));
+        writeBehind.enqueue(record("city:london", 2.0));
+
+        for (int i = 0; i < 100 && repository.count() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void destroy_flushesEverythingPending() {
+        writeBehind = newWriteBehind(100, Duration.ofHours(1));
+        writeBehind.enqueue(record("city:kyiv", 1.0));
+
+        writeBehind.destroy();
+        writeBehind = null;
+
+        assertThat(repository.findByLocationKey("city:kyiv")).isPresent();
+    }
+
+    @Test
+    void disabled_hasNothingPending() {
+        var disabled = new WeatherRecordWriteBehind(null, null, new WeatherPersistenceProperties(),
+                new SimpleMeterRegistry());
+
+        assertThat(disabled.enabled()).isFalse();
+        assertThat(disabled.pending("city:kyiv")).isEmpty();
+        disabled.destroy();
+    }
+}
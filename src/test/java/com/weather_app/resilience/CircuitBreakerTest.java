@@ -0,0 +1,128 @@
+package com.weather_app.resilience;
+
+import com.weather_app.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private Instant now = Instant.parse("2025-01-01T12:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+
+    // 50% of the last 4 calls, at least 4 calls, 30s open, 2 probes
+    private final CircuitBreaker breaker =
+            new CircuitBreaker("test", 0.5, 4, 4, Duration.ofSeconds(30), 2, clock);
+
+    @Test
+    void staysClosed_untilMinimumCallsReached() {
+        call(false);
+        call(false);
+        call(false);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureRateThreshold_andRejectsCalls() {
+        call(false);
+        call(false);
+        call(true);
+        call(true);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.notPermittedCount()).isEqualTo(1);
+        assertThat(breaker.transitionCount(State.CLOSED, State.OPEN)).isEqualTo(1);
+    }
+
+    @Test
+    void slidingWindow_forgetsOldCalls() {
+        call(false);
+        call(false);
+        call(false);
+        call(true);
+        call(false); // window: ok ok fail ok
+        call(false); // window: ok fail ok ok
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void halfOpen_afterOpenDuration_closesWhenAllProbesSucceed() {
+        tripOpen();
+        now = now.plusSeconds(31);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse(); // only two probes
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.transitionCount(State.OPEN, State.HALF_OPEN)).isEqualTo(1);
+        assertThat(breaker.transitionCount(State.HALF_OPEN, State.CLOSED)).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpen_failedProbe_opensAgain() {
+        tripOpen();
+        now = now.plusSeconds(31);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onError();
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.transitionCount(State.HALF_OPEN, State.OPEN)).isEqualTo(1);
+    }
+
+    @Test
+    void releasedProbe_canBeTakenAgain() {
+        tripOpen();
+        now = now.plusSeconds(31);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.releasePermission();
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    private void call(boolean fail) {
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        if (fail) {
+            breaker.onError();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.weather_app.resilience;
+
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.RateLimitedException;
+import com.weather_app.exception.UpstreamUnavailableException;
+import com.weather_app.exception.WeatherApiException;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.resilience.CircuitBreaker.State;
+import com.weather_app.service.WeatherProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResilientWeatherProviderTest {
+
+    @Mock
+    WeatherProvider delegate;
+
+    CircuitBreaker breaker;
+    Bulkhead bulkhead;
+    TokenBucketRateLimiter limiter;
+    ResilientWeatherProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker("test", 0.5, 2, 2, Duration.ofMinutes(1), 1, Clock.systemUTC());
+        bulkhead = new Bulkhead(1);
+        limiter = new TokenBucketRateLimiter(60, 5, 6, Clock.systemUTC());
+        provider = new ResilientWeatherProvider(delegate, breaker, bulkhead, limiter);
+    }
+
+    @Test
+    void success_passesThrough_andReleasesBulkhead() {
+        var api = new WeatherApiResponse();
+        when(delegate.fetchByCity("kyiv")).thenReturn(api);
+
+        assertThat(provider.fetchByCity("kyiv")).isSameAs(api);
+        assertThat(bulkhead.activeCalls()).isZero();
+    }
+
+    @Test
+    void groupCall_takesOnePermit_andExposesDelegateGroupSize() {
+        var api = new WeatherApiResponse();
+        when(delegate.groupSize()).thenReturn(20);
+        when(delegate.fetchByIds(List.of(1L, 2L, 3L))).thenReturn(List.of(api));
+        limiter = new TokenBucketRateLimiter(60, 1, 6, Clock.systemUTC());
+        provider = new ResilientWeatherProvider(delegate, breaker, bulkhead, limiter);
+
+        assertThat(provider.groupSize()).isEqualTo(20);
+        assertThat(provider.fetchByIds(List.of(1L, 2L, 3L))).containsExactly(api);
+        assertThatThrownBy(() -> provider.fetchByIds(List.of(4L)))
+                .isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void failures_openCircuit_thenCallsFailFastWithoutReachingProvider() {
+        when(delegate.fetchByZip("1")).thenThrow(new WeatherApiException("Failed to fetch weather data."));
+        assertThatThrownBy(() -> provider.fetchByZip("1")).isInstanceOf(WeatherApiException.class);
+        assertThatThrownBy(() -> provider.fetchByZip("1")).isInstanceOf(WeatherApiException.class);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThatThrownBy(() -> provider.fetchByCity("kyiv"))
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessage("Weather provider unavailable: circuit open.");
+        verify(delegate, never()).fetchByCity(any());
+        assertThat(bulkhead.activeCalls()).isZero();
+    }
+
+    @Test
+    void notFound_doesNotCountAsFailure() {
+        when(delegate.fetchByCity("atlantis")).thenThrow(new LocationNotFoundException(null));
+
+        assertThatThrownBy(() -> provider.fetchByCity("atlantis")).isInstanceOf(LocationNotFoundException.class);
+        assertThatThrownBy(() -> provider.fetchByCity("atlantis")).isInstanceOf(LocationNotFoundException.class);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void providerThrottling_slowsDownTheLimiter() {
+        when(delegate.fetchByCity("kyiv")).thenThrow(new RateLimitedException(null));
+
+        assertThatThrownBy(() -> provider.fetchByCity("kyiv")).isInstanceOf(RateLimitedException.class);
+
+        assertThat(limiter.throttledCount()).isEqualTo(1);
+        assertThatThrownBy(() -> provider.fetchByCity("kyiv"))
+                .hasMessage("Weather provider unavailable: call quota exhausted.");
+    }
+
+    @Test
+    void bulkheadFull_rejectsAsyncCall_andReleasesWhenFirstCompletes() {
+        var pending = new CompletableFuture<WeatherApiResponse>();
+        when(delegate.fetchByCityAsync(any(), any())).thenReturn(pending);
+
+        var first = provider.fetchByCityAsync("kyiv", Runnable::run);
+        var second = provider.fetchByCityAsync("london", Runnable::run);
+
+        assertThat(second).isCompletedExceptionally();
+        assertThatThrownBy(second::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class);
+        assertThat(bulkhead.rejectedCount()).isEqualTo(1);
+
+        pending.complete(new WeatherApiResponse());
+        assertThat(first.join()).isNotNull();
+        assertThat(bulkhead.activeCalls()).isZero();
+    }
+
+    @Test
+    void asyncFailure_isRecordedByBreaker() {
+        when(delegate.fetchByZipAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new WeatherApiException("Failed to fetch weather data.")));
+
+        provider.fetchByZipAsync("1", Runnable::run);
+        provider.fetchByZipAsync("2", Runnable::run);
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(bulkhead.activeCalls()).isZero();
+    }
+}
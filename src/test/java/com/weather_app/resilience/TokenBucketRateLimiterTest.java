@@ -0,0 +1,76 @@
+package com.weather_app.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketRateLimiterTest {
+
+    private long millis = 0;
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    };
+
+    @Test
+    void allowsBurst_thenRefillsAtQuota() {
+        var limiter = new TokenBucketRateLimiter(60, 3, 6, clock); // one call per second
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        millis += 1_000;
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.rejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotAccumulateMoreThanBurst() {
+        var limiter = new TokenBucketRateLimiter(60, 2, 6, clock);
+
+        millis += 60_000;
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void throttled_halvesRateDownToFloor_andSuccessRecoversIt() {
+        var limiter = new TokenBucketRateLimiter(60, 10, 20, clock);
+
+        limiter.onThrottled();
+        assertThat(limiter.callsPerMinute()).isCloseTo(30, within(0.001));
+        assertThat(limiter.tryAcquire()).isFalse(); // bucket drained
+
+        limiter.onThrottled();
+        assertThat(limiter.callsPerMinute()).isCloseTo(20, within(0.001));
+        assertThat(limiter.throttledCount()).isEqualTo(2);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.callsPerMinute()).isCloseTo(60, within(0.001));
+    }
+}
@@ -0,0 +1,135 @@
+package com.weather_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.weather_app.config.WeatherApiProperties;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.support.StubWeatherApi;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncWeatherApiClientTest {
+
+    private StubWeatherApi upstream;
+    private WeatherApiProperties props;
+    private AsyncWeatherApiClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        upstream = new StubWeatherApi(Duration.ZERO);
+
+        props = new WeatherApiProperties();
+        props.setKey("dummyKey");
+        props.setUrl(upstream.weatherUrl());
+        props.setUnits("metric");
+        props.setReadTimeout(Duration.ofSeconds(2));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        client = new AsyncWeatherApiClient(httpClient, new ObjectMapper(), props, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void fetchByCityAsync_ok_mapsFields_andEncodesQuery() {
+        var dto = client.fetchByCityAsync("new york").join();
+
+        assertThat(dto.getCity()).isEqualTo("new york");
+        assertThat(dto.getTemperature()).isEqualTo(21.5);
+        assertThat(dto.getHumidity()).isEqualTo(40);
+        assertThat(dto.getDescription()).isEqualTo("clear sky");
+        assertThat(dto.getWindSpeed()).isEqualTo(3.1);
+        assertThat(upstream.lastQuery()).contains("q=new%20york", "appid=dummyKey", "units=metric");
+    }
+
+    @Test
+    void fetchByZip_blockingContract_returnsDto() {
+        var dto = client.fetchByZip("90210");
+
+        assertThat(dto.getCity()).isEqualTo("90210");
+        assertThat(upstream.lastQuery()).contains("zip=90210");
+    }
+
+    @Test
+    void fetchByCoordinates_sendsLatLon_andMapsCoordinates() {
+        var dto = client.fetchByCoordinates(50.45, 30.52);
+
+        assertThat(dto.getLatitude()).isEqualTo(50.45);
+        assertThat(dto.getLongitude()).isEqualTo(30.52);
+        assertThat(upstream.lastQuery()).contains("lat=50.45", "lon=30.52");
+    }
+
+    @Test
+    void fetchByIds_usesGroupEndpoint_andSkipsUnknownIds() {
+        long kyiv = client.fetchByCity("Kyiv").getCityId();
+        long lviv = client.fetchByCity("Lviv").getCityId();
+
+        var list = client.fetchByIds(List.of(kyiv, lviv, 1L));
+
+        assertThat(client.groupSize()).isEqualTo(20);
+        assertThat(list).extracting(WeatherApiResponse::getCity).containsExactly("Kyiv", "Lviv");
+        assertThat(upstream.groupCalls()).isEqualTo(1);
+        assertThat(upstream.lastQuery()).contains("id=" + kyiv + "," + lviv + ",1");
+    }
+
+    @Test
+    void fetchByCityAsync_withExecutor_doesNotUseExecutor() {
+        var dto = client.fetchByCityAsync("Kyiv", r -> {
+            throw new AssertionError("non-blocking client must not need an executor");
+        }).join();
+
+        assertThat(dto.getCity()).isEqualTo("Kyiv");
+    }
+
+    @Test
+    void fetchByCity_401_failsWithMessage() {
+        upstream.respondWith(401, "{}");
+
+        assertThatThrownBy(() -> client.fetchByCity("Kyiv"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("API key is invalid or not activated yet (401)");
+    }
+
+    @Test
+    void fetchByZipAsync_404_failsFutureWithMessage() {
+        upstream.respondWith(404, "{}");
+
+        assertThatThrownBy(() -> client.fetchByZipAsync("00000", Runnable::run).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("Location not found (404).");
+    }
+
+    @Test
+    void fetchByCity_serverError_andMalformedJson_fail() {
+        upstream.respondWith(503, "{}");
+        assertThatThrownBy(() -> client.fetchByCity("Kyiv"))
+                .hasMessageContaining("Failed to fetch weather data");
+
+        upstream.respondWith(200, "{ \"main\": ");
+        assertThatThrownBy(() -> client.fetchByCity("Kyiv"))
+                .hasMessageContaining("Failed to fetch weather data");
+    }
+
+    @Test
+    void fetchByCity_connectionRefused_fails() {
+        upstream.close();
+
+        assertThatThrownBy(() -> client.fetchByCity("Kyiv"))
+                .hasMessageContaining("Failed to fetch weather data");
+    }
+}
@@ -0,0 +1,52 @@
+package com.weather_app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityAliasIndexTest {
+
+    @Test
+    void fold_ignoresCaseAccentsAndSpacing() {
+        assertThat(CityAliasIndex.fold("  São   Paulo , BR ")).isEqualTo("sao paulo,br");
+        assertThat(CityAliasIndex.fold("ZÜRICH")).isEqualTo(CityAliasIndex.fold("zurich"));
+    }
+
+    @Test
+    void learn_firstQueryOfAProviderIdIsCanonical() {
+        var index = new CityAliasIndex(100, Map.of(), new SimpleMeterRegistry());
+
+        index.learn(Location.ofCity("kyiv,ua"), 703448L, "Kyiv");
+        index.learn(Location.ofCity("Kiev"), 703448L, "Kyiv");
+
+        assertThat(index.resolve(Location.ofCity("KIEV")).key()).isEqualTo("city:kyiv,ua");
+        assertThat(index.resolve(Location.ofCity("kyiv,ua")).key()).isEqualTo("city:kyiv,ua");
+        assertThat(index.resolve(Location.ofCity("Kyiv")).key()).isEqualTo("city:kyiv,ua"); // provider's name
+        assertThat(index.resolve(Location.ofZip("01001")).key()).isEqualTo("zip:01001");
+    }
+
+    @Test
+    void learn_doesNotClaimAProviderNameTheQueryNarrows() {
+        var index = new CityAliasIndex(100, Map.of(), new SimpleMeterRegistry());
+
+        index.learn(Location.ofCity("Paris Texas"), 4717560L, "Paris");
+
+        assertThat(index.resolve(Location.ofCity("paris")).key()).isEqualTo("city:paris");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void learn_stopsAtMaxSize() {
+        var index = new CityAliasIndex(1, Map.of(), new SimpleMeterRegistry());
+
+        index.learn(Location.ofCity("Kyiv"), 703448L, "Kyiv");
+        index.learn(Location.ofCity("Lviv"), 702550L, "Lviv");
+        index.learn(Location.ofCity("Kiev"), 703448L, "Kyiv");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.resolve(Location.ofCity("Kiev")).key()).isEqualTo("city:kiev");
+    }
+}
@@ -0,0 +1,395 @@
+package com.weather_app.service;
+
+import com.weather_app.cache.HotKeyTracker;
+import com.weather_app.cache.NegativeLookupCache;
+import com.weather_app.cache.NoSharedWeatherCache;
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.SharedWeatherCache;
+import com.weather_app.cache.StripedLocks;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherHistoryProperties;
+import com.weather_app.config.WeatherPersistenceProperties;
+import com.weather_app.config.WeatherPrewarmProperties;
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.WeatherApiException;
+import com.weather_app.history.HistoryResolution;
+import com.weather_app.history.ObservationHistory;
+import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.WeatherApiResponse;
+import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.repository.WeatherRecordWriteBehind;
+import com.weather_app.stream.WeatherUpdateHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HotKeyPrewarmerTest {
+
+    @Mock
+    WeatherRecordRepository repository;
+    @Mock
+    WeatherProvider apiClient;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private final Clock fixedClock =
+            Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    HotKeyTracker hotKeys;
+    WeatherRecordCache cache;
+    SimpleMeterRegistry meterRegistry;
+    WeatherPrewarmProperties props;
+    ObservationHistory history;
+    WeatherUpdateHub updates;
+    RefreshCoalescer coalescer;
+    NegativeLookupCache notFound;
+    WeatherRecordWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        hotKeys = new HotKeyTracker(16, Duration.ofMinutes(10), fixedClock);
+        cache = new WeatherRecordCache(100, Duration.ofMinutes(15), fixedClock);
+        meterRegistry = new SimpleMeterRegistry();
+        history = new ObservationHistory(new WeatherHistoryProperties(), meterRegistry);
+        updates = new WeatherUpdateHub(new WeatherStreamProperties(), Runnable::run, meterRegistry);
+        coalescer = new RefreshCoalescer();
+        notFound = new NegativeLookupCache(true, Duration.ofMinutes(10), 4, 1_000, 0.001, meterRegistry, fixedClock);
+        writeBehind = new WeatherRecordWriteBehind(null, null, new WeatherPersistenceProperties(), meterRegistry);
+        props = new WeatherPrewarmProperties();
+        props.setTopN(2);
+        props.setLead(Duration.ofMinutes(2)); // refresh once older than 13 minutes
+    }
+
+    private HotKeyPrewarmer newPrewarmer() {
+        return newPrewarmer(new NoSharedWeatherCache());
+    }
+
+    private HotKeyPrewarmer newPrewarmer(SharedWeatherCache shared) {
+        return new HotKeyPrewarmer(hotKeys, cache, shared, coalescer, notFound, new StripedLocks(16), repository,
+                writeBehind, apiClient, history, updates, Runnable::run, transactionManager, props, new WeatherCacheProperties(),
+                meterRegistry, fixedClock);
+    }
+
+    private WeatherRecord record(String key, String updatedAt) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse(updatedAt), ZoneOffset.UTC));
+        return rec;
+    }
+
+    private void hit(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            hotKeys.record(key);
+        }
+    }
+
+    private double refreshes(String outcome) {
+        return meterRegistry.get("weather.prewarm.refreshes").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void prewarm_refreshesDueHotKeys_inOneBatch() {
+        hit("city:kyiv", 5);
+        hit("zip:10001", 4);
+        hit("city:london", 1); // not in the top 2
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));   // 14 min old, due
+        var dbRecord = record("zip:10001", "2025-01-01T11:40:00Z"); // only in the database, due
+        when(repository.findAllByLocationKeyIn(List.of("zip:10001"))).thenReturn(List.of(dbRecord));
+
+        var kyiv = new WeatherApiResponse();
+        kyiv.setCity("Kyiv");
+        kyiv.setTemperature(3.0);
+        var zip = new WeatherApiResponse();
+        zip.setCity("New York");
+        when(apiClient.fetchByCityAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(kyiv));
+        when(apiClient.fetchByZipAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(zip));
+        var kyivManaged = record("city:kyiv", "2025-01-01T11:46:00Z");
+        var zipManaged = record("zip:10001", "2025-01-01T11:40:00Z");
+        when(repository.findAllByLocationKeyIn(Set.of("city:kyiv", "zip:10001")))
+                .thenReturn(List.of(kyivManaged, zipManaged));
+
+        newPrewarmer().prewarm();
+
+        verify(apiClient).fetchByCityAsync(any(), any());
+        verify(apiClient).fetchByZipAsync(any(), any());
+        verify(repository, never()).save(any());
+        assertThat(kyivManaged.getTemperature()).isEqualTo(3.0);
+        assertThat(kyivManaged.getUpdatedAt()).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 0));
+        assertThat(zipManaged.getZip()).isEqualTo("10001");
+        assertThat(cache.peek("city:kyiv")).containsSame(kyivManaged);
+        assertThat(cache.peek("zip:10001")).containsSame(zipManaged);
+        assertThat(refreshes("success")).isEqualTo(2);
+    }
+
+    @Test
+    void prewarm_leavesKeysALookupIsRefreshing_andHandsItsRecordToWaiters() {
+        hit("city:kyiv", 5);
+        hit("city:london", 4);
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));
+        cache.put(record("city:london", "2025-01-01T11:46:00Z"));
+        var lookupOfKyiv = new CompletableFuture<WeatherRecord>();
+        coalescer.submit("city:kyiv", () -> lookupOfKyiv);
+        var london = new WeatherApiResponse();
+        london.setTemperature(8.0);
+        var waiter = new CompletableFuture<CompletableFuture<WeatherRecord>>();
+        when(apiClient.fetchByCityAsync(eq("london"), any())).thenAnswer(inv -> {
+            // a lookup of london arriving while the pre-warm call is out joins it
+            waiter.complete(coalescer.submit("city:london", CompletableFuture::new));
+            return CompletableFuture.completedFuture(london);
+        });
+        var londonRow = record("city:london", "2025-01-01T11:46:00Z");
+        when(repository.findAllByLocationKeyIn(Set.of("city:london"))).thenReturn(List.of(londonRow));
+
+        newPrewarmer().prewarm();
+
+        verify(apiClient, never()).fetchByCityAsync(eq("kyiv"), any());
+        assertThat(waiter.join()).isCompletedWithValue(londonRow);
+        assertThat(londonRow.getTemperature()).isEqualTo(8.0);
+        assertThat(coalescer.stats().coalesced()).isEqualTo(2);
+        assertThat(refreshes("success")).isEqualTo(1);
+    }
+
+    @Test
+    void prewarm_rowMissingFromTheDatabase_isSavedAsNew() {
+        hit("city:kyiv", 5);
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));
+        var kyiv = new WeatherApiResponse();
+        kyiv.setTemperature(4.0);
+        when(apiClient.fetchByCityAsync(eq("kyiv"), any())).thenReturn(CompletableFuture.completedFuture(kyiv));
+        when(repository.findAllByLocationKeyIn(Set.of("city:kyiv"))).thenReturn(List.of());
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        newPrewarmer().prewarm();
+
+        var saved = ArgumentCaptor.forClass(WeatherRecord.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getLocationKey()).isEqualTo("city:kyiv");
+        assertThat(saved.getValue().getTemperature()).isEqualTo(4.0);
+        assertThat(cache.peek("city:kyiv")).containsSame(saved.getValue());
+        assertThat(refreshes("success")).isEqualTo(1);
+        assertThat(refreshes("failed")).isZero();
+    }
+
+    @Test
+    void prewarm_failedSave_countsEveryKey_andFailsTheirWaiters() {
+        hit("city:kyiv", 5);
+        hit("city:lviv", 4);
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));
+        cache.put(record("city:lviv", "2025-01-01T11:46:00Z"));
+        var waiter = new CompletableFuture<CompletableFuture<WeatherRecord>>();
+        when(apiClient.fetchByCityAsync(any(), any())).thenAnswer(inv -> {
+            waiter.complete(coalescer.submit("city:kyiv", CompletableFuture::new));
+            return CompletableFuture.completedFuture(new WeatherApiResponse());
+        });
+        when(repository.findAllByLocationKeyIn(Set.of("city:kyiv", "city:lviv")))
+                .thenThrow(new IllegalStateException("database down"));
+
+        assertThatThrownBy(() -> newPrewarmer().prewarm()).hasMessage("database down");
+
+        assertThat(refreshes("failed")).isEqualTo(2);
+        assertThat(refreshes("success")).isZero();
+        assertThat(waiter.join()).isCompletedExceptionally();
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    void prewarm_withWriteBehind_queuesRecordsBasedOnPendingOnes_withoutReadingRows() {
+        writeBehind = mock(WeatherRecordWriteBehind.class);
+        when(writeBehind.enabled()).thenReturn(true);
+        hit("city:kyiv", 5);
+        hit("city:lviv", 4);
+        var cachedKyiv = record("city:kyiv", "2025-01-01T11:46:00Z");
+        cachedKyiv.setId(1L);
+        cache.put(cachedKyiv);
+        cache.put(record("city:lviv", "2025-01-01T11:46:00Z"));
+        var pendingLviv = record("city:lviv", "2025-01-01T11:46:00Z"); // refreshed, not flushed yet
+        pendingLviv.setProviderId(702550L);
+        when(writeBehind.pending("city:kyiv")).thenReturn(Optional.empty());
+        when(writeBehind.pending("city:lviv")).thenReturn(Optional.of(pendingLviv));
+        var response = new WeatherApiResponse();
+        response.setTemperature(6.0);
+        when(apiClient.fetchByCityAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(response));
+
+        newPrewarmer().prewarm();
+
+        var queued = ArgumentCaptor.forClass(WeatherRecord.class);
+        verify(writeBehind, times(2)).enqueue(queued.capture());
+        assertThat(queued.getAllValues())
+                .extracting(WeatherRecord::getLocationKey, WeatherRecord::getId, WeatherRecord::getProviderId,
+                        WeatherRecord::getTemperature)
+                .containsExactlyInAnyOrder(
+                        tuple("city:kyiv", 1L, null, 6.0),
+                        tuple("city:lviv", null, 702550L, 6.0));
+        verify(repository, never()).findAllByLocationKeyIn(any());
+        assertThat(cache.peek("city:lviv").orElseThrow().getTemperature()).isEqualTo(6.0);
+        assertThat(refreshes("success")).isEqualTo(2);
+    }
+
+    @Test
+    void prewarm_skipsFreshAndUnknownKeys() {
+        hit("city:kyiv", 5);
+        hit("city:atlantis", 4);
+        cache.put(record("city:kyiv", "2025-01-01T11:55:00Z")); // 5 min old
+        when(repository.findAllByLocationKeyIn(List.of("city:atlantis"))).thenReturn(List.of());
+
+        newPrewarmer().prewarm();
+
+        verify(apiClient, never()).fetchByCityAsync(any(), any());
+    }
+
+    @Test
+    void prewarm_staysWithinCallBudget() {
+        props.setCallsPerMinute(1);
+        hit("city:kyiv", 5);
+        hit("city:london", 4);
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));
+        cache.put(record("city:london", "2025-01-01T11:46:00Z"));
+        when(apiClient.fetchByCityAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new WeatherApiException("Failed to fetch weather data.")));
+
+        newPrewarmer().prewarm();
+
+        verify(apiClient).fetchByCityAsync(eq("kyiv"), any());
+        assertThat(refreshes("over_budget")).isEqualTo(1);
+        assertThat(refreshes("failed")).isEqualTo(1);
+        verify(repository, never()).findAllByLocationKeyIn(any());
+    }
+
+    @Test
+    void prewarm_knownCityIds_shareOneGroupCall_andOneBudgetUnit() {
+        props.setCallsPerMinute(1);
+        props.setTopN(3);
+        hit("city:kyiv", 5);
+        hit("city:lviv", 4);
+        hit("city:odesa", 3);
+        for (String key : List.of("city:kyiv", "city:lviv", "city:odesa")) {
+            var rec = record(key, "2025-01-01T11:46:00Z");
+            rec.setProviderId((long) key.length()); // 9, 9, 10: kyiv and lviv share an id on purpose
+            cache.put(rec);
+        }
+        var nine = new WeatherApiResponse();
+        nine.setCityId(9L);
+        nine.setTemperature(5.0);
+        when(apiClient.groupSize()).thenReturn(20);
+        when(apiClient.fetchByIdsAsync(eq(List.of(9L, 10L)), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(nine))); // 10 is left out
+        when(apiClient.fetchByCityAsync(eq("odesa"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new LocationNotFoundException(null)));
+        var kyivManaged = record("city:kyiv", "2025-01-01T11:46:00Z");
+        var lvivManaged = record("city:lviv", "2025-01-01T11:46:00Z");
+        when(repository.findAllByLocationKeyIn(Set.of("city:kyiv", "city:lviv")))
+                .thenReturn(List.of(kyivManaged, lvivManaged));
+
+        newPrewarmer().prewarm();
+
+        verify(apiClient, never()).fetchByCityAsync(eq("kyiv"), any());
+        verify(apiClient, never()).fetchByCityAsync(eq("lviv"), any());
+        assertThat(kyivManaged.getTemperature()).isEqualTo(5.0);
+        assertThat(lvivManaged.getProviderId()).isEqualTo(9L);
+        assertThat(refreshes("success")).isEqualTo(2);
+        assertThat(refreshes("failed")).isEqualTo(1);
+        assertThat(refreshes("over_budget")).isZero();
+        // only the single fetch's 404 says the location is gone
+        assertThat(notFound.recentlyNotFound("city:odesa")).isTrue();
+        assertThat(notFound.recentlyNotFound("city:kyiv")).isFalse();
+        assertThat(history.query("city:kyiv", LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 0, 0),
+                HistoryResolution.RAW)).hasSize(1);
+    }
+
+    @Test
+    void prewarm_idLeftOutOfTheGroupResponse_isFetchedOnItsOwn_forTheWaitingLookup() {
+        hit("city:kyiv", 5);
+        hit("city:lviv", 4);
+        var kyiv = record("city:kyiv", "2025-01-01T11:46:00Z");
+        kyiv.setProviderId(703448L);
+        cache.put(kyiv);
+        var lviv = record("city:lviv", "2025-01-01T11:46:00Z");
+        lviv.setProviderId(702550L);
+        cache.put(lviv);
+        var kyivResponse = new WeatherApiResponse();
+        kyivResponse.setCityId(703448L);
+        var waiter = new CompletableFuture<CompletableFuture<WeatherRecord>>();
+        when(apiClient.groupSize()).thenReturn(20);
+        when(apiClient.fetchByIdsAsync(eq(List.of(703448L, 702550L)), any())).thenAnswer(inv -> {
+            // a lookup of lviv arrives while the group call is out
+            waiter.complete(coalescer.submit("city:lviv", CompletableFuture::new));
+            return CompletableFuture.completedFuture(List.of(kyivResponse));
+        });
+        var lvivResponse = new WeatherApiResponse();
+        lvivResponse.setTemperature(7.0);
+        when(apiClient.fetchByCityAsync(eq("lviv"), any()))
+                .thenReturn(CompletableFuture.completedFuture(lvivResponse));
+        var kyivRow = record("city:kyiv", "2025-01-01T11:46:00Z");
+        var lvivRow = record("city:lviv", "2025-01-01T11:46:00Z");
+        when(repository.findAllByLocationKeyIn(Set.of("city:kyiv", "city:lviv"))).thenReturn(List.of(kyivRow, lvivRow));
+
+        newPrewarmer().prewarm();
+
+        assertThat(waiter.join()).isCompletedWithValue(lvivRow);
+        assertThat(lvivRow.getTemperature()).isEqualTo(7.0);
+        assertThat(notFound.recentlyNotFound("city:lviv")).isFalse();
+        assertThat(refreshes("success")).isEqualTo(2);
+        assertThat(refreshes("failed")).isZero();
+    }
+
+    @Test
+    void prewarm_leavesKeysToOtherInstances_andSharesWhatItRefreshes() {
+        props.setTopN(3);
+        hit("city:kyiv", 5);
+        hit("city:london", 4);
+        hit("city:paris", 3);
+        cache.put(record("city:kyiv", "2025-01-01T11:46:00Z"));
+        cache.put(record("city:london", "2025-01-01T11:46:00Z"));
+        cache.put(record("city:paris", "2025-01-01T11:46:00Z"));
+        var shared = mock(SharedWeatherCache.class);
+        var lock = mock(SharedWeatherCache.RefreshLock.class);
+        // kyiv was refreshed elsewhere, london is being refreshed elsewhere, paris is ours
+        var kyivFromPeer = record("city:kyiv", "2025-01-01T11:59:00Z");
+        when(shared.getAll(List.of("city:kyiv", "city:london", "city:paris")))
+                .thenReturn(Map.of("city:kyiv", kyivFromPeer));
+        when(shared.tryLock("city:london")).thenReturn(Optional.empty());
+        when(shared.tryLock("city:paris")).thenReturn(Optional.of(lock));
+        when(apiClient.fetchByCityAsync(eq("paris"), any()))
+                .thenReturn(CompletableFuture.completedFuture(new WeatherApiResponse()));
+        var parisManaged = record("city:paris", "2025-01-01T11:46:00Z");
+        when(repository.findAllByLocationKeyIn(Set.of("city:paris"))).thenReturn(List.of(parisManaged));
+
+        newPrewarmer(shared).prewarm();
+
+        assertThat(cache.peek("city:kyiv")).containsSame(kyivFromPeer);
+        verify(apiClient).fetchByCityAsync(eq("paris"), any());
+        verify(apiClient, never()).fetchByCityAsync(eq("london"), any());
+        verify(shared).put(parisManaged);
+        verify(lock).close();
+    }
+}
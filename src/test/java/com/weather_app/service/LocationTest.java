@@ -0,0 +1,45 @@
+package com.weather_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocationTest {
+
+    @Test
+    void ofCity_trimsAndLowercases() {
+        assertThat(Location.ofCity("  New York ")).isEqualTo(new Location("city:new york", "new york", null));
+    }
+
+    @Test
+    void ofZip_trimsButKeepsCase() {
+        assertThat(Location.ofZip(" SW1A ")).isEqualTo(new Location("zip:SW1A", null, "SW1A"));
+    }
+
+    @Test
+    void normalize_null_staysNull() {
+        assertThat(Location.normalizeCity(null)).isNull();
+        assertThat(Location.normalizeZip(null)).isNull();
+    }
+
+    @Test
+    void ofKey_roundTripsCityAndZipKeys() {
+        assertThat(Location.ofKey("city:new york")).isEqualTo(Location.ofCity("New York"));
+        assertThat(Location.ofKey("zip:SW1A")).isEqualTo(Location.ofZip("SW1A"));
+        assertThatThrownBy(() -> Location.ofKey("kyiv")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ofCoordinates_roundsToTwoDecimals_andRoundTripsThroughTheKey() {
+        var loc = Location.ofCoordinates(50.4501, 30.5234);
+
+        assertThat(loc).isEqualTo(new Location("coord:50.45,30.52", null, null, 50.45, 30.52));
+        assertThat(loc.type()).isEqualTo("coord");
+        assertThat(Location.ofCoordinates(50.449, 30.521)).isEqualTo(loc);
+        assertThat(Location.ofKey(loc.key())).isEqualTo(loc);
+        assertThat(Location.ofCoordinates(-33.8688, -151.2093).key()).isEqualTo("coord:-33.87,-151.21");
+        assertThatThrownBy(() -> Location.ofKey("coord:north")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Location.ofKey("coord:a,b")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -2,12 +2,15 @@ package com.weather_app.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.weather_app.config.WeatherApiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.Matchers.startsWith;
@@ -23,6 +26,7 @@ class WeatherApiClientTest {
     private MockRestServiceServer mockServer;
     private WeatherApiClient client;
     private WeatherApiProperties props;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
@@ -34,7 +38,8 @@ class WeatherApiClientTest {
         props.setUrl("https://api.openweathermap.org/data/2.5/weather");
         props.setUnits("metric");
 
-        client = new WeatherApiClient(restTemplate, new ObjectMapper(), props);
+        meterRegistry = new SimpleMeterRegistry();
+        client = new WeatherApiClient(restTemplate, new ObjectMapper(), props, meterRegistry);
     }
 
     @Test
@@ -65,6 +70,26 @@ class WeatherApiClientTest {
         mockServer.verify();
     }
 
+    @Test
+    void fetchByCoordinates_sendsLatLon_andMapsCoordinates() {
+        String json = """
+        {"coord":{"lon":30.52,"lat":50.45},"main":{"temp":1.5},"id":703448,"name":"Kyiv"}
+        """;
+
+        mockServer.expect(once(), requestTo(startsWith(props.getUrl())))
+                .andExpect(queryParam("lat", "50.45"))
+                .andExpect(queryParam("lon", "30.52"))
+                .andExpect(queryParam("appid", props.getKey()))
+                .andRespond(withSuccess(json, MediaType.APPLICATION_JSON));
+
+        var dto = client.fetchByCoordinates(50.45, 30.52);
+
+        assertThat(dto.getCity()).isEqualTo("Kyiv");
+        assertThat(dto.getLatitude()).isEqualTo(50.45);
+        assertThat(dto.getLongitude()).isEqualTo(30.52);
+        mockServer.verify();
+    }
+
     @Test
     void fetchByZip_ok_mapsFields() {
         String json = """
@@ -133,4 +158,51 @@ class WeatherApiClientTest {
 
         mockServer.verify();
     }
+
+    @Test
+    void callAndMap_recordsCallByOutcome_andMappingTime() {
+        mockServer.expect(once(), requestTo(startsWith(props.getUrl())))
+                .andRespond(withSuccess("{\"name\":\"Kyiv\"}", MediaType.APPLICATION_JSON));
+        mockServer.expect(once(), requestTo(startsWith(props.getUrl())))
+                .andRespond(withStatus(org.springframework.http.HttpStatus.NOT_FOUND));
+
+        client.fetchByCity("Kyiv");
+        assertThatThrownBy(() -> client.fetchByCity("NoSuchCity"));
+
+        assertThat(meterRegistry.get("weather.api.requests").tags("client", "sync", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weather.api.requests").tags("client", "sync", "outcome", "not_found")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weather.api.mapping").timer().count()).isEqualTo(1);
+        mockServer.verify();
+    }
+
+    @Test
+    void fetchByIds_callsGroupEndpoint_withCommaSeparatedIds() {
+        String json = """
+                {"cnt":2,"list":[
+                  {"main":{"temp":22.5},"id":703448,"name":"Kyiv"},
+                  {"main":{"temp":18.0},"id":702550,"name":"Lviv"}]}
+                """;
+
+        mockServer.expect(once(), requestTo(startsWith("https://api.openweathermap.org/data/2.5/group")))
+                .andExpect(queryParam("id", "703448,702550"))
+                .andExpect(queryParam("appid", props.getKey()))
+                .andRespond(withSuccess(json, MediaType.APPLICATION_JSON));
+
+        var list = client.fetchByIds(List.of(703448L, 702550L));
+
+        assertThat(list).extracting(r -> r.getCityId()).containsExactly(703448L, 702550L);
+        assertThat(client.groupSize()).isEqualTo(20);
+        mockServer.verify();
+    }
+
+    @Test
+    void groupSize_isZero_whenNoGroupUrlCanBeDerived() {
+        props.setUrl("https://example.test/current");
+        assertThat(client.groupSize()).isZero();
+
+        props.setGroupUrl("https://example.test/bulk");
+        assertThat(client.groupSize()).isEqualTo(20);
+    }
 }
@@ -0,0 +1,114 @@
+package com.weather_app.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherJsonExtractorTest {
+
+    private final WeatherJsonExtractor extractor = new WeatherJsonExtractor(new JsonFactory());
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void extract_fullProviderPayload_pullsOnlyNeededFields() throws IOException {
+        String json = """
+                {
+                  "coord":{"lon":30.52,"lat":50.45},
+                  "weather":[{"id":800,"main":"Clear","description":"clear sky","icon":"01d"},
+                             {"id":701,"main":"Mist","description":"mist","icon":"50d"}],
+                  "base":"stations",
+                  "main":{"temp":22.5,"feels_like":21.9,"temp_min":21.0,"temp_max":23.1,"pressure":1015,"humidity":55},
+                  "visibility":10000,
+                  "wind":{"speed":3.6,"deg":200,"gust":5.1},
+                  "clouds":{"all":0},
+                  "dt":1735732800,
+                  "sys":{"type":2,"id":2003742,"country":"UA","sunrise":1735710000,"sunset":1735740000},
+                  "timezone":7200,
+                  "id":703448,
+                  "name":"Kyiv",
+                  "cod":200
+                }
+                """;
+
+        var dto = extractor.extract(stream(json));
+
+        assertThat(dto.getCity()).isEqualTo("Kyiv");
+        assertThat(dto.getTemperature()).isEqualTo(22.5);
+        assertThat(dto.getHumidity()).isEqualTo(55);
+        assertThat(dto.getDescription()).isEqualTo("clear sky");
+        assertThat(dto.getWindSpeed()).isEqualTo(3.6);
+        // the top-level id, not weather[0].id or sys.id
+        assertThat(dto.getCityId()).isEqualTo(703448L);
+        assertThat(dto.getLatitude()).isEqualTo(50.45);
+        assertThat(dto.getLongitude()).isEqualTo(30.52);
+    }
+
+    @Test
+    void extractGroup_readsEveryListEntry() throws IOException {
+        var list = extractor.extractGroup(stream("""
+                {"cnt":2,"list":[
+                  {"coord":{"lon":30.52,"lat":50.45},"sys":{"country":"UA"},"weather":[{"id":800,"description":"clear sky"}],
+                   "main":{"temp":22.5,"humidity":55},"wind":{"speed":3.6},"id":703448,"name":"Kyiv"},
+                  {"main":{"temp":18.0},"id":702550,"name":"Lviv"}]}
+                """));
+
+        assertThat(list).hasSize(2);
+        assertThat(list.get(0).getCityId()).isEqualTo(703448L);
+        assertThat(list.get(0).getDescription()).isEqualTo("clear sky");
+        assertThat(list.get(1).getCity()).isEqualTo("Lviv");
+        assertThat(list.get(1).getTemperature()).isEqualTo(18.0);
+        assertThat(extractor.extractGroup("{\"cnt\":0}".getBytes(StandardCharsets.UTF_8))).isEmpty();
+    }
+
+    @Test
+    void extract_missingAndNullFields_stayNull() throws IOException {
+        var dto = extractor.extract("""
+                {"main":{"temp":null},"weather":[],"name":null}""".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(dto.getTemperature()).isNull();
+        assertThat(dto.getHumidity()).isNull();
+        assertThat(dto.getDescription()).isNull();
+        assertThat(dto.getWindSpeed()).isNull();
+        assertThat(dto.getCity()).isNull();
+    }
+
+    @Test
+    void extract_coercesScalarsLikeTreeMapping() throws IOException {
+        var dto = extractor.extract(stream("""
+                {"main":{"temp":"12.5","humidity":70.0},"wind":{"speed":{"nested":1}},
+                 "weather":[{"description":42}],"name":"Lviv"}"""));
+
+        assertThat(dto.getTemperature()).isEqualTo(12.5);
+        assertThat(dto.getHumidity()).isEqualTo(70);
+        assertThat(dto.getWindSpeed()).isEqualTo(0.0);
+        assertThat(dto.getDescription()).isEqualTo("42");
+    }
+
+    @Test
+    void extract_unexpectedShapes_areSkipped() throws IOException {
+        var dto = extractor.extract(stream("""
+                {"main":[1,2],"wind":"calm","weather":{"description":"x"},"name":"Odesa"}"""));
+
+        assertThat(dto.getCity()).isEqualTo("Odesa");
+        assertThat(dto.getTemperature()).isNull();
+        assertThat(dto.getWindSpeed()).isNull();
+        assertThat(dto.getDescription()).isNull();
+    }
+
+    @Test
+    void extract_truncatedOrNonObject_throws() {
+        assertThatThrownBy(() -> extractor.extract(stream("{ \"main\": { \"temp\": \"NaN\" ")))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> extractor.extract(stream("[]")))
+                .isInstanceOf(IOException.class);
+    }
+}
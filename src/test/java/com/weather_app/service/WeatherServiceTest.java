@@ -1,25 +1,62 @@
 package com.weather_app.service;
 
+import com.weather_app.cache.HotKeyTracker;
+import com.weather_app.cache.NegativeLookupCache;
+import com.weather_app.cache.NoSharedWeatherCache;
+import com.weather_app.cache.RefreshCoalescer;
+import com.weather_app.cache.SharedWeatherCache;
+import com.weather_app.cache.StripedLocks;
+import com.weather_app.cache.WeatherRecordCache;
+import com.weather_app.config.WeatherCacheProperties;
+import com.weather_app.config.WeatherHistoryProperties;
+import com.weather_app.config.WeatherPersistenceProperties;
+import com.weather_app.config.WeatherSharedCacheProperties;
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.exception.LocationNotFoundException;
+import com.weather_app.exception.UpstreamUnavailableException;
+import com.weather_app.exception.WeatherApiException;
+import com.weather_app.history.HistoryResolution;
+import com.weather_app.history.ObservationHistory;
 import com.weather_app.model.WeatherRecord;
+import com.weather_app.model.dto.BatchWeatherItem;
 import com.weather_app.model.dto.WeatherApiResponse;
 import com.weather_app.repository.WeatherRecordRepository;
+import com.weather_app.repository.WeatherRecordWriteBehind;
+import com.weather_app.stream.WeatherUpdateHub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,8 +66,17 @@ class WeatherServiceTest {
     WeatherRecordRepository repository;
     @Mock
     WeatherApiClient apiClient;
+    @Mock
+    PlatformTransactionManager transactionManager;
 
     WeatherService service;
+    WeatherRecordCache cache;
+    SimpleMeterRegistry meterRegistry;
+    HotKeyTracker hotKeys;
+    NegativeLookupCache notFound;
+    WeatherRecordWriteBehind writeBehind;
+    ObservationHistory history;
+    WeatherUpdateHub updates;
 
     // fixed clock for reproducible tests
     private final Clock fixedClock =
@@ -38,8 +84,28 @@ class WeatherServiceTest {
 
     @BeforeEach
     void setUp() {
-        // TTL = 15 minutes (matches default in service constructor)
-        service = new WeatherService(repository, apiClient, 15, fixedClock);
+        // TTL = 15 minutes (matches default in WeatherCacheProperties)
+        var props = new WeatherCacheProperties();
+        cache = new WeatherRecordCache(100, Duration.ofMinutes(15), fixedClock);
+        meterRegistry = new SimpleMeterRegistry();
+        hotKeys = new HotKeyTracker(16, Duration.ofMinutes(10), fixedClock);
+        notFound = new NegativeLookupCache(true, Duration.ofMinutes(10), 4, 1_000, 0.001, meterRegistry, fixedClock);
+        writeBehind = new WeatherRecordWriteBehind(null, null, new WeatherPersistenceProperties(), meterRegistry);
+        history = new ObservationHistory(new WeatherHistoryProperties(), meterRegistry);
+        updates = new WeatherUpdateHub(new WeatherStreamProperties(), Runnable::run, meterRegistry);
+        service = newService(props, Runnable::run);
+    }
+
+    private WeatherService newService(WeatherCacheProperties props, Executor refreshExecutor) {
+        return new WeatherService(repository, apiClient, cache, new NoSharedWeatherCache(), new RefreshCoalescer(),
+                new StripedLocks(16), hotKeys, notFound, writeBehind, history, updates, refreshExecutor, Runnable::run,
+                transactionManager, props, new WeatherSharedCacheProperties(), meterRegistry, fixedClock);
+    }
+
+    private WeatherService newService(SharedWeatherCache shared, WeatherSharedCacheProperties sharedProps) {
+        return new WeatherService(repository, apiClient, cache, shared, new RefreshCoalescer(), new StripedLocks(16),
+                hotKeys, notFound, writeBehind, history, updates, Runnable::run, Runnable::run, transactionManager,
+                new WeatherCacheProperties(), sharedProps, meterRegistry, fixedClock);
     }
 
     @Test
@@ -90,6 +156,130 @@ class WeatherServiceTest {
         verify(repository).save(any(WeatherRecord.class));
     }
 
+    @Test
+    void getByCoordinates_nearbyFreshRecord_isServedWithoutUpstreamCall() {
+        var kyiv = new WeatherRecord();
+        kyiv.setLocationKey("city:kyiv");
+        kyiv.setLatitude(50.45);
+        kyiv.setLongitude(30.52);
+        kyiv.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(kyiv);
+
+        var result = service.getByCoordinates(50.47, 30.49); // about 3 km away
+
+        assertThat(result).isSameAs(kyiv);
+        verifyNoInteractions(apiClient, repository);
+        assertThat(hotKeys.topKeys(1)).containsExactly("city:kyiv");
+        assertThat(meterRegistry.get("weather.lookup").tag("type", "coord").tag("result", "nearby_hit")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getByCoordinates_nothingFreshNearby_fetchesByRoundedCoordinates_andIndexesTheResult() {
+        var stale = new WeatherRecord();
+        stale.setLocationKey("city:kyiv");
+        stale.setLatitude(50.45);
+        stale.setLongitude(30.52);
+        stale.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:40:00Z"), ZoneOffset.UTC));
+        cache.put(stale);
+        var api = new WeatherApiResponse();
+        api.setCity("Kyiv");
+        api.setTemperature(1.0);
+        api.setLatitude(50.47);
+        api.setLongitude(30.49);
+        when(apiClient.fetchByCoordinates(50.47, 30.49)).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var result = service.getByCoordinates(50.4712, 30.4899);
+
+        assertThat(result.getLocationKey()).isEqualTo("coord:50.47,30.49");
+        assertThat(result.getCity()).isEqualTo("Kyiv");
+        assertThat(result.getLatitude()).isEqualTo(50.47);
+        // the next request nearby is answered by the new record
+        assertThat(service.getByCoordinates(50.48, 30.50)).isSameAs(result);
+        verify(apiClient, times(1)).fetchByCoordinates(50.47, 30.49);
+    }
+
+    @Test
+    void getByCoordinates_radiusZero_onlyServesTheExactRoundedKey() {
+        var props = new WeatherCacheProperties();
+        props.setGeoRadiusKm(0);
+        service = newService(props, Runnable::run);
+        var kyiv = new WeatherRecord();
+        kyiv.setLocationKey("city:kyiv");
+        kyiv.setLatitude(50.45);
+        kyiv.setLongitude(30.52);
+        kyiv.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(kyiv);
+        var exact = new WeatherRecord();
+        exact.setLocationKey("coord:50.45,30.52");
+        exact.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(exact);
+
+        assertThat(service.getByCoordinates(50.451, 30.519)).isSameAs(exact);
+        assertThatThrownBy(() -> {
+            props.setGeoRadiusKm(-1);
+            newService(props, Runnable::run);
+        }).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getByCity_refresh_callsProviderOutsideTheSaveTransaction() {
+        var stale = new WeatherRecord();
+        stale.setLocationKey("city:london");
+        stale.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC));
+        when(repository.findByLocationKey("city:london")).thenReturn(Optional.of(stale));
+        when(apiClient.fetchByCity("london")).thenReturn(new WeatherApiResponse());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.getByCity("London");
+
+        // lookup read, provider call, then one short transaction around the read-modify-write
+        var order = inOrder(repository, apiClient, transactionManager);
+        order.verify(repository).findByLocationKey("city:london");
+        order.verify(apiClient).fetchByCity("london");
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(repository).findByLocationKey("city:london");
+        order.verify(repository).save(stale);
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getByCity_refresh_isRecordedInHistory() {
+        var api = new WeatherApiResponse();
+        api.setCity("Lviv");
+        api.setTemperature(4.0);
+        api.setHumidity(80);
+        when(repository.findByLocationKey("city:lviv")).thenReturn(Optional.empty());
+        when(apiClient.fetchByCity("lviv")).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.getByCity("Lviv");
+        service.getByCity("Lviv"); // near-cache hit, not a new observation
+
+        var points = service.getHistoryByCity(" LVIV ", LocalDateTime.parse("2025-01-01T00:00:00"),
+                LocalDateTime.parse("2025-01-02T00:00:00"), HistoryResolution.HOURLY);
+        assertThat(points).singleElement().satisfies(p -> {
+            assertThat(p.getFrom()).isEqualTo(LocalDateTime.parse("2025-01-01T12:00:00"));
+            assertThat(p.getSamples()).isEqualTo(1);
+            assertThat(p.getTemperature().getAvg()).isEqualTo(4.0);
+            assertThat(p.getWindSpeed()).isNull();
+        });
+        assertThat(service.getHistoryByZip("79000", LocalDateTime.parse("2025-01-01T00:00:00"),
+                LocalDateTime.parse("2025-01-02T00:00:00"), HistoryResolution.HOURLY)).isEmpty();
+    }
+
+    @Test
+    void remainingTtl_countsDownToZero() {
+        var rec = new WeatherRecord();
+        rec.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:50:00Z"), ZoneOffset.UTC));
+        assertThat(service.remainingTtl(rec)).isEqualTo(Duration.ofMinutes(5));
+
+        rec.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC));
+        assertThat(service.remainingTtl(rec)).isZero();
+        assertThat(service.remainingTtl(new WeatherRecord())).isZero();
+    }
+
     @Test
     void getByCity_missing_createsNewFromApi_andSaves() {
         when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
@@ -168,4 +358,501 @@ class WeatherServiceTest {
         verify(apiClient).fetchByZip("90210");
         verify(repository).save(any(WeatherRecord.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getByCity_freshNearCacheHit_doesNotTouchRepositoryOrApi() {
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setCity("Kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+
+        var result = service.getByCity(" KYIV ");
+
+        assertThat(result).isSameAs(cached);
+        verifyNoInteractions(repository, apiClient);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void getByCity_learnedAlias_sharesTheCanonicalEntry() {
+        var kyiv = new WeatherApiResponse();
+        kyiv.setCity("Kyiv");
+        kyiv.setCityId(703448L);
+        kyiv.setTemperature(5.0);
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        when(repository.findByLocationKey("city:kiev")).thenReturn(Optional.empty());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(apiClient.fetchByCity("kyiv")).thenReturn(kyiv);
+        when(apiClient.fetchByCity("kiev")).thenReturn(kyiv);
+
+        service.getByCity("Kyiv");
+        service.getByCity("Kiev"); // not known yet: fetched once, then learned as the same city
+        var third = service.getByCity(" KIEV ");
+
+        assertThat(third.getLocationKey()).isEqualTo("city:kyiv");
+        verify(apiClient).fetchByCity("kiev");
+        verify(apiClient).fetchByCity("kyiv");
+        assertThat(meterRegistry.get("weather.city.aliases").tag("result", "alias").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weather.city.aliases").tag("result", "unknown").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void getByCity_notFound_isRemembered_andNotAskedAgain() {
+        when(repository.findByLocationKey("city:atlantis")).thenReturn(Optional.empty());
+        when(apiClient.fetchByCity("atlantis")).thenThrow(new LocationNotFoundException(null));
+
+        assertThatThrownBy(() -> service.getByCity("Atlantis")).isInstanceOf(LocationNotFoundException.class);
+        assertThatThrownBy(() -> service.getByCity("atlantis")).isInstanceOf(LocationNotFoundException.class);
+        var items = service.getBatch(List.of("Atlantis"), null);
+
+        assertThat(items.get(0).getError()).isEqualTo("Location not found (404).");
+        verify(apiClient).fetchByCity("atlantis");
+        assertThat(meterRegistry.get("weather.negative.avoided").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("weather.lookup").tag("result", "not_found").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getByCity_seededAlias_isServedFromTheCityEntry() {
+        var props = new WeatherCacheProperties();
+        props.setCityAliases(Map.of("Київ", "Kyiv"));
+        service = newService(props, Runnable::run);
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+
+        assertThat(service.getByCity(" КИЇВ ")).isSameAs(cached);
+        verifyNoInteractions(repository, apiClient);
+    }
+
+    @Test
+    void getByCity_refresh_writesThroughToNearCache() {
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        var api = new WeatherApiResponse();
+        api.setCity("Kyiv");
+        api.setTemperature(21.2);
+        when(apiClient.fetchByCity("kyiv")).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var first = service.getByCity("Kyiv");
+        var second = service.getByCity("kyiv");
+
+        assertThat(second).isSameAs(first);
+        verify(apiClient).fetchByCity("kyiv");
+        verify(repository, times(2)).findByLocationKey("city:kyiv");
+        verify(repository).save(any(WeatherRecord.class));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void getByZip_freshDbRecord_isPromotedToNearCache() {
+        var existing = new WeatherRecord();
+        existing.setLocationKey("zip:10001");
+        existing.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:50:00Z"), ZoneOffset.UTC));
+        when(repository.findByLocationKey("zip:10001")).thenReturn(Optional.of(existing));
+
+        service.getByZip("10001");
+        var again = service.getByZip("10001");
+
+        assertThat(again).isSameAs(existing);
+        verify(repository, times(1)).findByLocationKey("zip:10001");
+    }
+
+    @Test
+    void getByCity_staleWhileRevalidate_returnsStaleAndRefreshesInBackground() {
+        List<Runnable> background = new ArrayList<>();
+        var props = new WeatherCacheProperties();
+        props.setStaleWhileRevalidate(true);
+        props.setMaxStaleMinutes(60);
+        service = newService(props, background::add);
+
+        var stale = new WeatherRecord();
+        stale.setLocationKey("city:kyiv");
+        stale.setTemperature(5.0);
+        stale.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:30:00Z"), ZoneOffset.UTC)); // 30 min ago
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.of(stale));
+
+        var result = service.getByCity("Kyiv");
+
+        assertThat(result).isSameAs(stale);
+        verifyNoInteractions(apiClient);
+        assertThat(background).hasSize(1);
+
+        var api = new WeatherApiResponse();
+        api.setCity("Kyiv");
+        api.setTemperature(7.0);
+        when(apiClient.fetchByCity("kyiv")).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+        background.get(0).run();
+
+        assertThat(cache.peek("city:kyiv")).get()
+                .extracting(WeatherRecord::getTemperature).isEqualTo(7.0);
+    }
+
+    @Test
+    void getByCity_staleWhileRevalidate_beyondMaxStale_blocksOnRefresh() {
+        List<Runnable> background = new ArrayList<>();
+        var props = new WeatherCacheProperties();
+        props.setStaleWhileRevalidate(true);
+        props.setMaxStaleMinutes(30);
+        service = newService(props, background::add);
+
+        var stale = new WeatherRecord();
+        stale.setLocationKey("city:kyiv");
+        stale.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC)); // 60 min ago
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.of(stale));
+        var api = new WeatherApiResponse();
+        api.setTemperature(7.0);
+        when(apiClient.fetchByCity("kyiv")).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var result = service.getByCity("Kyiv");
+
+        assertThat(result.getTemperature()).isEqualTo(7.0);
+        assertThat(background).isEmpty();
+    }
+
+    @Test
+    void getByCity_refreshAhead_schedulesRefreshOnlyPastThreshold() {
+        List<Runnable> background = new ArrayList<>();
+        var props = new WeatherCacheProperties();
+        props.setRefreshAheadRatio(0.8); // 12 of 15 minutes
+        service = newService(props, background::add);
+
+        var young = new WeatherRecord();
+        young.setLocationKey("city:kyiv");
+        young.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:50:00Z"), ZoneOffset.UTC)); // 10 min ago
+        cache.put(young);
+        var aging = new WeatherRecord();
+        aging.setLocationKey("city:london");
+        aging.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:47:00Z"), ZoneOffset.UTC)); // 13 min ago
+        cache.put(aging);
+
+        assertThat(service.getByCity("Kyiv")).isSameAs(young);
+        assertThat(background).isEmpty();
+
+        assertThat(service.getByCity("London")).isSameAs(aging);
+        assertThat(service.getByCity("London")).isSameAs(aging);
+        assertThat(background).hasSize(1); // second hit is coalesced with the pending refresh
+        verifyNoInteractions(apiClient, repository);
+    }
+
+    @Test
+    void constructor_rejectsRefreshAheadRatioOutOfRange() {
+        var props = new WeatherCacheProperties();
+        props.setRefreshAheadRatio(1.0);
+
+        assertThatThrownBy(() -> newService(props, Runnable::run))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getBatch_resolvesCacheThenOneQueryThenUpstream_withPerItemErrors() {
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+
+        var inDb = new WeatherRecord();
+        inDb.setLocationKey("zip:90210");
+        inDb.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        when(repository.findAllByLocationKeyIn(List.of("city:london", "city:atlantis", "zip:90210")))
+                .thenReturn(List.of(inDb));
+        when(repository.findByLocationKey(any())).thenReturn(Optional.empty());
+
+        var api = new WeatherApiResponse();
+        api.setCity("London");
+        api.setTemperature(6.5);
+        when(apiClient.fetchByCity("london")).thenReturn(api);
+        when(apiClient.fetchByCity("atlantis")).thenThrow(new RuntimeException("Location not found (404)."));
+        doCallRealMethod().when(apiClient).fetchByCityAsync(any(), any());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var items = service.getBatch(List.of("Kyiv", "London", " ", "Atlantis", "KYIV"), List.of("90210"));
+
+        assertThat(items).hasSize(6);
+        assertThat(items.get(0).getWeather()).isSameAs(cached);
+        assertThat(items.get(1).getWeather().getTemperature()).isEqualTo(6.5);
+        assertThat(items.get(2).getError()).isEqualTo("Location must not be blank.");
+        assertThat(items.get(3).getCity()).isEqualTo("Atlantis");
+        assertThat(items.get(3).getError()).isEqualTo("Location not found (404).");
+        assertThat(items.get(4).getWeather()).isSameAs(cached);
+        assertThat(items.get(5).getZip()).isEqualTo("90210");
+        assertThat(items.get(5).getWeather()).isSameAs(inDb);
+        verify(repository).findAllByLocationKeyIn(any());
+        verify(apiClient, never()).fetchByZip(any());
+    }
+
+    @Test
+    void getBatch_staleWithKnownProviderIds_refreshesThroughOneGroupCall() {
+        var kyiv = new WeatherRecord();
+        kyiv.setLocationKey("city:kyiv");
+        kyiv.setProviderId(703448L);
+        kyiv.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC)); // stale
+        var lviv = new WeatherRecord();
+        lviv.setLocationKey("city:lviv");
+        lviv.setProviderId(702550L);
+        lviv.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC));
+        var odesa = new WeatherRecord();
+        odesa.setLocationKey("city:odesa");
+        odesa.setProviderId(698740L);
+        odesa.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:00:00Z"), ZoneOffset.UTC));
+        when(repository.findAllByLocationKeyIn(List.of("city:kyiv", "city:lviv", "city:odesa", "city:london")))
+                .thenReturn(List.of(kyiv, lviv, odesa));
+        when(repository.findByLocationKey(any())).thenReturn(Optional.empty());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        when(apiClient.groupSize()).thenReturn(20);
+        // odesa is missing from the group answer and is fetched on its own, like london without an id
+        when(apiClient.fetchByIdsAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(response(703448L, "Kyiv", 1.0),
+                        response(702550L, "Lviv", 2.0))));
+        when(apiClient.fetchByCity("odesa")).thenReturn(response(698740L, "Odesa", 3.0));
+        when(apiClient.fetchByCity("london")).thenReturn(response(2643743L, "London", 4.0));
+        doCallRealMethod().when(apiClient).fetchByCityAsync(any(), any());
+
+        var items = service.getBatch(List.of("Kyiv", "Lviv", "Odesa", "London"), null);
+
+        assertThat(items).extracting(i -> i.getWeather().getTemperature()).containsExactly(1.0, 2.0, 3.0, 4.0);
+        assertThat(items.get(3).getWeather().getProviderId()).isEqualTo(2643743L);
+        verify(apiClient).fetchByIdsAsync(eq(List.of(703448L, 702550L, 698740L)), any());
+        verify(apiClient, never()).fetchByCity("kyiv");
+        verify(apiClient, never()).fetchByCity("lviv");
+    }
+
+    private static WeatherApiResponse response(long cityId, String city, double temperature) {
+        var api = new WeatherApiResponse();
+        api.setCityId(cityId);
+        api.setCity(city);
+        api.setTemperature(temperature);
+        return api;
+    }
+
+    @Test
+    void getBatch_allCached_skipsRepository() {
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+
+        var items = service.getBatch(List.of("Kyiv"), null);
+
+        assertThat(items).singleElement().extracting(BatchWeatherItem::getWeather).isSameAs(cached);
+        verifyNoInteractions(repository, apiClient);
+    }
+
+    @Test
+    void getByCity_upstreamUnavailable_fallsBackToLastKnownRecord() {
+        var old = new WeatherRecord();
+        old.setLocationKey("city:kyiv");
+        old.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T09:00:00Z"), ZoneOffset.UTC)); // 3h ago
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.of(old));
+        when(apiClient.fetchByCity("kyiv")).thenThrow(new UpstreamUnavailableException("circuit open"));
+
+        var result = service.getByCity("Kyiv");
+
+        assertThat(result).isSameAs(old);
+        assertThat(service.fallbackCount()).isEqualTo(1);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getByCity_upstreamUnavailable_withoutLastKnownRecord_propagates() {
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        when(apiClient.fetchByCity("kyiv")).thenThrow(new UpstreamUnavailableException("circuit open"));
+
+        assertThatThrownBy(() -> service.getByCity("Kyiv"))
+                .isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(service.fallbackCount()).isZero();
+    }
+
+    @Test
+    void getByCity_otherUpstreamFailure_isNotMaskedByLastKnownRecord() {
+        var old = new WeatherRecord();
+        old.setLocationKey("city:kyiv");
+        old.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T09:00:00Z"), ZoneOffset.UTC));
+        cache.put(old);
+        when(apiClient.fetchByCity("kyiv")).thenThrow(new WeatherApiException("Failed to fetch weather data."));
+
+        assertThatThrownBy(() -> service.getByCity("Kyiv"))
+                .hasMessage("Failed to fetch weather data.");
+    }
+
+    @Test
+    void getBatch_upstreamUnavailable_fallsBackPerItem() {
+        var old = new WeatherRecord();
+        old.setLocationKey("city:kyiv");
+        old.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T09:00:00Z"), ZoneOffset.UTC));
+        when(repository.findAllByLocationKeyIn(List.of("city:kyiv", "city:london"))).thenReturn(List.of(old));
+        when(apiClient.fetchByCityAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new UpstreamUnavailableException("circuit open")));
+
+        var items = service.getBatch(List.of("Kyiv", "London"), null);
+
+        assertThat(items.get(0).getWeather()).isSameAs(old);
+        assertThat(items.get(1).getError()).isEqualTo("Weather provider unavailable: circuit open.");
+        assertThat(service.fallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lookups_areTimedByTypeAndResult() {
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+        when(repository.findByLocationKey("zip:90210")).thenReturn(Optional.empty());
+        when(apiClient.fetchByZip("90210")).thenReturn(new WeatherApiResponse());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.getByCity("Kyiv");
+        service.getByZip("90210");
+
+        assertThat(meterRegistry.get("weather.lookup").tags("type", "city", "result", "hit").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("weather.lookup").tags("type", "zip", "result", "miss").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("weather.refresh.duration").tags("type", "zip", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        // the location itself never becomes a tag
+        assertThat(meterRegistry.getMeters()).allSatisfy(m ->
+                assertThat(m.getId().getTags()).noneMatch(t -> t.getValue().contains("kyiv")));
+    }
+
+    @Test
+    void getByCity_writeBehind_servesRefreshedRecordWithoutSaving() {
+        var queue = mock(WeatherRecordWriteBehind.class);
+        when(queue.enabled()).thenReturn(true);
+        service = new WeatherService(repository, apiClient, cache, new NoSharedWeatherCache(), new RefreshCoalescer(),
+                new StripedLocks(16), hotKeys, notFound, queue, history, updates, Runnable::run, Runnable::run, transactionManager,
+                new WeatherCacheProperties(), new WeatherSharedCacheProperties(), meterRegistry, fixedClock);
+        var stale = new WeatherRecord();
+        stale.setId(7L);
+        stale.setLocationKey("city:kyiv");
+        stale.setTemperature(1.0);
+        stale.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:40:00Z"), ZoneOffset.UTC)); // 20 min ago
+        when(queue.pending("city:kyiv")).thenReturn(Optional.of(stale));
+        var api = new WeatherApiResponse();
+        api.setCity("Kyiv");
+        api.setTemperature(4.0);
+        when(apiClient.fetchByCity("kyiv")).thenReturn(api);
+
+        var result = service.getByCity("Kyiv");
+
+        assertThat(result).isNotSameAs(stale);
+        assertThat(result.getTemperature()).isEqualTo(4.0);
+        assertThat(stale.getTemperature()).isEqualTo(1.0);
+        assertThat(cache.peek("city:kyiv")).containsSame(result);
+        verify(queue).enqueue(result);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getByCity_nearCacheMiss_isAnsweredFromSharedTier() {
+        var shared = mock(SharedWeatherCache.class);
+        service = newService(shared, new WeatherSharedCacheProperties());
+        var fromPeer = new WeatherRecord();
+        fromPeer.setLocationKey("city:kyiv");
+        fromPeer.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        when(shared.get("city:kyiv")).thenReturn(Optional.of(fromPeer));
+
+        assertThat(service.getByCity("Kyiv")).isSameAs(fromPeer);
+
+        assertThat(cache.peek("city:kyiv")).containsSame(fromPeer);
+        assertThat(meterRegistry.get("weather.lookup").tags("type", "city", "result", "shared_hit").timer().count())
+                .isEqualTo(1);
+        verifyNoInteractions(repository, apiClient);
+    }
+
+    @Test
+    void getByCity_refreshLockedByAnotherInstance_waitsForItsRecordInsteadOfCalling() {
+        var shared = mock(SharedWeatherCache.class);
+        var sharedProps = new WeatherSharedCacheProperties();
+        sharedProps.setPollInterval(Duration.ofMillis(1));
+        service = newService(shared, sharedProps);
+        var fromPeer = new WeatherRecord();
+        fromPeer.setLocationKey("city:kyiv");
+        fromPeer.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC));
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        when(shared.tryLock("city:kyiv")).thenReturn(Optional.empty());
+        // the lookup misses, the peer's record shows up on the first poll
+        when(shared.get("city:kyiv")).thenReturn(Optional.empty()).thenReturn(Optional.of(fromPeer));
+
+        assertThat(service.getByCity("Kyiv")).isSameAs(fromPeer);
+
+        assertThat(cache.peek("city:kyiv")).containsSame(fromPeer);
+        verifyNoInteractions(apiClient);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void getByCity_peerNeverDelivers_refreshesAfterLockWait() {
+        var shared = mock(SharedWeatherCache.class);
+        var sharedProps = new WeatherSharedCacheProperties();
+        sharedProps.setLockWait(Duration.ofMillis(20));
+        sharedProps.setPollInterval(Duration.ofMillis(5));
+        service = newService(shared, sharedProps);
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        when(shared.get("city:kyiv")).thenReturn(Optional.empty());
+        when(shared.tryLock("city:kyiv")).thenReturn(Optional.empty());
+        var api = new WeatherApiResponse();
+        api.setTemperature(3.0);
+        when(apiClient.fetchByCity("kyiv")).thenReturn(api);
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(service.getByCity("Kyiv").getTemperature()).isEqualTo(3.0);
+    }
+
+    @Test
+    void getByCity_refreshUnderLock_isSharedBeforeTheLockIsReleased() {
+        var shared = mock(SharedWeatherCache.class);
+        var lock = mock(SharedWeatherCache.RefreshLock.class);
+        service = newService(shared, new WeatherSharedCacheProperties());
+        when(repository.findByLocationKey("city:kyiv")).thenReturn(Optional.empty());
+        when(shared.tryLock("city:kyiv")).thenReturn(Optional.of(lock));
+        when(apiClient.fetchByCity("kyiv")).thenReturn(new WeatherApiResponse());
+        when(repository.save(any(WeatherRecord.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        var result = service.getByCity("Kyiv");
+
+        var order = inOrder(shared, lock);
+        order.verify(shared).tryLock("city:kyiv");
+        order.verify(shared).put(result);
+        order.verify(lock).close();
+    }
+
+    @Test
+    void getBatch_sharedTierHits_skipRepositoryAndUpstream() {
+        var shared = mock(SharedWeatherCache.class);
+        service = newService(shared, new WeatherSharedCacheProperties());
+        var fromPeer = new WeatherRecord();
+        fromPeer.setLocationKey("city:kyiv");
+        fromPeer.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        when(shared.getAll(List.of("city:kyiv"))).thenReturn(Map.of("city:kyiv", fromPeer));
+
+        var items = service.getBatch(List.of("Kyiv"), List.of());
+
+        assertThat(items.get(0).getWeather()).isSameAs(fromPeer);
+        assertThat(cache.peek("city:kyiv")).containsSame(fromPeer);
+        verifyNoInteractions(repository, apiClient);
+    }
+
+    @Test
+    void peerUpdate_dropsNearCacheCopy() {
+        var shared = mock(SharedWeatherCache.class);
+        service = newService(shared, new WeatherSharedCacheProperties());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(shared).onInvalidation(listener.capture());
+        var cached = new WeatherRecord();
+        cached.setLocationKey("city:kyiv");
+        cached.setUpdatedAt(LocalDateTime.ofInstant(Instant.parse("2025-01-01T11:55:00Z"), ZoneOffset.UTC));
+        cache.put(cached);
+
+        listener.getValue().accept("city:kyiv");
+
+        assertThat(cache.peek("city:kyiv")).isEmpty();
+        // nobody streams it here, so the new record is not fetched until it is asked for
+        verify(shared, never()).get(any());
+    }
+}
@@ -0,0 +1,66 @@
+package com.weather_app.stream;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherStreamRefresherTest {
+
+    @Mock
+    WeatherService service;
+
+    WeatherUpdateHub hub;
+    WeatherStreamRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        var props = new WeatherStreamProperties();
+        props.setRefreshInterval(Duration.ofHours(1));
+        hub = new WeatherUpdateHub(props, Runnable::run, new SimpleMeterRegistry());
+        refresher = new WeatherStreamRefresher(hub, service, props);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.destroy();
+    }
+
+    @Test
+    void refresh_withoutSubscribers_doesNothing() {
+        refresher.refresh();
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void refresh_looksUpEachSubscribedLocationOnce() {
+        hub.subscribe(Set.of("city:kyiv", "zip:10001"), new SseEmitter());
+        hub.subscribe(Set.of("city:kyiv"), new SseEmitter());
+        hub.subscribe(Set.of("city:kyiv", "city:lviv"), new SseEmitter());
+
+        refresher.refresh();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> cities = ArgumentCaptor.forClass(List.class);
+        verify(service).getBatch(cities.capture(), eq(List.of("10001")));
+        assertThat(cities.getValue()).containsExactlyInAnyOrder("kyiv", "lviv");
+    }
+}
@@ -0,0 +1,154 @@
+package com.weather_app.stream;
+
+import com.weather_app.config.WeatherStreamProperties;
+import com.weather_app.model.WeatherRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherUpdateHubTest {
+
+    WeatherStreamProperties props;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        props = new WeatherStreamProperties();
+        props.setQueueCapacity(2);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private WeatherUpdateHub hub(Executor sender) {
+        return new WeatherUpdateHub(props, sender, meterRegistry);
+    }
+
+    private static WeatherRecord record(String key, double temperature) {
+        var rec = new WeatherRecord();
+        rec.setLocationKey(key);
+        rec.setTemperature(temperature);
+        return rec;
+    }
+
+    private static String json(WeatherRecord rec) {
+        return new String(rec.view().json(), StandardCharsets.UTF_8);
+    }
+
+    /** Captures the JSON of sent events instead of writing to a response. */
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        volatile boolean completed;
+        volatile boolean failOnSend;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failOnSend) throw new IOException("Broken pipe");
+            builder.build().stream()
+                    .filter(part -> MediaType.APPLICATION_JSON.equals(part.getMediaType()))
+                    .forEach(part -> sent.add(new String((byte[]) part.getData(), StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void publish_reachesEverySubscriberOfThatLocationOnly() {
+        var hub = hub(Runnable::run);
+        var kyiv1 = new RecordingEmitter();
+        var kyiv2 = new RecordingEmitter();
+        var lviv = new RecordingEmitter();
+        hub.subscribe(Set.of("city:kyiv"), kyiv1);
+        hub.subscribe(Set.of("city:kyiv", "zip:10001"), kyiv2);
+        hub.subscribe(Set.of("city:lviv"), lviv);
+
+        var rec = record("city:kyiv", 3.0);
+        rec.setId(7L);
+        rec.setProviderId(703448L);
+        hub.publish(rec);
+        hub.publish(record("city:odesa", 1.0));
+
+        assertThat(kyiv1.sent).containsExactly(json(rec));
+        assertThat(kyiv2.sent).containsExactly(json(rec));
+        // the same payload as GET /weather, without the internal ids
+        assertThat(kyiv1.sent.get(0)).contains("\"locationKey\":\"city:kyiv\"", "\"temperature\":3.0")
+                .doesNotContain("\"id\"", "providerId");
+        assertThat(lviv.sent).isEmpty();
+        assertThat(hub.subscribedKeys()).containsExactlyInAnyOrder("city:kyiv", "zip:10001", "city:lviv");
+        assertThat(meterRegistry.get("weather.stream.events").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("weather.stream.locations").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void slowSubscriber_isEvicted_withoutHoldingUpOthers() {
+        List<Runnable> stuck = new ArrayList<>();
+        var hub = hub(stuck::add); // drains never run: the client is not reading
+        var slow = new RecordingEmitter();
+        hub.subscribe(Set.of("city:kyiv"), slow);
+
+        hub.publish(record("city:kyiv", 1.0));
+        hub.publish(record("city:kyiv", 2.0));
+        hub.publish(record("city:kyiv", 3.0)); // queue of 2 is full
+
+        assertThat(hub.subscriberCount()).isZero();
+        assertThat(hub.subscribedKeys()).isEmpty();
+        assertThat(meterRegistry.get("weather.stream.evictions").counter().count()).isEqualTo(1);
+        stuck.forEach(Runnable::run);
+        assertThat(slow.completed).isTrue();
+        assertThat(slow.sent).isEmpty();
+    }
+
+    @Test
+    void failedSend_dropsSubscriber() {
+        var hub = hub(Runnable::run);
+        var gone = new RecordingEmitter();
+        gone.failOnSend = true;
+        hub.subscribe(Set.of("city:kyiv"), gone);
+
+        hub.publish(record("city:kyiv", 1.0));
+
+        assertThat(hub.subscriberCount()).isZero();
+        assertThat(gone.completed).isFalse();
+    }
+
+    @Test
+    void subscription_offer_queuesForThatSubscriberOnly() {
+        var hub = hub(Runnable::run);
+        var first = new RecordingEmitter();
+        var second = new RecordingEmitter();
+        var subscription = hub.subscribe(Set.of("city:kyiv"), first).orElseThrow();
+        hub.subscribe(Set.of("city:kyiv"), second);
+
+        var rec = record("city:kyiv", 1.0);
+        subscription.offer(rec);
+
+        assertThat(first.sent).containsExactly(json(rec));
+        assertThat(second.sent).isEmpty();
+    }
+
+    @Test
+    void subscribe_beyondMaxSubscribers_isRefused() {
+        props.setMaxSubscribers(1);
+        var hub = hub(Runnable::run);
+
+        assertThat(hub.subscribe(Set.of("city:kyiv"), new RecordingEmitter())).isPresent();
+        assertThat(hub.subscribe(Set.of("city:lviv"), new RecordingEmitter())).isEmpty();
+
+        hub.destroy();
+        assertThat(hub.subscriberCount()).isZero();
+        assertThat(hub.subscribe(Set.of("city:lviv"), new RecordingEmitter())).isPresent();
+    }
+}
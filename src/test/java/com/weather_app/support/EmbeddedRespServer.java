@@ -0,0 +1,296 @@
+package com.weather_app.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local stand-in for a Redis server, speaking RESP2 with the handful of commands the shared cache
+ * uses: {@code AUTH}, {@code PING}, {@code GET}, {@code MGET}, {@code SET} (with {@code NX},
+ * {@code PX}), {@code DEL}, {@code PUBLISH}, {@code SUBSCRIBE}, and {@code EVAL} of the
+ * compare-and-delete unlock script only.
+ */
+public class EmbeddedRespServer implements AutoCloseable {
+    // the script RespSharedWeatherCache sends to release a lock; anything else is rejected
+    private static final String UNLOCK_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final ServerSocket server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "embedded-resp");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final Map<String, Set<Client>> channels = new ConcurrentHashMap<>();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> commandCounts = new ConcurrentHashMap<>();
+    private final AtomicLong accepted = new AtomicLong();
+    // one command at a time, so SET NX and the unlock script are atomic as on the real server
+    private final ReentrantLock dataLock = new ReentrantLock();
+
+    public EmbeddedRespServer() throws IOException {
+        this.server = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** How often {@code command} (upper case) was received. */
+    public long commands(String command) {
+        AtomicLong count = commandCounts.get(command);
+        return count == null ? 0 : count.get();
+    }
+
+    /** How many connections were opened so far, closed ones included. */
+    public long connections() {
+        return accepted.get();
+    }
+
+    public int subscribers(String channel) {
+        Set<Client> subscribed = channels.get(channel);
+        return subscribed == null ? 0 : subscribed.size();
+    }
+
+    public boolean contains(String key) {
+        Entry entry = data.get(key);
+        return entry != null && !entry.expired();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                accepted.incrementAndGet();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            Client client = new Client(socket, new BufferedOutputStream(socket.getOutputStream()));
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+                commandCounts.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+                client.lock.lock();
+                try {
+                    execute(name, command, client);
+                    client.out.flush();
+                } finally {
+                    client.lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            sockets.remove(socket);
+            channels.values().forEach(subscribed -> subscribed.removeIf(c -> c.socket == socket));
+        }
+    }
+
+    private void execute(String name, List<byte[]> command, Client client) throws IOException {
+        OutputStream out = client.out;
+        switch (name) {
+            case "AUTH", "PING" -> simple(out, name.equals("PING") ? "PONG" : "OK");
+            case "GET" -> bulk(out, value(arg(command, 1)));
+            case "MGET" -> {
+                header(out, '*', command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    bulk(out, value(arg(command, i)));
+                }
+            }
+            case "SET" -> set(command, out);
+            case "DEL" -> {
+                int removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    removed += data.remove(arg(command, i)) != null ? 1 : 0;
+                }
+                header(out, ':', removed);
+            }
+            case "EVAL" -> {
+                if (!UNLOCK_SCRIPT.equals(arg(command, 1))) {
+                    error(out, "ERR unsupported script");
+                    return;
+                }
+                dataLock.lock();
+                try {
+                    String key = arg(command, 3);
+                    byte[] owner = value(key);
+                    boolean owned = owner != null && arg(command, 4).equals(new String(owner, StandardCharsets.UTF_8));
+                    if (owned) data.remove(key);
+                    header(out, ':', owned ? 1 : 0);
+                } finally {
+                    dataLock.unlock();
+                }
+            }
+            case "PUBLISH" -> header(out, ':', publish(arg(command, 1), command.get(2)));
+            case "SUBSCRIBE" -> {
+                String channel = arg(command, 1);
+                channels.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(client);
+                header(out, '*', 3);
+                bulk(out, "subscribe".getBytes(StandardCharsets.UTF_8));
+                bulk(out, command.get(1));
+                header(out, ':', 1);
+            }
+            default -> error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    private void set(List<byte[]> command, OutputStream out) throws IOException {
+        String key = arg(command, 1);
+        boolean nx = false;
+        long ttlMillis = -1;
+        for (int i = 3; i < command.size(); i++) {
+            String option = arg(command, i).toUpperCase(Locale.ROOT);
+            if (option.equals("NX")) nx = true;
+            else if (option.equals("PX")) ttlMillis = Long.parseLong(arg(command, ++i));
+            else if (option.equals("EX")) ttlMillis = Long.parseLong(arg(command, ++i)) * 1000;
+        }
+        dataLock.lock();
+        try {
+            if (nx && value(key) != null) {
+                bulk(out, null);
+                return;
+            }
+            long expiresAt = ttlMillis < 0 ? Long.MAX_VALUE : System.nanoTime() + ttlMillis * 1_000_000;
+            data.put(key, new Entry(command.get(2), expiresAt));
+        } finally {
+            dataLock.unlock();
+        }
+        simple(out, "OK");
+    }
+
+    private int publish(String channel, byte[] payload) {
+        Set<Client> subscribed = channels.getOrDefault(channel, Set.of());
+        int delivered = 0;
+        for (Client c : subscribed) {
+            c.lock.lock();
+            try {
+                header(c.out, '*', 3);
+                bulk(c.out, "message".getBytes(StandardCharsets.UTF_8));
+                bulk(c.out, channel.getBytes(StandardCharsets.UTF_8));
+                bulk(c.out, payload);
+                c.out.flush();
+                delivered++;
+            } catch (IOException e) {
+                subscribed.remove(c);
+            } finally {
+                c.lock.unlock();
+            }
+        }
+        return delivered;
+    }
+
+    private byte[] value(String key) {
+        Entry entry = data.get(key);
+        if (entry == null) return null;
+        if (entry.expired()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private static String arg(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.UTF_8);
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int size = Integer.parseInt(readLine(in, '*'));
+        List<byte[]> args = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = Integer.parseInt(readLine(in, '$'));
+            args.add(in.readNBytes(length));
+            in.readNBytes(2);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in, char expectedType) throws IOException {
+        int type = in.read();
+        if (type < 0) throw new EOFException();
+        if (type != expectedType) throw new IOException("Expected '" + expectedType + "' but got '" + (char) type + "'");
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) throw new EOFException();
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void simple(OutputStream out, String text) throws IOException {
+        out.write(('+' + text + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void error(OutputStream out, String text) throws IOException {
+        out.write(('-' + text + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void header(OutputStream out, char type, long n) throws IOException {
+        out.write((type + Long.toString(n) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            header(out, '$', -1);
+            return;
+        }
+        header(out, '$', value.length);
+        out.write(value);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private record Entry(byte[] value, long expiresAtNanos) {
+        boolean expired() {
+            return expiresAtNanos != Long.MAX_VALUE && System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+
+    private static final class Client {
+        final Socket socket;
+        final OutputStream out;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Client(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.weather_app.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal local stand-in for the OpenWeatherMap {@code /weather} and {@code /group} endpoints
+ * with an artificial latency, used by load tests instead of the real provider. Every name
+ * looked up through {@code /weather} gets a stable city ID that {@code /group} then answers for.
+ * {@link #simulate} adds latency jitter and a share of 500 and 429 answers.
+ */
+public class StubWeatherApi implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile Duration latency;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong groupCalls = new AtomicLong();
+    private final AtomicLong nextCityId = new AtomicLong(700_000);
+    private final Map<String, Long> cityIds = new ConcurrentHashMap<>();
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+    private volatile int fixedStatus;
+    private volatile String fixedBody;
+    private volatile String lastQuery;
+
+    public StubWeatherApi(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.createContext("/data/2.5/weather", this::handleWeather);
+        this.server.createContext("/data/2.5/group", this::handleGroup);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    public String weatherUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/data/2.5/weather";
+    }
+
+    /** Calls to {@code /weather}. */
+    public long calls() {
+        return calls.get();
+    }
+
+    public long groupCalls() {
+        return groupCalls.get();
+    }
+
+    /** Calls answered with a 500 by {@link #simulate}. */
+    public long errors() {
+        return errors.get();
+    }
+
+    /** Calls answered with a 429 by {@link #simulate}. */
+    public long throttled() {
+        return throttled.get();
+    }
+
+    /**
+     * Every following call waits {@code latency} plus up to {@code jitter} (uniform), then fails
+     * with a 500 at {@code errorRate} and with a 429 at {@code throttleRate}.
+     */
+    public void simulate(Duration latency, Duration jitter, double errorRate, double throttleRate) {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+    }
+
+    public String lastQuery() {
+        return lastQuery;
+    }
+
+    /** Answers every following request with the given status and body instead of generated weather. */
+    public void respondWith(int status, String body) {
+        this.fixedBody = body;
+        this.fixedStatus = status;
+    }
+
+    private void handleWeather(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        lastQuery = exchange.getRequestURI().getRawQuery();
+        sleep(latency);
+
+        if (injectFault(exchange)) return;
+        if (fixedStatus != 0) {
+            respond(exchange, fixedStatus, fixedBody);
+            return;
+        }
+        String name = queryParam(exchange, "q");
+        if (name == null) name = queryParam(exchange, "zip");
+        String lat = queryParam(exchange, "lat");
+        String lon = queryParam(exchange, "lon");
+        if (name == null && lat != null && lon != null) {
+            // the provider answers with the observation at (here: exactly at) the coordinates
+            String json = weatherJson("Station " + lat + "," + lon);
+            respond(exchange, 200, json.substring(0, json.length() - 1) + ",\"coord\":{\"lon\":" + lon + ",\"lat\":" + lat + "}}");
+            return;
+        }
+        respond(exchange, 200, weatherJson(name));
+    }
+
+    private void handleGroup(HttpExchange exchange) throws IOException {
+        groupCalls.incrementAndGet();
+        lastQuery = exchange.getRequestURI().getRawQuery();
+        sleep(latency);
+
+        if (injectFault(exchange)) return;
+        if (fixedStatus != 0) {
+            respond(exchange, fixedStatus, fixedBody);
+            return;
+        }
+        StringJoiner list = new StringJoiner(",", "[", "]");
+        int count = 0;
+        for (String id : queryParam(exchange, "id").split(",")) {
+            String name = namesById.get(Long.parseLong(id));
+            if (name != null) {
+                list.add(weatherJson(name));
+                count++;
+            }
+        }
+        respond(exchange, 200, "{\"cnt\":" + count + ",\"list\":" + list + "}");
+    }
+
+    private boolean injectFault(HttpExchange exchange) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < errorRate) {
+            errors.incrementAndGet();
+            respond(exchange, 500, "{\"cod\":500,\"message\":\"Internal error\"}");
+            return true;
+        }
+        if (roll < errorRate + throttleRate) {
+            throttled.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            respond(exchange, 429, "{\"cod\":429,\"message\":\"Your account is temporary blocked\"}");
+            return true;
+        }
+        return false;
+    }
+
+    private String weatherJson(String name) {
+        long id = cityIds.computeIfAbsent(name.toLowerCase(Locale.ROOT), n -> {
+            long next = nextCityId.incrementAndGet();
+            namesById.put(next, name);
+            return next;
+        });
+        return """
+                {"weather":[{"description":"clear sky"}],"main":{"temp":21.5,"humidity":40},\
+                "wind":{"speed":3.1},"id":%d,"name":"%s"}""".formatted(id, name);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private void sleep(Duration d) {
+        long millis = d.toMillis();
+        long jitterMillis = jitter.toMillis();
+        if (jitterMillis > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        }
+        if (millis == 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}